@@ -0,0 +1,61 @@
+package common.router;
+
+import common.models.Billboard;
+import common.router.response.Ok;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the Java serialization round trip that every Request and Response takes over the socket.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SerializationBenchmark {
+
+    @Param({"1", "100"})
+    public int billboards;
+
+    private Request request;
+    private Response response;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        HashMap<String, String> params = new HashMap<>();
+        params.put("name", "billboard");
+        request = new Request("/billboard/update", "token", params, Billboard.Random(1));
+
+        List<Billboard> list = new ArrayList<>();
+        for (int i = 0; i < billboards; i++) list.add(Billboard.Random(1));
+        response = new Ok(list);
+    }
+
+    @Benchmark
+    public Object request() throws Exception {
+        return roundTrip(request);
+    }
+
+    @Benchmark
+    public Object response() throws Exception {
+        return roundTrip(response);
+    }
+
+    private static Object roundTrip(Object object) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        }
+
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return in.readObject();
+        }
+    }
+}
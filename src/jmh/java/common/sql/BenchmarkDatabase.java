@@ -0,0 +1,96 @@
+package common.sql;
+
+import common.models.Billboard;
+import common.models.Schedule;
+import common.models.User;
+import server.services.DataService;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Helpers that point the benchmark JVM at a throwaway SQLite database and populate it.
+ */
+public class BenchmarkDatabase {
+    private static Path directory;
+
+    /**
+     * Creates a temporary database and points the DataService at it.
+     * This must be called before anything touches the DataService or a Collection.
+     *
+     * @throws Exception A pass-through file exception.
+     */
+    public static synchronized void create() throws Exception {
+        if (directory != null) return;
+
+        directory = Files.createTempDirectory("billboard-bench");
+        String database = directory.resolve("bench.db").toAbsolutePath().toString().replace(File.separatorChar, '/');
+        Path props = directory.resolve("db.props");
+
+        Files.writeString(props, "jdbc.url=jdbc:sqlite:" + database + "\njdbc.schema=bench\njdbc.username=\njdbc.password=\n");
+        System.setProperty(DataService.PROPS_PROPERTY, props.toString());
+
+        // Durability doesn't matter for a throwaway database, only the statements being measured.
+        DataService.getConnection().createStatement().execute("PRAGMA synchronous = OFF");
+    }
+
+    /**
+     * Deletes the temporary database.
+     *
+     * @throws Exception A pass-through file exception.
+     */
+    public static synchronized void destroy() throws Exception {
+        if (directory == null) return;
+
+        DataService.getConnection().close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+        directory = null;
+    }
+
+    /**
+     * Inserts a random user to own the benchmark billboards.
+     *
+     * @return The ID of the inserted user.
+     * @throws Exception A pass-through internal server exception.
+     */
+    public static int insertUser() throws Exception {
+        User user = User.Random();
+        CollectionFactory.getInstance(User.class).insert(user);
+        return CollectionFactory.getInstance(User.class).get(u -> u.username.equals(user.username)).get(0).id;
+    }
+
+    /**
+     * Inserts random billboards in a single transaction.
+     *
+     * @param userId The owner of the billboards.
+     * @param rows The number of billboards to insert.
+     * @param withSchedules Whether to also schedule each billboard.
+     * @throws Exception A pass-through internal server exception.
+     */
+    public static void insertBillboards(int userId, int rows, boolean withSchedules) throws Exception {
+        Connection connection = DataService.getConnection();
+        connection.setAutoCommit(false);
+
+        try {
+            for (int i = 0; i < rows; i++) {
+                Billboard billboard = Billboard.Random(userId);
+                CollectionFactory.getInstance(Billboard.class).insert(billboard);
+
+                if (withSchedules) {
+                    Schedule schedule = Schedule.Random(billboard.name);
+                    schedule.duration = Math.max(1, schedule.duration);
+                    CollectionFactory.getInstance(Schedule.class).insert(schedule);
+                }
+            }
+            connection.commit();
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package common.sql;
+
+import common.models.Billboard;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures reading and hydrating whole tables through the Collection.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CollectionBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int rows;
+
+    private Collection<Billboard> billboards;
+    private String lastName;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        BenchmarkDatabase.create();
+        BenchmarkDatabase.insertBillboards(BenchmarkDatabase.insertUser(), rows, false);
+
+        billboards = CollectionFactory.getInstance(Billboard.class);
+        List<Billboard> all = billboards.get(b -> true);
+        lastName = all.get(all.size() - 1).name;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        BenchmarkDatabase.destroy();
+    }
+
+    // Every row is read and hydrated by fromSQL, then kept.
+    @Benchmark
+    public List<Billboard> getAll() throws Exception {
+        return billboards.get(b -> true);
+    }
+
+    // Every row is still read and hydrated by fromSQL, but only one is kept.
+    @Benchmark
+    public List<Billboard> getOne() throws Exception {
+        return billboards.get(b -> lastName.equals(b.name));
+    }
+}
@@ -0,0 +1,60 @@
+package common.sql;
+
+import common.models.Billboard;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import server.services.DataService;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building the SQL strings and prepared statements for each operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StatementBuilderBenchmark {
+
+    private Connection connection;
+    private Billboard billboard;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        BenchmarkDatabase.create();
+        CollectionFactory.getInstance(Billboard.class);
+
+        connection = DataService.getConnection();
+        billboard = Billboard.Random(1);
+        billboard.id = 1;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        BenchmarkDatabase.destroy();
+    }
+
+    @Benchmark
+    public void createStrings(Blackhole blackhole) {
+        blackhole.consume(StatementBuilder.createGetStatement(Billboard.class));
+        blackhole.consume(StatementBuilder.createInsertStatement(Billboard.class));
+        blackhole.consume(StatementBuilder.createUpdateStatement(Billboard.class));
+        blackhole.consume(StatementBuilder.createDeleteStatement(Billboard.class));
+    }
+
+    @Benchmark
+    public void prepareInsert() throws Exception {
+        try (PreparedStatement statement = StatementBuilder.insert(connection, billboard)) { }
+    }
+
+    @Benchmark
+    public void prepareUpdate() throws Exception {
+        try (PreparedStatement statement = StatementBuilder.update(connection, billboard)) { }
+    }
+
+    @Benchmark
+    public void prepareDelete() throws Exception {
+        try (PreparedStatement statement = StatementBuilder.delete(connection, billboard)) { }
+    }
+}
@@ -0,0 +1,55 @@
+package common.utils;
+
+import common.models.Billboard;
+import org.openjdk.jmh.annotations.*;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures converting billboards to and from XML, with and without a picture.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class XMLBenchmark {
+
+    @Param({"0", "512"})
+    public int pictureSize;
+
+    private Billboard billboard;
+    private String xml;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        billboard = Billboard.Random(1);
+
+        if (pictureSize > 0) {
+            // Noise doesn't compress, so the encoded picture is close to a worst case.
+            BufferedImage image = new BufferedImage(pictureSize, pictureSize, BufferedImage.TYPE_INT_RGB);
+            for (int x = 0; x < pictureSize; x++) {
+                for (int y = 0; y < pictureSize; y++) image.setRGB(x, y, new Color(RandomFactory.Int(0xffffff)).getRGB());
+            }
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(image, "png", out);
+            billboard.picture = Base64.getEncoder().encodeToString(out.toByteArray());
+        }
+
+        xml = XML.toXML(billboard);
+    }
+
+    @Benchmark
+    public String toXML() throws Exception {
+        return XML.toXML(billboard);
+    }
+
+    @Benchmark
+    public Billboard fromXML() throws Exception {
+        return XML.fromXML(xml, new Billboard());
+    }
+}
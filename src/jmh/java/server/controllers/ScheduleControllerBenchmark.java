@@ -0,0 +1,42 @@
+package server.controllers;
+
+import common.router.Request;
+import common.router.Response;
+import common.sql.BenchmarkDatabase;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures finding the currently scheduled billboard, the path every viewer polls.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ScheduleControllerBenchmark {
+
+    @Param({"100", "1000"})
+    public int schedules;
+
+    private ScheduleController.GetCurrent action;
+    private Request request;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        BenchmarkDatabase.create();
+        BenchmarkDatabase.insertBillboards(BenchmarkDatabase.insertUser(), schedules, true);
+
+        action = new ScheduleController.GetCurrent();
+        request = new Request("/schedule/get/current", null, null, null);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        BenchmarkDatabase.destroy();
+    }
+
+    @Benchmark
+    public Response getCurrent() throws Exception {
+        return action.execute(request);
+    }
+}
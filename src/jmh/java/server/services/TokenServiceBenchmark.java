@@ -0,0 +1,41 @@
+package server.services;
+
+import common.models.Permissions;
+import common.utils.session.Session;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures verifying a token while many sessions are active.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TokenServiceBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int sessions;
+
+    private String newest;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Session session = null;
+        for (int i = 0; i < sessions; i++) {
+            String username = "user" + i;
+            session = TokenService.getInstance().createSession(i, username, Permissions.Random(i, username));
+        }
+        newest = session.token;
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return TokenService.getInstance().verify(newest);
+    }
+
+    @Benchmark
+    public boolean verifyUnknown() {
+        return TokenService.getInstance().verify("unknown-token");
+    }
+}
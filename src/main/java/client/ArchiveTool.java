@@ -0,0 +1,94 @@
+package client;
+
+import common.router.Compressed;
+import common.router.Request;
+import common.router.Response;
+import common.router.response.Status;
+import common.utils.ArchiveReport;
+import common.utils.ConnectionPool;
+import common.utils.session.HashingFactory;
+import common.utils.session.Session;
+
+import java.io.Console;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+
+/**
+ * A command line tool that exports every billboard on the server to a zip archive of XML files, or imports such an
+ * archive, using the server configured in network.props.
+ * Usage: {@code ArchiveTool export|import <archive.zip> <username> [password]}, the password is asked for if it
+ * isn't given.
+ */
+public class ArchiveTool {
+
+    /**
+     * Runs the export or import and prints the outcome.
+     *
+     * @param args The command, archive, username and optional password.
+     * @throws Exception Pass through any connection or file error.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3 || !(args[0].equals("export") || args[0].equals("import"))) {
+            System.err.println("Usage: ArchiveTool export|import <archive.zip> <username> [password]");
+            System.exit(2);
+        }
+
+        Path archive = Paths.get(args[1]);
+        String password = args.length > 3 ? args[3] : readPassword();
+
+        HashMap<String, String> params = new HashMap<>();
+        params.put("username", args[2]);
+        params.put("password", HashingFactory.hashPassword(password));
+        String token;
+        try {
+            token = ((Session) send(new Request("/login", null, params, null)).body).token;
+        } catch (IllegalStateException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        // The exit code is only returned after logging out, as exiting skips the finally.
+        int exitCode = 0;
+        try {
+            if (args[0].equals("export")) {
+                Response res = send(new Request("/billboard/export", token, null, null));
+                Files.write(archive, (byte[]) res.body);
+                System.out.println("Exported billboards to " + archive);
+            } else {
+                Response res = send(new Request("/billboard/import", token, null, Files.readAllBytes(archive)));
+                System.out.print(res.body);
+                if (!((ArchiveReport) res.body).errors.isEmpty()) exitCode = 1;
+            }
+        } catch (IllegalStateException e) {
+            System.err.println(e.getMessage());
+            exitCode = 1;
+        } finally {
+            send(new Request("/logout", token, null, null));
+        }
+        System.exit(exitCode);
+    }
+
+    /**
+     * Sends a request.
+     *
+     * @throws IllegalStateException Thrown with the server's message if the request fails.
+     */
+    private static Response send(Request req) throws Exception {
+        req.acceptCompressed = true;
+        Object o = Compressed.unwrap(ConnectionPool.getInstance().send(req));
+
+        if (!(o instanceof Response)) throw new IllegalStateException("Unexpected reply from the server.");
+        Response res = (Response) o;
+        if (res.status != Status.SUCCESS) throw new IllegalStateException(req.path + " failed: " + res.message);
+        return res;
+    }
+
+    private static String readPassword() {
+        Console console = System.console();
+        if (console == null) throw new IllegalStateException("No console to read the password from, pass it as an argument.");
+        return new String(console.readPassword("Password: "));
+    }
+}
@@ -0,0 +1,71 @@
+package client.components;
+
+import common.swing.Notification;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+/**
+ * This class shows a loading state on a component while a background request runs, then hands the result back to
+ * the Swing event dispatch thread, like a SwingWorker's done().
+ */
+public class Loading {
+    // The number of requests running for a component, kept as a client property.
+    private static final String PENDING = "loading.pending";
+
+    /**
+     * Shows the loading state until the request completes, then passes the result to the callback on the event
+     * dispatch thread. A failed request is shown as a notification instead.
+     *
+     * @param owner The component showing the wait cursor, ie: the panel.
+     * @param request The running request.
+     * @param done Uses the result, ie: to update the table.
+     * @param disabled The components to disable while loading, ie: the button that started the request.
+     * @param <R> The type of the result.
+     */
+    public static <R> void run(JComponent owner, CompletableFuture<R> request, Consumer<R> done, JComponent... disabled) {
+        boolean[] enabled = new boolean[disabled.length];
+        for (int i = 0; i < disabled.length; i++) {
+            enabled[i] = disabled[i].isEnabled();
+            disabled[i].setEnabled(false);
+        }
+        begin(owner);
+
+        request.whenComplete((result, error) -> SwingUtilities.invokeLater(() -> {
+            end(owner);
+            // Only re-enable what was enabled, the permissions may have disabled the rest.
+            for (int i = 0; i < disabled.length; i++) disabled[i].setEnabled(enabled[i]);
+
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                Notification.display("Request failed: " + cause.getMessage());
+            } else {
+                done.accept(result);
+            }
+        }));
+    }
+
+    private static void begin(JComponent owner) {
+        Integer pending = (Integer) owner.getClientProperty(PENDING);
+        owner.putClientProperty(PENDING, pending == null ? 1 : pending + 1);
+        owner.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+    }
+
+    private static void end(JComponent owner) {
+        int pending = (Integer) owner.getClientProperty(PENDING) - 1;
+        owner.putClientProperty(PENDING, pending);
+        if (pending == 0) owner.setCursor(null);
+    }
+
+    /**
+     * @param owner The component showing the loading state.
+     * @return Whether any request is still running for the component.
+     */
+    public static boolean isLoading(JComponent owner) {
+        Integer pending = (Integer) owner.getClientProperty(PENDING);
+        return pending != null && pending > 0;
+    }
+}
@@ -139,12 +139,13 @@ public class ObjectTableModel<T> extends IObjectTableModel<T> {
     }
 
     /**
-     * Attempts to update the value on the server and reflects the changes to the table.
+     * Sets the value straight away and updates it on the server in the background, so editing never waits for the
+     * server. If the server rejects the update the old value is put back.
      *
      * @param type The object type of the intended field value.
      * @param columnIndex The column index of the intended field value location.
      * @param value The field value.
-     * @return A boolean that determines whether the field value was updated or not.
+     * @return A boolean that determines whether the field value was set or not.
      */
     @Override
     public boolean setObjectFieldValue(T type, int columnIndex, Object value) {
@@ -158,15 +159,23 @@ public class ObjectTableModel<T> extends IObjectTableModel<T> {
             // invoke the setter method
             columnInfo.setterMethod.invoke(type, value);
 
-            // attempt a Request to the server
-            Boolean success = dataService.update(type);
+            // attempt a Request to the server, only sending the changed field
+            dataService.updateAsync(type, columnInfo.propertyName).whenComplete((success, error) -> SwingUtilities.invokeLater(() -> {
+                if (Boolean.TRUE.equals(success)) return;
 
-            if (success) return true;
-            else {
-                // reinstate old value
-                columnInfo.setterMethod.invoke(type, oldValue);
-                return false;
-            }
+                try {
+                    // reinstate old value
+                    columnInfo.setterMethod.invoke(type, oldValue);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+
+                // the row may have moved while the request was running
+                fireTableDataChanged();
+                Notification.display("Failed to update " + columnInfo.displayName + ".");
+            }));
+
+            return true;
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -0,0 +1,52 @@
+package client.components.table;
+
+import client.components.Loading;
+
+import javax.swing.*;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * This class loads the next page of a table when the user scrolls near the bottom of it.
+ */
+public class ScrollPager {
+
+    /**
+     * How close in pixels to the bottom of the table the next page starts loading.
+     */
+    public static final int THRESHOLD = 200;
+
+    /**
+     * Attaches the pager to the scroll pane of a table.
+     *
+     * @param pane The scroll pane holding the table.
+     * @param tableModel The model of the table.
+     * @param hasMore Whether there are more pages to load.
+     * @param loadMore Starts loading the next page in the background, completing with every loaded row.
+     * @param <T> The type of the rows.
+     */
+    public static <T> void attach(JScrollPane pane, IObjectTableModel<T> tableModel, BooleanSupplier hasMore, Supplier<CompletableFuture<List<T>>> loadMore) {
+        JScrollBar bar = pane.getVerticalScrollBar();
+        // Whether a page is already loading, so a burst of scroll events loads it once.
+        boolean[] loading = { false };
+
+        // This also fires when the table is laid out, so a first page that doesn't fill the pane loads the next.
+        bar.addAdjustmentListener(e -> {
+            if (loading[0] || e.getValueIsAdjusting() || !pane.isShowing() || !hasMore.getAsBoolean()) return;
+            if (bar.getValue() + bar.getVisibleAmount() < bar.getMaximum() - THRESHOLD) return;
+
+            // The page loads in the background, a failed load is retried on the next scroll.
+            loading[0] = true;
+            Loading.run(pane, loadMore.get().handle((rows, error) -> rows), rows -> {
+                loading[0] = false;
+                if (rows == null) return;
+
+                int before = tableModel.getRowCount();
+                tableModel.setObjectRows(rows);
+                if (rows.size() > before) tableModel.fireTableRowsInserted(before, rows.size() - 1);
+            });
+        });
+    }
+}
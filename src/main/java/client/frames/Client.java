@@ -1,6 +1,7 @@
 package client.frames;
 
 import client.Main;
+import client.components.Loading;
 import client.components.Menu;
 import client.panels.PanelHandler;
 import client.services.PermissionsService;
@@ -58,12 +59,8 @@ public class Client extends JFrame {
                 if (result.isEmpty()) {
                     Notification.display("Password cannot be blank");
                 } else {
-                    try {
-                        // try update on server
-                        PermissionsService.getInstance().updatePassword(session.username, result);
-                    } catch (Exception exception) {
-                        exception.printStackTrace();
-                    }
+                    // try update on server
+                    Loading.run(getRootPane(), PermissionsService.getInstance().updatePasswordAsync(session.username, result), permissions -> {});
                 }
             }
         });
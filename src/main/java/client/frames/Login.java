@@ -1,6 +1,8 @@
 package client.frames;
 
 import client.Main;
+import client.components.Loading;
+import client.services.Async;
 import client.services.SessionService;
 import common.utils.session.Session;
 import common.router.Response;
@@ -114,14 +116,14 @@ public class Login extends JFrame implements ActionListener {
         params.put("username", username.getText());
         params.put("password", HashingFactory.hashPassword(String.valueOf(password.getPassword())));
 
-        // await a response from the server
-        Response res = new ClientSocketFactory("/login", null, params, null).Connect();
-
-        if (res != null && res.status == Status.SUCCESS && res.body instanceof Session) {
-            // set the session and render client main menu
-            SessionService.setInstance((Session) res.body);
-            Main.createAndShowClient();
-            dispose();
-        }
+        // await a response from the server without freezing the form
+        Loading.run(getRootPane(), Async.supply(() -> new ClientSocketFactory("/login", null, params, null).Connect()), res -> {
+            if (res != null && res.status == Status.SUCCESS && res.body instanceof Session) {
+                // set the session and render client main menu
+                SessionService.setInstance((Session) res.body);
+                Main.createAndShowClient();
+                dispose();
+            }
+        }, login);
     }
 }
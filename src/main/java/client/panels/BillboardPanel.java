@@ -1,10 +1,12 @@
 package client.panels;
 
+import client.components.Loading;
 import client.components.table.ColourEditor;
 import client.components.table.ColourRenderer;
 import client.components.table.PictureEditor;
 import client.components.table.PictureRenderer;
 import client.components.table.ObjectTableModel;
+import client.components.table.ScrollPager;
 import client.components.table.IObjectTableModel;
 import client.services.BillboardService;
 import client.services.SessionService;
@@ -14,7 +16,6 @@ import common.models.Billboard;
 import common.utils.Picture;
 import common.utils.session.Session;
 import common.swing.Notification;
-import org.w3c.dom.Document;
 
 import javax.swing.*;
 import javax.swing.filechooser.FileNameExtensionFilter;
@@ -22,7 +23,9 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.*;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * This class renders the Java Swing billboard panel for the client.
@@ -67,13 +70,13 @@ public class BillboardPanel extends JPanel implements ActionListener {
 
         // initialise the table model with billboard data
         tableModel = new ObjectTableModel(Billboard.class, BillboardService.getInstance());
-        tableModel.setObjectRows(BillboardService.getInstance().refresh());
         table = new JTable(tableModel);
 
         setupSelection();
         setupRenderersAndEditors();
 
         JScrollPane pane = new JScrollPane(table);
+        ScrollPager.attach(pane, tableModel, BillboardService.getInstance()::hasMore, BillboardService.getInstance()::loadMoreAsync);
 
         // add the buttons to the container
         buttonContainer.setLayout(new FlowLayout());
@@ -88,6 +91,19 @@ public class BillboardPanel extends JPanel implements ActionListener {
         add(buttonContainer, BorderLayout.NORTH);
         add(pane, BorderLayout.CENTER);
         setVisible(true);
+
+        // load the billboards without holding up the panel
+        Loading.run(this, BillboardService.getInstance().refreshAsync(), this::setRows, refreshButton);
+    }
+
+    /**
+     * Replaces the rows of the table, ie: with the result of a request.
+     *
+     * @param billboards The new list of billboards.
+     */
+    private void setRows(List<Billboard> billboards) {
+        tableModel.setObjectRows(billboards);
+        tableModel.fireTableDataChanged();
     }
 
     /**
@@ -158,8 +174,7 @@ public class BillboardPanel extends JPanel implements ActionListener {
                 Billboard b = new Billboard();
                 b.name = result;
 
-                tableModel.setObjectRows(BillboardService.getInstance().insert(b));
-                tableModel.fireTableDataChanged();
+                Loading.run(this, BillboardService.getInstance().insertAsync(b), this::setRows, createButton);
             }
         }
         // Check if view button is pressed
@@ -175,14 +190,13 @@ public class BillboardPanel extends JPanel implements ActionListener {
         // check if the refresh button is pressed
         if (e.getSource() == refreshButton) {
             // refresh the billboard list and update the table
-            tableModel.setObjectRows(BillboardService.getInstance().refresh());
-            tableModel.fireTableDataChanged();
+            Loading.run(this, BillboardService.getInstance().refreshAsync(), this::setRows, refreshButton);
         }
         // check if the delete button is pressed
         if (e.getSource() == deleteButton) {
             // delete the currently selected billboard and update the table
-            tableModel.setObjectRows(BillboardService.getInstance().delete(tableModel.getObjectRows().stream().filter(x -> x.name.equals(selected)).findFirst().get()));
-            tableModel.fireTableDataChanged();
+            Billboard billboard = tableModel.getObjectRows().stream().filter(x -> x.name.equals(selected)).findFirst().get();
+            Loading.run(this, BillboardService.getInstance().deleteAsync(billboard), this::setRows, deleteButton);
         }
         // check if the import button is pressed
         if (e.getSource() == importButton) {
@@ -195,22 +209,18 @@ public class BillboardPanel extends JPanel implements ActionListener {
                 // get file
                 if (returnVal == JFileChooser.APPROVE_OPTION) {
 
-                    String xml = XML.readFile(fileChooser.getSelectedFile().getPath());
-
                     // update selected billboard with variables
                     Optional<Billboard> selectedBillboard = tableModel.getObjectRows().stream().filter(x -> x.name.equals(selected)).findFirst();
 
                     if (selectedBillboard.isPresent()) {
-                        // convert the xml string to a billboard
-                        Billboard billboard = XML.fromXML(xml, selectedBillboard.get());
+                        // stream the xml file into a billboard, downloading its picture in the background, then update it
+                        CompletableFuture<Boolean> updated = XML.readFileAsync(fileChooser.getSelectedFile().toPath(), selectedBillboard.get())
+                            .thenCompose(billboard -> BillboardService.getInstance().updateAsync(billboard));
 
                         // only if successful does it re-fire the table
-                        Boolean success = BillboardService.getInstance().update(billboard);
-
-                        if (success) {
-                            tableModel.setObjectRows(BillboardService.getInstance().refresh());
-                            tableModel.fireTableDataChanged();
-                        }
+                        Loading.run(this, updated, success -> {
+                            if (success) Loading.run(this, BillboardService.getInstance().refreshAsync(), this::setRows, refreshButton);
+                        }, importButton);
                     }
                 }
             } catch (Exception ex) {
@@ -234,14 +244,8 @@ public class BillboardPanel extends JPanel implements ActionListener {
                         // get the billboard
                         Billboard billboard = selectedBillboard.get();
 
-                        // convert the billboard to an xml string
-                        String xml = XML.toXML(billboard);
-                        // convert the string to a document
-                        Document document = XML.toDocument(xml);
-
-                        // save the file to the selected file
-                        File file = fileChooser.getSelectedFile();
-                        XML.saveDocument(document, file);
+                        // stream the billboard as xml to the selected file
+                        XML.saveFile(billboard, fileChooser.getSelectedFile());
 
                         Notification.display("Successfully exported " + billboard.name + " to " + fileChooser.getName(fileChooser.getSelectedFile()));
                     }
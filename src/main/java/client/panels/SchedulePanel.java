@@ -1,5 +1,6 @@
 package client.panels;
 
+import client.components.Loading;
 import client.components.table.*;
 import client.services.BillboardService;
 import client.services.ScheduleService;
@@ -58,10 +59,10 @@ public class SchedulePanel extends JPanel implements ActionListener {
 
         // Getting table data and configuring table
         tableModel = new ObjectTableModel(Schedule.class, null);
-        tableModel.setObjectRows(ScheduleService.getInstance().refresh());
         table = new JTable(tableModel);
         setupSelection();
         JScrollPane pane = new JScrollPane(table);
+        ScrollPager.attach(pane, tableModel, ScheduleService.getInstance()::hasMore, ScheduleService.getInstance()::loadMoreAsync);
 
         // Add buttons to container
         buttonContainer.setLayout(new FlowLayout());
@@ -75,6 +76,19 @@ public class SchedulePanel extends JPanel implements ActionListener {
         add(buttonContainer, BorderLayout.NORTH);
         add(pane, BorderLayout.CENTER);
         setVisible(true);
+
+        // load the schedules without holding up the panel
+        Loading.run(this, ScheduleService.getInstance().refreshAsync(), this::setRows, refreshButton);
+    }
+
+    /**
+     * Replaces the rows of the table, ie: with the result of a request.
+     *
+     * @param schedules The new list of schedules.
+     */
+    private void setRows(List<Schedule> schedules) {
+        tableModel.setObjectRows(schedules);
+        tableModel.fireTableDataChanged();
     }
 
     /**
@@ -109,126 +123,140 @@ public class SchedulePanel extends JPanel implements ActionListener {
     public void actionPerformed(ActionEvent e) {
         // Check if create schedule button is pressed
         if(e.getSource() == createButton) {
-            try {
-                // Setting up billboard dropdown menu
-                List<Billboard> billboardList = BillboardService.getInstance().billboards;
-                List<String> billboardNames = billboardList.stream().map(b -> b.name).collect(Collectors.toList());
-
-                JComboBox billboards = new JComboBox(new DefaultComboBoxModel(billboardNames.toArray()));
-
-                JComboBox days = new JComboBox(new DefaultComboBoxModel(getNames(DayOfWeek.class)));
-
-                // Setting up start time spinner
-                SpinnerDateModel startModel = new SpinnerDateModel();
-                JSpinner startTime = new JSpinner(startModel);
-                startTime.setEditor(new JSpinner.DateEditor(startTime,"H:mm"));
-                // Setting up duration spinner
-                SpinnerNumberModel durModel = new SpinnerNumberModel(1, 1, 1440, 1);
-                JSpinner duration = new JSpinner(durModel);
-                // Setting up interval spinner
-                SpinnerNumberModel intModel = new SpinnerNumberModel(1, 0, 60, 1);
-                JSpinner interval = new JSpinner(intModel);
-                // Setting up components for Schedule dialog box
-                final JComponent[] components = new JComponent[]{
-                    new JLabel("Select a billboard:"),
-                    billboards,
-                    new JLabel("Select day to show"),
-                    days,
-                    new JLabel("Billboard start time:"),
-                    startTime,
-                    new JLabel("Billboard duration:"),
-                    duration,
-                    new JLabel("Billboard interval:"),
-                    interval
-                };
-                int result = JOptionPane.showConfirmDialog(this, components, "Schedule a billboard", JOptionPane.PLAIN_MESSAGE);
-                // If OK button is clicked, update schedule table
-                if (result == JOptionPane.OK_OPTION) {
-                    // If billboard is not selected, display warning message
-                    if (billboards.getSelectedItem() == null) {
-                        Notification.display("Billboard was not selected. Please try again");
-                        // If billboard is not selected, display warning message
-                    } else if (startTime.getValue() == null || duration.getValue() == null || interval.getValue() == null ) {
-                        Notification.display("One of the schedule values are empty. Please try again");
-                        // Else populate table
-                    } else {
-                        Schedule schedule = new Schedule();
-                        schedule.billboardName = ((String)billboards.getSelectedItem());
-                        schedule.dayOfWeek = days.getSelectedIndex();
-                        schedule.start = Time.timeToMinute((Date) startTime.getValue());
-                        schedule.duration = (Integer) duration.getValue();
-                        schedule.interval = (Integer) interval.getValue();
-
-                        tableModel.setObjectRows(ScheduleService.getInstance().insert(schedule));
-                        tableModel.fireTableDataChanged();
-                    }
-                }
-            }
-            catch (Exception ex) {
-                Notification.display(ex.getMessage());
-            }
+            // Fetch the billboards to choose from before showing the dialog
+            Loading.run(this, BillboardService.getInstance().fetchAllAsync(), this::showCreateDialog, createButton);
         }
         // Check if delete button is pressed
         if (e.getSource() == deleteButton) {
             var scheduleList = tableModel.getObjectRows();
             Schedule s = scheduleList.stream().filter(x -> x.billboardName.equals(selected)).findFirst().get();
-            tableModel.setObjectRows(ScheduleService.getInstance().delete(s));
-            tableModel.fireTableDataChanged();
+            Loading.run(this, ScheduleService.getInstance().deleteAsync(s), this::setRows, deleteButton);
         }
         // Check if show button is pressed
         if(e.getSource() == showButton){
-            try {
-                // Setting up calendar table
-                DefaultTableModel mtblCalendar = new DefaultTableModel(){public boolean isCellEditable(int rowIndex, int mColIndex){return false;}};
-                JTable tblCalendar = new JTable(mtblCalendar);
-                tblCalendar.setAutoResizeMode(JTable.AUTO_RESIZE_OFF); // Turn off auto resizing so user can scroll through data
-                List<Day> day = ScheduleService.getInstance().getSchedule();
-                int max = 0;
-                for (Day time : day) {
-                    if (time.times.size() > max) {
-                        max = time.times.size(); // Getting maximum size for table
-                    }
+            Loading.run(this, ScheduleService.getInstance().getScheduleAsync(), this::showCalendar, showButton);
+        }
+        // Check if refresh button is pressed
+        if (e.getSource() == refreshButton) {
+            Loading.run(this, ScheduleService.getInstance().refreshAsync(), this::setRows, refreshButton);
+        }
+    }
+
+    /**
+     * Shows the dialog to schedule a billboard and inserts the schedule.
+     *
+     * @param billboardList Every billboard that can be scheduled.
+     */
+    private void showCreateDialog(List<Billboard> billboardList) {
+        try {
+            // Setting up billboard dropdown menu
+            List<String> billboardNames = billboardList.stream().map(b -> b.name).collect(Collectors.toList());
+
+            JComboBox billboards = new JComboBox(new DefaultComboBoxModel(billboardNames.toArray()));
+
+            JComboBox days = new JComboBox(new DefaultComboBoxModel(getNames(DayOfWeek.class)));
+
+            // Setting up start time spinner
+            SpinnerDateModel startModel = new SpinnerDateModel();
+            JSpinner startTime = new JSpinner(startModel);
+            startTime.setEditor(new JSpinner.DateEditor(startTime,"H:mm"));
+            // Setting up duration spinner
+            SpinnerNumberModel durModel = new SpinnerNumberModel(1, 1, 1440, 1);
+            JSpinner duration = new JSpinner(durModel);
+            // Setting up interval spinner
+            SpinnerNumberModel intModel = new SpinnerNumberModel(1, 0, 60, 1);
+            JSpinner interval = new JSpinner(intModel);
+            // Setting up components for Schedule dialog box
+            final JComponent[] components = new JComponent[]{
+                new JLabel("Select a billboard:"),
+                billboards,
+                new JLabel("Select day to show"),
+                days,
+                new JLabel("Billboard start time:"),
+                startTime,
+                new JLabel("Billboard duration:"),
+                duration,
+                new JLabel("Billboard interval:"),
+                interval
+            };
+            int result = JOptionPane.showConfirmDialog(this, components, "Schedule a billboard", JOptionPane.PLAIN_MESSAGE);
+            // If OK button is clicked, update schedule table
+            if (result == JOptionPane.OK_OPTION) {
+                // If billboard is not selected, display warning message
+                if (billboards.getSelectedItem() == null) {
+                    Notification.display("Billboard was not selected. Please try again");
+                    // If billboard is not selected, display warning message
+                } else if (startTime.getValue() == null || duration.getValue() == null || interval.getValue() == null ) {
+                    Notification.display("One of the schedule values are empty. Please try again");
+                    // Else populate table
+                } else {
+                    Schedule schedule = new Schedule();
+                    schedule.billboardName = ((String)billboards.getSelectedItem());
+                    schedule.dayOfWeek = days.getSelectedIndex();
+                    schedule.start = Time.timeToMinute((Date) startTime.getValue());
+                    schedule.duration = (Integer) duration.getValue();
+                    schedule.interval = (Integer) interval.getValue();
+
+                    Loading.run(this, ScheduleService.getInstance().insertAsync(schedule), this::setRows, createButton);
                 }
-                String[] headers = {"Sunday", "Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday"};
-                // Inserting columns
-                for (int i = 0; i < 7; i++){
-                    mtblCalendar.addColumn(headers[i]);
+            }
+        }
+        catch (Exception ex) {
+            Notification.display(ex.getMessage());
+        }
+    }
+
+    /**
+     * Shows the calendar of the schedule for the week.
+     *
+     * @param day The schedule view data, one entry per day.
+     */
+    private void showCalendar(List<Day> day) {
+        try {
+            // Setting up calendar table
+            DefaultTableModel mtblCalendar = new DefaultTableModel(){public boolean isCellEditable(int rowIndex, int mColIndex){return false;}};
+            JTable tblCalendar = new JTable(mtblCalendar);
+            tblCalendar.setAutoResizeMode(JTable.AUTO_RESIZE_OFF); // Turn off auto resizing so user can scroll through data
+            int max = 0;
+            for (Day time : day) {
+                if (time.times.size() > max) {
+                    max = time.times.size(); // Getting maximum size for table
                 }
-                // Inserting empty strings for uneven columns
-                for (int i = 0; i < 7; i++){
-                    for (int j = day.get(i).times.size(); j <= max; j++){
-                        if (j != max){
-                            day.get(i).times.add(" ");
-                        }
+            }
+            String[] headers = {"Sunday", "Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday"};
+            // Inserting columns
+            for (int i = 0; i < 7; i++){
+                mtblCalendar.addColumn(headers[i]);
+            }
+            // Inserting empty strings for uneven columns
+            for (int i = 0; i < 7; i++){
+                for (int j = day.get(i).times.size(); j <= max; j++){
+                    if (j != max){
+                        day.get(i).times.add(" ");
                     }
                 }
-                // Inserting rows
-                for (int i = 0; i < max; i++) {
-                    mtblCalendar.addRow(new Object[]{day.get(0).times.get(i), day.get(1).times.get(i), day.get(2).times.get(i), day.get(3).times.get(i), day.get(4).times.get(i), day.get(5).times.get(i), day.get(6).times.get(i)});
-                }
-                // Resizing column widths
-                for (int i = 0; i < 7; i++){
-                    tblCalendar.getColumnModel().getColumn(i).setPreferredWidth(200);
-                    tblCalendar.getColumnModel().getColumn(i).setMinWidth(200);
-                    tblCalendar.getColumnModel().getColumn(i).setMaxWidth(400);
-                }
-                // Adding components to pane
-                JScrollPane pane = new JScrollPane(tblCalendar);
-                int result = JOptionPane.showConfirmDialog(this, pane, "Calendar", JOptionPane.PLAIN_MESSAGE);
-                if (result == JOptionPane.OK_OPTION) {
-
-                }
             }
-            catch (Exception ex) {
-                // Display pop-up message for any errors that arise
-                ex.printStackTrace();
-                Notification.display(ex.getMessage());
+            // Inserting rows
+            for (int i = 0; i < max; i++) {
+                mtblCalendar.addRow(new Object[]{day.get(0).times.get(i), day.get(1).times.get(i), day.get(2).times.get(i), day.get(3).times.get(i), day.get(4).times.get(i), day.get(5).times.get(i), day.get(6).times.get(i)});
+            }
+            // Resizing column widths
+            for (int i = 0; i < 7; i++){
+                tblCalendar.getColumnModel().getColumn(i).setPreferredWidth(200);
+                tblCalendar.getColumnModel().getColumn(i).setMinWidth(200);
+                tblCalendar.getColumnModel().getColumn(i).setMaxWidth(400);
+            }
+            // Adding components to pane
+            JScrollPane pane = new JScrollPane(tblCalendar);
+            int result = JOptionPane.showConfirmDialog(this, pane, "Calendar", JOptionPane.PLAIN_MESSAGE);
+            if (result == JOptionPane.OK_OPTION) {
+
             }
         }
-        // Check if refresh button is pressed
-        if (e.getSource() == refreshButton) {
-            tableModel.setObjectRows(ScheduleService.getInstance().refresh());
-            tableModel.fireTableDataChanged();
+        catch (Exception ex) {
+            // Display pop-up message for any errors that arise
+            ex.printStackTrace();
+            Notification.display(ex.getMessage());
         }
     }
 
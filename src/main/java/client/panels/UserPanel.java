@@ -1,11 +1,13 @@
 package client.panels;
 
+import client.components.Loading;
 import client.components.table.ColourEditor;
 import client.components.table.ColourRenderer;
 import client.components.table.PictureEditor;
 import client.components.table.PictureRenderer;
 import client.components.table.ObjectTableModel;
 import client.components.table.IObjectTableModel;
+import client.components.table.ScrollPager;
 import client.services.PermissionsService;
 import client.services.SessionService;
 import common.models.*;
@@ -18,6 +20,7 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.image.BufferedImage;
+import java.util.List;
 
 /**
  * This class renders the Java Swing user panel for the client.
@@ -52,11 +55,11 @@ public class UserPanel extends JPanel implements ActionListener {
 
         // initialise the table
         tableModel = new ObjectTableModel<>(Permissions.class, PermissionsService.getInstance());
-        tableModel.setObjectRows(PermissionsService.getInstance().refresh());
         table = new JTable(tableModel);
 
         setupSelection();
         JScrollPane pane = new JScrollPane(table);
+        ScrollPager.attach(pane, tableModel, PermissionsService.getInstance()::hasMore, PermissionsService.getInstance()::loadMoreAsync);
 
         // add the buttons to the container
         buttonContainer.setLayout(new FlowLayout());
@@ -69,6 +72,19 @@ public class UserPanel extends JPanel implements ActionListener {
         add(buttonContainer, BorderLayout.NORTH);
         add(pane, BorderLayout.CENTER);
         setVisible(true);
+
+        // load the users without holding up the panel
+        Loading.run(this, PermissionsService.getInstance().refreshAsync(), this::setRows, refreshButton);
+    }
+
+    /**
+     * Replaces the rows of the table, ie: with the result of a request.
+     *
+     * @param permissions The new list of permissions.
+     */
+    private void setRows(List<Permissions> permissions) {
+        tableModel.setObjectRows(permissions);
+        tableModel.fireTableDataChanged();
     }
 
     /**
@@ -145,8 +161,7 @@ public class UserPanel extends JPanel implements ActionListener {
                         Permissions permissions = new Permissions(username.getText(), canCreateBillboard.isSelected(), canEditBillboard.isSelected(), canScheduleBillboard.isSelected(), canEditUser.isSelected());
 
                         // send insert to server and fire updates to table model
-                        tableModel.setObjectRows(PermissionsService.getInstance().insert(new UserPermissions(user, permissions)));
-                        tableModel.fireTableDataChanged();
+                        Loading.run(this, PermissionsService.getInstance().insertAsync(new UserPermissions(user, permissions)), this::setRows, createButton);
                     }
                 }
             } catch (Exception ex) {
@@ -170,21 +185,14 @@ public class UserPanel extends JPanel implements ActionListener {
                 if (result.isEmpty()) {
                     Notification.display("Password cannot be blank");
                 } else {
-                    int id = tableModel.getObjectRows().stream().filter(x -> x.username.equals(selected)).findFirst().get().id;
-
-                    try {
-                        // try update the password
-                        PermissionsService.getInstance().updatePassword(selected, result);
-                    } catch (Exception exception) {
-                        Notification.display(exception.getMessage());
-                    }
+                    // try update the password
+                    Loading.run(this, PermissionsService.getInstance().updatePasswordAsync(selected, result), this::setRows, editButton);
                 }
             }
         }
         // Check if refresh button is pressed
         if (e.getSource() == refreshButton) {
-            tableModel.setObjectRows(PermissionsService.getInstance().refresh());
-            tableModel.fireTableDataChanged();
+            Loading.run(this, PermissionsService.getInstance().refreshAsync(), this::setRows, refreshButton);
         }
         // Check if delete button is pressed
         if (e.getSource() == deleteButton) {
@@ -203,8 +211,7 @@ public class UserPanel extends JPanel implements ActionListener {
                 u.id = permissions.id;
                 u.username = permissions.username;
                 // send a delete to the controller service for the selected user
-                tableModel.setObjectRows(PermissionsService.getInstance().delete(u));
-                tableModel.fireTableDataChanged();
+                Loading.run(this, PermissionsService.getInstance().deleteAsync(u), this::setRows, deleteButton);
             }
         }
     }
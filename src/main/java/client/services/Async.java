@@ -0,0 +1,32 @@
+package client.services;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * This class runs the client's server requests off the Swing event dispatch thread.
+ * Requests run one at a time in the order they were made, so a refresh after an insert sees the insert, and the
+ * services' loaded lists are only ever changed by one thread.
+ */
+public class Async {
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "client-network");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Async() {}
+
+    /**
+     * Runs a blocking service call in the background.
+     *
+     * @param call The service call, ie: BillboardService.getInstance()::refresh.
+     * @param <R> The type of the result.
+     * @return A future completed with the result of the call, or exceptionally if it threw.
+     */
+    public static <R> CompletableFuture<R> supply(Supplier<R> call) {
+        return CompletableFuture.supplyAsync(call, EXECUTOR);
+    }
+}
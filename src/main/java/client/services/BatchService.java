@@ -0,0 +1,53 @@
+package client.services;
+
+import common.router.Request;
+import common.router.Response;
+import common.utils.ClientSocketFactory;
+import common.utils.session.Session;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class is responsible for sending several requests to the server in a single round trip.
+ */
+public class BatchService {
+
+    /**
+     * Initialise new batch service.
+     */
+    protected BatchService() { }
+
+    /**
+     * Static singleton holder for batch service.
+     */
+    private static class BatchServiceHolder {
+        private final static BatchService INSTANCE = new BatchService();
+    }
+
+    /**
+     * Get the batch service instance.
+     *
+     * @return The batch service instance from the singleton.
+     */
+    public static BatchService getInstance() {
+        return BatchServiceHolder.INSTANCE;
+    }
+
+    /**
+     * Sends the requests to the server, which performs them in order within one transaction.
+     * If any request fails none of them are applied.
+     *
+     * @param requests The requests to send, their tokens are ignored in favour of the session.
+     * @return The response to each request performed, up to and including the one that failed, or null if the batch couldn't be sent.
+     */
+    public List<Response> send(List<Request> requests) {
+        Session session = SessionService.getInstance();
+        if (session == null) return null;
+
+        Response res = new ClientSocketFactory("/batch", session.token, null, new ArrayList<>(requests)).Connect();
+
+        if (res != null && res.body instanceof List) return (List<Response>) res.body;
+        return null;
+    }
+}
@@ -1,14 +1,21 @@
 package client.services;
 
 import common.models.*;
+import common.router.Request;
 import common.router.Response;
 import common.router.response.Status;
+import common.sql.Patch;
 import common.utils.ClientSocketFactory;
+import common.utils.PictureChunk;
 import common.utils.session.Session;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * This class is responsible for the backend billboard service for the client/viewer.
@@ -18,6 +25,9 @@ import java.util.List;
 public class BillboardService extends DataService<Billboard> {
     public List<Billboard> billboards;
 
+    // Loads the billboards a page at a time, sorted by name.
+    private final Pager<Billboard> pager = new Pager<>("/billboard/get", "/billboard/changes", "name");
+
     /**
      * Initialise new billboard service.
      */
@@ -40,22 +50,39 @@ public class BillboardService extends DataService<Billboard> {
     public static BillboardService getInstance() { return BillboardServiceHolder.INSTANCE; }
 
     /**
-     * Refreshes the billboard list.
+     * Refreshes the billboard list, downloading only what changed since it was loaded.
      *
      * @return The new list of billboards from the server.
      */
     public List<Billboard> refresh() {
-        Session session = SessionService.getInstance();
+        BillboardServiceHolder.INSTANCE.billboards = pager.sync();
+        return BillboardServiceHolder.INSTANCE.billboards;
+    }
 
-        if (session != null) {
-            Response result = new ClientSocketFactory("/billboard/get", session.token, null).Connect();
+    /**
+     * Loads the next page of billboards onto the end of the list.
+     *
+     * @return The list of billboards loaded so far.
+     */
+    public List<Billboard> loadMore() {
+        BillboardServiceHolder.INSTANCE.billboards = pager.next();
+        return BillboardServiceHolder.INSTANCE.billboards;
+    }
 
-            if (result != null && result.status == Status.SUCCESS && result.body instanceof List) {
-                BillboardServiceHolder.INSTANCE.billboards = (List<Billboard>) result.body;
-            }
-        }
+    /**
+     * @return Whether there are more billboards to load.
+     */
+    public boolean hasMore() {
+        return pager.hasMore();
+    }
 
-        return BillboardServiceHolder.INSTANCE.billboards;
+    /**
+     * Fetches every billboard, without changing the loaded list, ie: to choose from all of them.
+     *
+     * @return Every billboard from the server.
+     */
+    public List<Billboard> fetchAll() {
+        return pager.fetchAll();
     }
 
     /**
@@ -72,16 +99,157 @@ public class BillboardService extends DataService<Billboard> {
 
     /**
      * Attempts to update the given billboard on the server.
+     * If someone else changed it first, the update is rejected and the billboard list is refreshed.
      *
-     * @param billboard The billboard that is being updated on the server.
+     * @param billboard The billboard that is being updated on the server, its version is kept up to date.
      * @return A boolean whether the billboard was updated or not.
      */
     public Boolean update(Billboard billboard) {
         Session session = SessionService.getInstance();
+
+        // A large picture is sent a chunk at a time, after the rest of the billboard.
+        if (billboard.picture != null && billboard.picture.length() > PictureChunk.SIZE) {
+            Patch patch = new Patch(billboard.id, billboard.version)
+                .set("name", billboard.name)
+                .set("message", billboard.message)
+                .set("messageColor", billboard.messageColor)
+                .set("backgroundColor", billboard.backgroundColor)
+                .set("information", billboard.information)
+                .set("informationColor", billboard.informationColor);
+
+            Response res = new ClientSocketFactory("/billboard/patch", session.token, null, patch).Connect();
+            return updated(billboard, res) && uploadPicture(billboard, billboard.picture);
+        }
+
         Response res = new ClientSocketFactory("/billboard/update", session.token, null, billboard).Connect();
+        return updated(billboard, res);
+    }
+
+    /**
+     * Attempts to update a single field of the given billboard on the server, without sending the rest of it.
+     * If someone else changed it first, the update is rejected and the billboard list is refreshed.
+     *
+     * @param billboard The billboard that is being updated on the server, its version is kept up to date.
+     * @param field The name of the field that changed, ie: "messageColor".
+     * @return A boolean whether the billboard was updated or not.
+     */
+    @Override
+    public Boolean update(Billboard billboard, String field) {
+        // A new picture is always sent a chunk at a time, so no request holds more than a chunk of it.
+        if (field.equals("picture") && billboard.picture != null) {
+            return uploadPicture(billboard, billboard.picture);
+        }
+
+        Patch patch = new Patch(billboard.id, billboard.version);
+
+        try {
+            patch.set(field, Billboard.class.getField(field).get(billboard));
+        } catch (ReflectiveOperationException e) {
+            // Not a stored field, so send the whole billboard instead.
+            return update(billboard);
+        }
+
+        Session session = SessionService.getInstance();
+        Response res = new ClientSocketFactory("/billboard/patch", session.token, null, patch).Connect();
+        return updated(billboard, res);
+    }
+
+    /**
+     * Replaces the picture of the given billboard on the server, sending it a chunk at a time.
+     * If someone else changed the billboard first, the picture is rejected and the billboard list is refreshed.
+     *
+     * @param billboard The billboard whose picture is being replaced, its version is kept up to date.
+     * @param picture The new picture as base64.
+     * @return A boolean whether the picture was replaced or not.
+     */
+    public Boolean uploadPicture(Billboard billboard, String picture) {
+        Session session = SessionService.getInstance();
+        String uploadId = null;
+        Response res;
+
+        for (int offset = 0; ; offset += PictureChunk.SIZE) {
+            int end = Math.min(picture.length(), offset + PictureChunk.SIZE);
+            PictureChunk chunk = new PictureChunk(billboard.name, uploadId, offset, picture.substring(offset, end), end == picture.length());
+            chunk.version = billboard.version;
+
+            res = new ClientSocketFactory("/billboard/picture/upload", session.token, null, chunk).Connect();
+            if (chunk.last || res == null || res.status != Status.SUCCESS) break;
+
+            // The server names the upload on the first chunk.
+            uploadId = (String) res.body;
+        }
+
+        return updated(billboard, res);
+    }
+
+    /**
+     * Downloads the picture of the given billboard a chunk at a time, ie: to save it to a file.
+     *
+     * @param name The name of the billboard.
+     * @param out Where to write the decoded picture.
+     * @return A boolean whether the whole picture was downloaded or not.
+     * @throws IOException Thrown when the picture can't be written.
+     */
+    public Boolean downloadPicture(String name, OutputStream out) throws IOException {
+        Session session = SessionService.getInstance();
+        HashMap<String, String> params = new HashMap<>();
+        params.put(PictureChunk.NAME, name);
+
+        long offset = 0;
+        while (true) {
+            params.put(PictureChunk.OFFSET, String.valueOf(offset));
+            Response res = new ClientSocketFactory("/billboard/picture/download", session.token, params).Connect();
+            if (res == null || res.status != Status.SUCCESS || !(res.body instanceof PictureChunk)) return false;
+
+            // Every chunk is whole base64 blocks, so it decodes on its own.
+            PictureChunk chunk = (PictureChunk) res.body;
+            out.write(Base64.getDecoder().decode(chunk.data));
+            offset += chunk.data.length();
+
+            if (chunk.last || chunk.data.isEmpty()) return true;
+        }
+    }
+
+    /**
+     * Applies the result of an update to the billboard, ie: its new version.
+     *
+     * @param billboard The billboard that was sent to the server.
+     * @param res The response from the server.
+     * @return A boolean whether the billboard was updated or not.
+     */
+    private boolean updated(Billboard billboard, Response res) {
+        if (res == null) return false;
+
+        if (res.status == Status.CONFLICT) {
+            refresh();
+            return false;
+        }
+
+        if (res.status == Status.SUCCESS && res.body instanceof Integer) billboard.version = (Integer) res.body;
         return !res.error;
     }
 
+    /**
+     * Attempts to update all of the given billboards on the server in a single round trip.
+     * Either every billboard is updated or none are.
+     *
+     * @param billboards The billboards that are being updated on the server.
+     * @return A boolean whether the billboards were updated or not.
+     */
+    public Boolean updateAll(List<Billboard> billboards) {
+        List<Request> requests = new ArrayList<>();
+        for (Billboard billboard : billboards) requests.add(new Request("/billboard/update", null, null, billboard));
+
+        List<Response> responses = BatchService.getInstance().send(requests);
+        if (responses == null || responses.isEmpty()) return false;
+
+        // A failed batch only returns the responses up to the request that failed.
+        if (responses.size() != requests.size()) return updated(billboards.get(responses.size() - 1), responses.get(responses.size() - 1));
+
+        for (int i = 0; i < billboards.size(); i++) updated(billboards.get(i), responses.get(i));
+        return true;
+    }
+
     /**
      * Attempts to delete the given billboard on the server.
      *
@@ -97,4 +265,61 @@ public class BillboardService extends DataService<Billboard> {
         Response res = new ClientSocketFactory("/billboard/delete", session.token, params).Connect();
         return refresh();
     }
+
+    /**
+     * Refreshes the billboards list in the background.
+     *
+     * @return A future of the new list of billboards.
+     */
+    public CompletableFuture<List<Billboard>> refreshAsync() {
+        return Async.supply(this::refresh);
+    }
+
+    /**
+     * Loads the next page of billboards in the background.
+     *
+     * @return A future of the list of billboards loaded so far.
+     */
+    public CompletableFuture<List<Billboard>> loadMoreAsync() {
+        return Async.supply(this::loadMore);
+    }
+
+    /**
+     * Fetches every billboard in the background.
+     *
+     * @return A future of every billboard from the server.
+     */
+    public CompletableFuture<List<Billboard>> fetchAllAsync() {
+        return Async.supply(this::fetchAll);
+    }
+
+    /**
+     * Inserts the given billboard in the background.
+     *
+     * @param billboard The billboard that is being sent to the server.
+     * @return A future of the new list of billboards.
+     */
+    public CompletableFuture<List<Billboard>> insertAsync(Billboard billboard) {
+        return Async.supply(() -> insert(billboard));
+    }
+
+    /**
+     * Updates the given billboard in the background.
+     *
+     * @param billboard The billboard that is being updated on the server.
+     * @return A future of whether the billboard was updated.
+     */
+    public CompletableFuture<Boolean> updateAsync(Billboard billboard) {
+        return Async.supply(() -> update(billboard));
+    }
+
+    /**
+     * Deletes the given billboard in the background.
+     *
+     * @param billboard The billboard that is being deleted from the server.
+     * @return A future of the new list of billboards.
+     */
+    public CompletableFuture<List<Billboard>> deleteAsync(Billboard billboard) {
+        return Async.supply(() -> delete(billboard));
+    }
 }
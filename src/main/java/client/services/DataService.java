@@ -1,5 +1,7 @@
 package client.services;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * This class adds a specific type for table updating in java.
  *
@@ -14,4 +16,27 @@ public abstract class DataService<T> {
      * @return A boolean that represents whether the class object was updated.
      */
    public abstract Boolean update(T typeClass);
+
+    /**
+     * Class function for updating a single field of a class in the data service.
+     * By default the whole object is updated, a data service can override this to send only the field.
+     *
+     * @param typeClass The class type for the data service.
+     * @param field The name of the field that changed.
+     * @return A boolean that represents whether the class object was updated.
+     */
+    public Boolean update(T typeClass, String field) {
+        return update(typeClass);
+    }
+
+    /**
+     * Updates a single field of a class in the data service in the background, ie: from a table cell edit.
+     *
+     * @param typeClass The class type for the data service.
+     * @param field The name of the field that changed.
+     * @return A future of whether the class object was updated.
+     */
+    public CompletableFuture<Boolean> updateAsync(T typeClass, String field) {
+        return Async.supply(() -> update(typeClass, field));
+    }
 }
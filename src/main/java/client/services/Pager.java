@@ -0,0 +1,238 @@
+package client.services;
+
+import common.router.Response;
+import common.router.response.Status;
+import common.sql.Delta;
+import common.sql.Page;
+import common.utils.ClientSocketFactory;
+import common.utils.session.Session;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * This class fetches a server listing one page at a time for the client services.
+ */
+public class Pager<T> {
+    /**
+     * The number of items fetched per page.
+     */
+    public static final int PAGE_SIZE = 100;
+
+    private final String path;
+    private final String changes;
+    private final String sort;
+
+    // The items loaded so far, pages are appended as they are loaded.
+    // Every change makes a new list, so a list handed to a table is never changed by a background request.
+    private List<T> items = new ArrayList<>();
+    private volatile Page<T> last;
+
+    // The last item of the loaded pages, items after it are left for the next page.
+    private T cursor;
+
+    // The change log sequence the loaded items are up to date with.
+    private long sequence;
+
+    /**
+     * Initialise a new pager.
+     *
+     * @param path The listing request path.
+     * @param sort The column to sort the listing by.
+     */
+    public Pager(String path, String sort) {
+        this(path, null, sort);
+    }
+
+    /**
+     * Initialise a new pager for a tracked listing, that can update its loaded items with only what changed.
+     *
+     * @param path The listing request path.
+     * @param changes The changes request path, ie: "/billboard/changes".
+     * @param sort The column to sort the listing by.
+     */
+    public Pager(String path, String changes, String sort) {
+        this.path = path;
+        this.changes = changes;
+        this.sort = sort;
+    }
+
+    /**
+     * Discards the loaded items and loads the first page.
+     *
+     * @return The loaded items, the previous items if the request failed.
+     */
+    public List<T> first() {
+        Page<T> page = fetch(firstParams());
+        return page != null ? first(page) : items;
+    }
+
+    /**
+     * Creates the request parameters for the first page, ie: to fetch it as part of a batch.
+     *
+     * @return The request parameters.
+     */
+    public HashMap<String, String> firstParams() {
+        return Page.first(sort, PAGE_SIZE);
+    }
+
+    /**
+     * Discards the loaded items and replaces them with a first page that was already fetched.
+     *
+     * @param page The first page.
+     * @return The loaded items.
+     */
+    public List<T> first(Page<T> page) {
+        items = new ArrayList<>(page.items);
+        last = page;
+        cursor = page.items.isEmpty() ? null : page.items.get(page.items.size() - 1);
+        sequence = page.sequence;
+        return items;
+    }
+
+    /**
+     * Loads the next page and appends it to the loaded items.
+     *
+     * @return The loaded items, unchanged if there are no more pages or the request failed.
+     */
+    public List<T> next() {
+        if (!hasMore()) return items;
+
+        Page<T> page = fetch(last.next(PAGE_SIZE));
+
+        if (page != null) {
+            items = new ArrayList<>(items);
+            items.addAll(page.items);
+            last = page;
+            if (!page.items.isEmpty()) cursor = page.items.get(page.items.size() - 1);
+        }
+
+        return items;
+    }
+
+    /**
+     * Updates the loaded items with only the changes made since they were loaded, instead of reloading them.
+     * Falls back to loading the first page if nothing is loaded, the listing isn't tracked or the server no longer
+     * knows the changes.
+     *
+     * @return The loaded items, unchanged if the request failed.
+     */
+    public List<T> sync() {
+        if (changes == null || last == null) return first();
+
+        HashMap<String, String> params = new HashMap<>();
+        params.put(Delta.SINCE, String.valueOf(sequence));
+
+        Response result = request(changes, params);
+        if (result == null || result.status != Status.SUCCESS || !(result.body instanceof Delta)) return items;
+
+        Delta<T> delta = (Delta<T>) result.body;
+        if (delta.reset) return first();
+
+        items = new ArrayList<>(items);
+        apply(delta);
+        sequence = delta.sequence;
+        return items;
+    }
+
+    /**
+     * Applies the changes to the loaded items, keeping them in sort order.
+     * A changed item that now sorts after the loaded pages is removed, the next page will load it.
+     *
+     * @param delta The changes.
+     */
+    private void apply(Delta<T> delta) {
+        Set<Integer> removed = new HashSet<>(delta.deleted);
+        for (T item : delta.changed) removed.add((Integer) value(item, "id"));
+        items.removeIf(item -> removed.contains((Integer) value(item, "id")));
+
+        for (T item : delta.changed) {
+            if (hasMore() && cursor != null && compare(item, cursor) > 0) continue;
+
+            int i = 0;
+            while (i < items.size() && compare(items.get(i), item) < 0) i++;
+            items.add(i, item);
+        }
+    }
+
+    /**
+     * Compares two items the way the server sorts them, by the sort column then by id.
+     */
+    @SuppressWarnings("unchecked")
+    private int compare(T a, T b) {
+        int result = ((Comparable<Object>) value(a, sort)).compareTo(value(b, sort));
+        return result != 0 ? result : Integer.compare((Integer) value(a, "id"), (Integer) value(b, "id"));
+    }
+
+    private Object value(T item, String field) {
+        try {
+            return item.getClass().getField(field).get(item);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Can't read " + field + " of " + item.getClass().getSimpleName() + ".", e);
+        }
+    }
+
+    /**
+     * @return Whether there are more pages to load.
+     */
+    public boolean hasMore() {
+        return last != null && last.more;
+    }
+
+    /**
+     * @return The items loaded so far.
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Fetches every page into a new list, without changing the loaded items, ie: for a dropdown of every item.
+     *
+     * @return Every item, or as many as could be fetched.
+     */
+    public List<T> fetchAll() {
+        List<T> all = new ArrayList<>();
+        Page<T> page = fetch(firstParams());
+
+        while (page != null) {
+            all.addAll(page.items);
+            page = page.more ? fetch(page.next(PAGE_SIZE)) : null;
+        }
+
+        return all;
+    }
+
+    /**
+     * Requests a single page from the server.
+     *
+     * @param params The page parameters.
+     * @return The page, or null if the request failed.
+     */
+    private Page<T> fetch(HashMap<String, String> params) {
+        Response result = request(path, params);
+
+        if (result != null && result.status == Status.SUCCESS && result.body instanceof Page) {
+            return (Page<T>) result.body;
+        }
+
+        return null;
+    }
+
+    /**
+     * Sends a request with the session token.
+     *
+     * @param path The request path.
+     * @param params The request parameters.
+     * @return The response, or null if there is no session or the request failed.
+     */
+    private Response request(String path, HashMap<String, String> params) {
+        Session session = SessionService.getInstance();
+        if (session == null) return null;
+
+        return new ClientSocketFactory(path, session.token, params).Connect();
+    }
+}
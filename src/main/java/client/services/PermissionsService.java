@@ -10,6 +10,7 @@ import common.utils.session.Session;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * This class is responsible for the backend permissions service for the client/viewer.
@@ -19,6 +20,9 @@ import java.util.List;
 public class PermissionsService extends DataService<Permissions> {
     private List<Permissions> permissions;
 
+    // Loads the permissions a page at a time, sorted by username.
+    private final Pager<Permissions> pager = new Pager<>("/permission/get", "username");
+
     /**
      * Initialise new permissions service.
      */
@@ -41,24 +45,32 @@ public class PermissionsService extends DataService<Permissions> {
     public static PermissionsService getInstance() { return PermissionsServiceHolder.INSTANCE; }
 
     /**
-     * Refreshes the permissions list.
+     * Refreshes the permissions list, loading only the first page.
      *
      * @return The new list of permissions from the server.
      */
     public List<Permissions> refresh() {
-        Session session = SessionService.getInstance();
-
-        if (session != null) {
-            Response result = new ClientSocketFactory("/permission/get", session.token, null).Connect();
-
-            if (result != null && result.status == Status.SUCCESS && result.body instanceof List) {
-                PermissionsServiceHolder.INSTANCE.permissions = (List<Permissions>) result.body;
-            }
-        }
+        PermissionsServiceHolder.INSTANCE.permissions = pager.first();
+        return PermissionsServiceHolder.INSTANCE.permissions;
+    }
 
+    /**
+     * Loads the next page of permissions onto the end of the list.
+     *
+     * @return The list of permissions loaded so far.
+     */
+    public List<Permissions> loadMore() {
+        PermissionsServiceHolder.INSTANCE.permissions = pager.next();
         return PermissionsServiceHolder.INSTANCE.permissions;
     }
 
+    /**
+     * @return Whether there are more permissions to load.
+     */
+    public boolean hasMore() {
+        return pager.hasMore();
+    }
+
     /**
      * Attempts to insert the given permissions on the server.
      *
@@ -116,4 +128,53 @@ public class PermissionsService extends DataService<Permissions> {
         Response res = new ClientSocketFactory("/user/update/password", session.token, params, null).Connect();
         return refresh();
     }
+
+    /**
+     * Refreshes the permissions list in the background.
+     *
+     * @return A future of the new list of permissions.
+     */
+    public CompletableFuture<List<Permissions>> refreshAsync() {
+        return Async.supply(this::refresh);
+    }
+
+    /**
+     * Loads the next page of permissions in the background.
+     *
+     * @return A future of the list of permissions loaded so far.
+     */
+    public CompletableFuture<List<Permissions>> loadMoreAsync() {
+        return Async.supply(this::loadMore);
+    }
+
+    /**
+     * Inserts the given user and permissions in the background.
+     *
+     * @param userPerm The user permission that is being sent to the server.
+     * @return A future of the new list of permissions.
+     */
+    public CompletableFuture<List<Permissions>> insertAsync(UserPermissions userPerm) {
+        return Async.supply(() -> insert(userPerm));
+    }
+
+    /**
+     * Deletes the given user in the background.
+     *
+     * @param user The user that is being deleted from the server.
+     * @return A future of the new list of permissions.
+     */
+    public CompletableFuture<List<Permissions>> deleteAsync(User user) {
+        return Async.supply(() -> delete(user));
+    }
+
+    /**
+     * Updates the password of the given user in the background.
+     *
+     * @param username The username of the user that's password is being updated.
+     * @param password The new password.
+     * @return A future of the new list of permissions.
+     */
+    public CompletableFuture<List<Permissions>> updatePasswordAsync(String username, String password) {
+        return Async.supply(() -> updatePassword(username, password));
+    }
 }
@@ -4,12 +4,15 @@ import common.utils.scheduling.Day;
 import common.utils.scheduling.DayOfWeek;
 import common.models.Schedule;
 import common.utils.session.Session;
+import common.router.Request;
 import common.router.Response;
+import common.sql.Page;
 import common.router.response.Status;
 import common.utils.ClientSocketFactory;
 import common.utils.scheduling.Time;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 /**
@@ -20,6 +23,9 @@ import java.util.stream.Collectors;
 public class ScheduleService {
     public List<Schedule> schedules;
 
+    // Loads the schedules a page at a time, in the order they were created.
+    private final Pager<Schedule> pager = new Pager<>("/schedule/get", "/schedule/changes", "id");
+
     /**
      * Initialise new schedule service.
      */
@@ -44,31 +50,40 @@ public class ScheduleService {
     }
 
     /**
-     * Refreshes the schedule list.
+     * Refreshes the schedule list, downloading only what changed since it was loaded.
      *
      * @return The new list of schedules from the server.
      */
     public List<Schedule> refresh() {
-        Session session = SessionService.getInstance();
-
-        if (session != null) {
-            Response result = new ClientSocketFactory("/schedule/get", session.token, null).Connect();
-
-            if (result != null && result.status == Status.SUCCESS && result.body instanceof List) {
-                ScheduleServiceHolder.INSTANCE.schedules = (List<Schedule>) result.body;
-            }
-        }
+        ScheduleServiceHolder.INSTANCE.schedules = pager.sync();
+        return ScheduleServiceHolder.INSTANCE.schedules;
+    }
 
+    /**
+     * Loads the next page of schedules onto the end of the list.
+     *
+     * @return The list of schedules loaded so far.
+     */
+    public List<Schedule> loadMore() {
+        ScheduleServiceHolder.INSTANCE.schedules = pager.next();
         return ScheduleServiceHolder.INSTANCE.schedules;
     }
 
     /**
-     * Get the schedule view data.
+     * @return Whether there are more schedules to load.
+     */
+    public boolean hasMore() {
+        return pager.hasMore();
+    }
+
+    /**
+     * Get the schedule view data, from every schedule on the server.
      *
      * @return The list of days from the schedule for viewing.
      */
     public List<Day> getSchedule() {
         List<Day> schedulesList = new ArrayList<>();
+        List<Schedule> schedules = pager.fetchAll();
 
         // iterates over days of the week
         for (var day : DayOfWeek.values()) {
@@ -138,6 +153,31 @@ public class ScheduleService {
         return refresh();
     }
 
+    /**
+     * Attempts to insert all of the given schedules on the server in a single round trip, ie: for an import.
+     * Either every schedule is inserted or none are.
+     *
+     * @param schedules The schedules that are being sent to the server.
+     * @return The new list of schedules from the server.
+     */
+    public List<Schedule> insertAll(List<Schedule> schedules) {
+        List<Request> requests = new ArrayList<>();
+        for (Schedule schedule : schedules) requests.add(new Request("/schedule/insert", null, null, schedule));
+        // Fetch the refreshed first page in the same round trip.
+        requests.add(new Request("/schedule/get", null, pager.firstParams(), null));
+
+        List<Response> responses = BatchService.getInstance().send(requests);
+
+        if (responses != null && responses.size() == requests.size()) {
+            Response result = responses.get(responses.size() - 1);
+            if (result.status == Status.SUCCESS && result.body instanceof Page) {
+                ScheduleServiceHolder.INSTANCE.schedules = pager.first((Page<Schedule>) result.body);
+            }
+        }
+
+        return ScheduleServiceHolder.INSTANCE.schedules;
+    }
+
     /**
      * Attempts to delete the given schedule on the server.
      *
@@ -149,4 +189,51 @@ public class ScheduleService {
         Response res = new ClientSocketFactory("/schedule/delete", session.token, null, schedule).Connect();
         return refresh();
     }
+
+    /**
+     * Refreshes the schedules list in the background.
+     *
+     * @return A future of the new list of schedules.
+     */
+    public CompletableFuture<List<Schedule>> refreshAsync() {
+        return Async.supply(this::refresh);
+    }
+
+    /**
+     * Loads the next page of schedules in the background.
+     *
+     * @return A future of the list of schedules loaded so far.
+     */
+    public CompletableFuture<List<Schedule>> loadMoreAsync() {
+        return Async.supply(this::loadMore);
+    }
+
+    /**
+     * Gets the schedule view data in the background.
+     *
+     * @return A future of the list of days from the schedule.
+     */
+    public CompletableFuture<List<Day>> getScheduleAsync() {
+        return Async.supply(this::getSchedule);
+    }
+
+    /**
+     * Inserts the given schedule in the background.
+     *
+     * @param schedule The schedule that is being sent to the server.
+     * @return A future of the new list of schedules.
+     */
+    public CompletableFuture<List<Schedule>> insertAsync(Schedule schedule) {
+        return Async.supply(() -> insert(schedule));
+    }
+
+    /**
+     * Deletes the given schedule in the background.
+     *
+     * @param schedule The schedule that is being deleted from the server.
+     * @return A future of the new list of schedules.
+     */
+    public CompletableFuture<List<Schedule>> deleteAsync(Schedule schedule) {
+        return Async.supply(() -> delete(schedule));
+    }
 }
@@ -3,6 +3,7 @@ package common.models;
 import client.components.table.DisplayAs;
 import client.components.table.Editable;
 import common.sql.SQLITE;
+import common.sql.Tracked;
 import common.utils.Picture;
 import common.utils.RandomFactory;
 
@@ -17,6 +18,7 @@ import java.io.*;
  * @author Jamie Martin
  */
 @SQLITE(type="FOREIGN KEY(userId) REFERENCES User(id)")
+@Tracked
 public class Billboard implements Serializable, Editable {
     /**
      * The billboard ID.
@@ -78,6 +80,12 @@ public class Billboard implements Serializable, Editable {
     @SQLITE(type="INTEGER NOT NULL")
     public int userId;
 
+    /**
+     * The billboard version, incremented by every update so concurrent edits can be detected.
+     */
+    @SQLITE(type="INTEGER NOT NULL DEFAULT 0")
+    public int version;
+
     /**
      * An empty constructor just for creating the object.
      */
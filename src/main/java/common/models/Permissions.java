@@ -2,6 +2,7 @@ package common.models;
 
 import client.components.table.DisplayAs;
 import client.components.table.Editable;
+import common.sql.Cached;
 import common.sql.SQLITE;
 import common.utils.RandomFactory;
 
@@ -15,6 +16,7 @@ import java.io.Serializable;
  * @author Jamie Martin
  */
 @SQLITE(type="FOREIGN KEY(id) REFERENCES User(id), FOREIGN KEY(username) REFERENCES User(username)")
+@Cached(unique = "username")
 public class Permissions implements Serializable, Editable {
     /**
      * The permissions ID.
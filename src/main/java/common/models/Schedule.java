@@ -2,7 +2,9 @@ package common.models;
 
 import client.components.table.DisplayAs;
 import client.components.table.Editable;
+import common.sql.Cached;
 import common.sql.SQLITE;
+import common.sql.Tracked;
 import common.utils.RandomFactory;
 import common.utils.scheduling.Time;
 
@@ -17,6 +19,8 @@ import java.time.Instant;
  * @author Hieu Nghia Huynh
  */
 @SQLITE(type="FOREIGN KEY(billboardName) REFERENCES Billboard(name)")
+@Cached
+@Tracked
 public class Schedule implements Serializable, Editable {
     /**
      * The schedule ID.
@@ -64,6 +68,12 @@ public class Schedule implements Serializable, Editable {
     @SQLITE(type="INTEGER NOT NULL")
     public int interval;
 
+    /**
+     * The schedule version, incremented by every update so concurrent edits can be detected.
+     */
+    @SQLITE(type="INTEGER NOT NULL DEFAULT 0")
+    public int version;
+
     /**
      * An empty constructor just for creating the schedule object.
      */
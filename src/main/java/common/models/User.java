@@ -1,5 +1,6 @@
 package common.models;
 
+import common.sql.Cached;
 import common.sql.SQLITE;
 import common.utils.RandomFactory;
 
@@ -13,6 +14,7 @@ import java.io.Serializable;
  * @author Jamie Martin
  */
 @SQLITE
+@Cached(unique = "username")
 public class User extends Object implements Serializable{
     /**
      * The users ID.
@@ -4,6 +4,7 @@ import common.router.response.NotFound;
 
 /**
  * The Action Class, this is used in the Router to ensure given executions contain the necessary methods to run.
+ * A single instance is shared between every request on a route, so Actions must not hold per-request state.
  *
  * @author Jamie Martin
  * @author Perdana Bailey
@@ -0,0 +1,192 @@
+package common.router;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+
+/**
+ * This class is a serialized object compressed with Deflate, sent in place of a large Response when the client
+ * accepts it. Small objects aren't worth the CPU and are sent as they are.
+ */
+public class Compressed implements Serializable {
+    /**
+     * The serialized size in bytes from which an object is compressed.
+     */
+    public static final int THRESHOLD = 2048;
+
+    // Strings that recur in the serialized responses, so even the first occurrence in a stream compresses.
+    // Deflate favours the end of the dictionary, so the most common strings are last.
+    private static final byte[] DICTIONARY = (
+        "java.lang.Booleanjava.lang.Integerjava.lang.Numberjava.time.Ser"
+        + "common.models.Schedulecommon.models.Permissionscommon.utils.session.Session"
+        + "billboardNamedayOfWeekstartdurationintervalcreateTimeusernametoken"
+        + "canCreateBillboardcanEditBillboardcanScheduleBillboardcanEditUser"
+        + "common.sql.PagesortafterafterIdmoreitemssequencecommon.sql.Deltachangeddeletedreset"
+        + "java.util.ArrayListsizeelementDatajava.lang.String"
+        + "common.router.response.Statuscommon.router.Responsestatusmessageerrorbody"
+        + "common.models.BillboardidnamemessagemessageColorpicturebackgroundColorinformationinformationColorlockeduserIdversion"
+        + "#ffffff#FFFFFF#000000"
+    ).getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * The length of the serialized object before compression.
+     */
+    public int length;
+
+    /**
+     * The compressed serialized object.
+     */
+    public byte[] data;
+
+    /**
+     * An empty constructor just for creating the object.
+     */
+    public Compressed() {
+
+    }
+
+    /**
+     * Constructor for the Compressed object.
+     *
+     * @param length The length of the serialized object before compression.
+     * @param data The compressed serialized object.
+     */
+    public Compressed(int length, byte[] data) {
+        this.length = length;
+        this.data = data;
+    }
+
+    /**
+     * Compresses an object if it is large enough to be worth it.
+     * The object is deflated as it is serialized, so only the compressed copy is held in memory.
+     *
+     * @param value The object to send.
+     * @return The Compressed object, or the object itself if it is small or doesn't compress.
+     * @throws IOException Thrown when the object can't be serialized.
+     */
+    public static Object wrap(Object value) throws IOException {
+        // A body of bytes is already compressed, ie: an exported archive.
+        if (value instanceof Response && ((Response) value).body instanceof byte[]) return value;
+
+        Compressor compressor = new Compressor();
+        try (ObjectOutputStream out = new ObjectOutputStream(compressor)) {
+            out.writeObject(value);
+        } catch (Incompressible e) {
+            return value;
+        } finally {
+            compressor.end();
+        }
+
+        if (compressor.deflated == null) return value;
+        return new Compressed((int) compressor.length, compressor.buffer.toByteArray());
+    }
+
+    /**
+     * Thrown to stop serializing an object that isn't shrinking.
+     */
+    private static class Incompressible extends IOException {
+    }
+
+    /**
+     * Buffers a serialized object until it reaches THRESHOLD bytes, then deflates the rest as it arrives.
+     * Gives up on anything that doesn't shrink by at least a tenth, ie: already compressed data.
+     */
+    private static class Compressor extends OutputStream {
+        // The serialized object while it is below the threshold, then the compressed object.
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private Deflater deflater;
+        private DeflaterOutputStream deflated;
+        private long length;
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            length += len;
+            if (deflated != null) {
+                deflated.write(b, off, len);
+                return;
+            }
+
+            buffer.write(b, off, len);
+            if (buffer.size() < THRESHOLD) return;
+
+            byte[] start = buffer.toByteArray();
+            buffer.reset();
+            deflater = new Deflater();
+            deflater.setDictionary(DICTIONARY);
+            deflated = new DeflaterOutputStream(new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    write(new byte[] { (byte) b }, 0, 1);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    buffer.write(b, off, len);
+                    if (buffer.size() > length - length / 10) throw new Incompressible();
+                }
+            }, deflater);
+            deflated.write(start);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (deflated != null) deflated.finish();
+        }
+
+        private void end() {
+            if (deflater != null) deflater.end();
+        }
+    }
+
+    /**
+     * Decompresses an object if it was compressed.
+     *
+     * @param value The object that was received.
+     * @return The original object.
+     * @throws IOException Thrown when the data is corrupt.
+     * @throws ClassNotFoundException Thrown when the original object's class isn't known.
+     */
+    public static Object unwrap(Object value) throws IOException, ClassNotFoundException {
+        return value instanceof Compressed ? ((Compressed) value).decompress() : value;
+    }
+
+    /**
+     * Decompresses the original object.
+     *
+     * @return The original object.
+     * @throws IOException Thrown when the data is corrupt.
+     * @throws ClassNotFoundException Thrown when the original object's class isn't known.
+     */
+    public Object decompress() throws IOException, ClassNotFoundException {
+        byte[] serialized = new byte[length];
+        Inflater inflater = new Inflater();
+
+        try {
+            inflater.setInput(data);
+            int size = 0;
+            while (size < length) {
+                int read = inflater.inflate(serialized, size, length - size);
+                if (read == 0 && inflater.needsDictionary()) inflater.setDictionary(DICTIONARY);
+                else if (read == 0 && (inflater.finished() || inflater.needsInput())) break;
+                size += read;
+            }
+            if (size != length) throw new StreamCorruptedException("Compressed object is " + size + " bytes, expected " + length + ".");
+        } catch (DataFormatException e) {
+            throw new StreamCorruptedException("Compressed object is corrupt: " + e.getMessage());
+        } finally {
+            inflater.end();
+        }
+
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+            return in.readObject();
+        }
+    }
+}
@@ -58,6 +58,15 @@ public abstract class GenericRouter<Path, ActionLike, RouterLike extends Generic
         return getThis();
     }
 
+    /**
+     * Gets the auth Action that ADD_AUTH() paths start with.
+     *
+     * @return ActionLike The auth action, null if none was set.
+     */
+    public ActionLike getAuthenticatedAction() {
+        return authenticatedAction;
+    }
+
     /**
      * Add an array of Classes that extend Action to the routes path with authentication checks.
      *
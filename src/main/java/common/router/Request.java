@@ -25,6 +25,11 @@ public class Request implements Serializable {
     public HashMap<String, String> params;
     public Object body;
 
+    /**
+     * Whether the client can read a large response sent as a Compressed object.
+     */
+    public boolean acceptCompressed;
+
     /**
      * An empty constructor just for creating the object.
      */
@@ -0,0 +1,18 @@
+package common.router.response;
+
+import common.router.Response;
+
+/**
+ * An IActionResult for a conflict result, ie: the object was changed by someone else since the client read it.
+ */
+public class Conflict extends Response {
+
+    /**
+     * A constructor with the message in the body that gets returned to the client.
+     *
+     * @param message The body of the response.
+     */
+    public Conflict(String message) {
+        super(Status.CONFLICT, message);
+    }
+}
@@ -11,6 +11,11 @@ public enum Status {
      */
     BAD_REQUEST,
 
+    /**
+     * This is the status for an update to an object that was changed since it was read. Equivalent to HTTP-409.
+     */
+    CONFLICT,
+
     /**
      * This is the status for an internal server error. Equivalent to HTTP-500.
      */
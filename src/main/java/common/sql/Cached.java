@@ -0,0 +1,28 @@
+package common.sql;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a small, read-mostly model whose Collection keeps every row in memory.
+ * Reads are served from the cache and any write through the Collection invalidates it.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Cached {
+    /**
+     * The most rows the cache will hold, a larger table is always read from the database.
+     *
+     * @return The row limit.
+     */
+    int maxSize() default 1000;
+
+    /**
+     * The unique columns to index for Collection.find, the id is always indexed.
+     *
+     * @return The column names.
+     */
+    String[] unique() default {};
+}
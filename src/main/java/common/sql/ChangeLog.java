@@ -0,0 +1,128 @@
+package common.sql;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * This class keeps the change log of the tracked tables, a single numbered sequence of the ids of the rows that were
+ * inserted, updated or deleted. The log is written by triggers, so every write is recorded, including the set based
+ * ones, and a rolled back write is never recorded.
+ */
+public class ChangeLog {
+    /**
+     * The name of the change log table.
+     */
+    public static final String TABLE = "CHANGELOG";
+
+    /**
+     * The number of log entries kept once the log is pruned, a client further behind than this reloads its listing.
+     */
+    public static final int KEEP = 10000;
+
+    public ChangeLog() {}
+
+    /**
+     * Creates the change log if required, and the triggers that record the changes to a table in it.
+     *
+     * @param connection JDBC connection to insert the schema.
+     * @param className The class of the tracked table.
+     * @throws Exception Pass through exception that gets handled up stream.
+     */
+    public static void track(Connection connection, Class<?> className) throws Exception {
+        String table = className.getSimpleName().toUpperCase();
+
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + TABLE
+                + " (seq INTEGER PRIMARY KEY AUTOINCREMENT, tableName VARCHAR(255) NOT NULL, entityId INTEGER NOT NULL)");
+            statement.executeUpdate("CREATE INDEX IF NOT EXISTS " + TABLE + "_TABLE ON " + TABLE + " (tableName, seq)");
+
+            statement.executeUpdate(createTrigger(table, "INSERT", "NEW"));
+            statement.executeUpdate(createTrigger(table, "UPDATE", "NEW"));
+            statement.executeUpdate(createTrigger(table, "DELETE", "OLD"));
+        }
+    }
+
+    /**
+     * Creates the SQL for a trigger that records the id of every row changed by an operation.
+     *
+     * @param table The tracked table.
+     * @param operation The operation, ie: INSERT.
+     * @param row The row holding the id, NEW or OLD.
+     * @return String The trigger SQL.
+     */
+    private static String createTrigger(String table, String operation, String row) {
+        return "CREATE TRIGGER IF NOT EXISTS " + table + "_" + operation + "_LOG AFTER " + operation + " ON " + table
+            + " BEGIN INSERT INTO " + TABLE + " (tableName, entityId) VALUES ('" + table + "', " + row + ".id); END";
+    }
+
+    /**
+     * @param connection JDBC connection to query.
+     * @return long The latest sequence number, 0 if nothing has been logged.
+     * @throws Exception Pass through exception that gets handled up stream.
+     */
+    public static long sequence(Connection connection) throws Exception {
+        return aggregate(connection, "MAX");
+    }
+
+    /**
+     * @param connection JDBC connection to query.
+     * @return long The oldest sequence number still in the log, 0 if it is empty.
+     * @throws Exception Pass through exception that gets handled up stream.
+     */
+    public static long oldest(Connection connection) throws Exception {
+        return aggregate(connection, "MIN");
+    }
+
+    private static long aggregate(Connection connection, String function) throws Exception {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT COALESCE(" + function + "(seq), 0) FROM " + TABLE)) {
+            return result.next() ? result.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * Creates the SQL to select the current rows of a table that changed between two sequence numbers.
+     * The parameters are the sequence numbers after and up to.
+     *
+     * @param className The class of the tracked table.
+     * @return String The select SQL.
+     */
+    public static String createChangedStatement(Class<?> className) {
+        String table = className.getSimpleName().toUpperCase();
+        return "SELECT * FROM " + table + " WHERE id IN (" + createLoggedIds(table) + ")";
+    }
+
+    /**
+     * Creates the SQL to select the ids of the rows of a table that were deleted between two sequence numbers.
+     * The parameters are the sequence numbers after and up to.
+     *
+     * @param className The class of the tracked table.
+     * @return String The select SQL.
+     */
+    public static String createDeletedStatement(Class<?> className) {
+        String table = className.getSimpleName().toUpperCase();
+        return createLoggedIds(table) + " AND entityId NOT IN (SELECT id FROM " + table + ")";
+    }
+
+    private static String createLoggedIds(String table) {
+        return "SELECT DISTINCT entityId FROM " + TABLE + " WHERE tableName = '" + table + "' AND seq > ? AND seq <= ?";
+    }
+
+    /**
+     * Deletes all but the newest entries of the log.
+     *
+     * @param connection JDBC connection to delete from.
+     * @param keep The number of entries to keep.
+     * @return int The number of entries deleted.
+     * @throws Exception Pass through exception that gets handled up stream.
+     */
+    public static int prune(Connection connection, int keep) throws Exception {
+        try (PreparedStatement psmt = connection.prepareStatement(
+            "DELETE FROM " + TABLE + " WHERE seq <= (SELECT MAX(seq) FROM " + TABLE + ") - ?")) {
+            psmt.setInt(1, keep);
+            return psmt.executeUpdate();
+        }
+    }
+}
@@ -9,8 +9,17 @@ import java.sql.SQLException;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.ConcurrentModificationException;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * A Collection class to manage the CRUD updates of a given class.
@@ -19,8 +28,19 @@ import java.util.function.Predicate;
  * @author Perdana Bailey
  */
 public class Collection<T> {
+    /**
+     * The default number of rows the driver is asked to read ahead when streaming.
+     */
+    public static final int DEFAULT_FETCH_SIZE = 100;
+
     private final Class<T> className;
 
+    // The in memory copy of the table, only for classes marked @Cached.
+    private final EntityCache<T> cache;
+
+    // Whether the changes to the table are recorded in the change log, only for classes marked @Tracked.
+    private final boolean tracked;
+
     /**
      * Constructor that sets the collection type to the specified class.
      *
@@ -30,6 +50,12 @@ public class Collection<T> {
         this.className = className;
 
         SchemaBuilder.build(DataService.getConnection(), className);
+
+        Cached cached = className.getAnnotation(Cached.class);
+        this.cache = cached == null ? null : new EntityCache<>(className, cached.maxSize(), cached.unique());
+
+        this.tracked = className.isAnnotationPresent(Tracked.class);
+        if (tracked) ChangeLog.track(DataService.getConnection(), className);
     }
 
     /**
@@ -40,66 +66,410 @@ public class Collection<T> {
      * @throws Exception A pass-through internal server exception.
      */
     public List<T> get(Predicate<T> predicate) throws Exception {
-        // Prepares the statement using the StatementBuilder
-        PreparedStatement psmt = StatementBuilder.get(DataService.getConnection(), className);
+        EntityCache.Snapshot<T> cached = cached();
+        if (cached != null) {
+            List<T> result = new ArrayList<>();
+            for (T row : cached.rows) if (predicate.test(row)) result.add(cache.copy(row));
+            return result;
+        }
+
+        // Rows are converted one at a time, only those matching the predicate are kept.
+        try (Stream<T> rows = stream()) {
+            return rows.filter(predicate).collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
+
+    /**
+     * Finds the item with the given value in a unique column, ie: find("username", "admin").
+     * Indexed columns of a cached class are looked up without touching the database.
+     *
+     * @param column The unique column to match.
+     * @param value The value of the column.
+     * @return The matching item if there is one.
+     * @throws Exception A pass-through internal server exception.
+     */
+    public Optional<T> find(String column, Object value) throws Exception {
+        EntityCache.Snapshot<T> cached = cached();
+        if (cached != null && cached.indexes(column)) {
+            T row = cached.find(column, value);
+            return row == null ? Optional.empty() : Optional.of(cache.copy(row));
+        }
+
+        try (Stream<T> rows = stream(Query.where(column, value), 1)) {
+            return rows.findFirst();
+        }
+    }
+
+    /**
+     * Counts the items matching the query in the DataService without reading them.
+     *
+     * @param query The conditions the counted objects match, ie: Query.where("billboardName", name).
+     * @return int The number of matching objects.
+     * @throws Exception A pass-through internal server exception.
+     */
+    public int count(Query query) throws Exception {
+        try (PreparedStatement psmt = StatementBuilder.count(DataService.getConnection(), className, query);
+             ResultSet result = psmt.executeQuery()) {
+            return result.next() ? result.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Checks whether any item matches the query in the DataService, stopping at the first match.
+     *
+     * @param query The conditions the object matches, ie: Query.where("username", username).
+     * @return boolean Whether a matching object exists.
+     * @throws Exception A pass-through internal server exception.
+     */
+    public boolean exists(Query query) throws Exception {
+        try (PreparedStatement psmt = StatementBuilder.exists(DataService.getConnection(), className, query);
+             ResultSet result = psmt.executeQuery()) {
+            return result.next();
+        }
+    }
+
+    /**
+     * Gets the cached rows of a cached class, loading them if required.
+     *
+     * @return The cached rows, or null if the class isn't cached or the rows can't be served from the cache.
+     * @throws Exception A pass-through internal server exception.
+     */
+    private EntityCache.Snapshot<T> cached() throws Exception {
+        if (cache == null) return null;
+
+        return cache.get(limit -> {
+            try (Stream<T> rows = stream()) {
+                return rows.limit(limit).collect(Collectors.toCollection(ArrayList::new));
+            }
+        });
+    }
+
+    /**
+     * Forgets the cached rows of a cached class after a write.
+     */
+    private void invalidate() {
+        if (cache != null) cache.invalidate();
+    }
+
+    /**
+     * Lazily streams every item from the DataService, one row at a time, so large reads run in constant memory.
+     * The stream holds the statement open and must be closed, ie: try (Stream<T> rows = collection.stream()) { }.
+     *
+     * @return A stream of the collection object type read from the live result set.
+     * @throws Exception A pass-through internal server exception.
+     */
+    public Stream<T> stream() throws Exception {
+        return stream(StatementBuilder.get(DataService.getConnection(), className), DEFAULT_FETCH_SIZE);
+    }
 
-        // Collection object list to be returned.
-        List<T> arr = new ArrayList<>();
+    /**
+     * Lazily streams the items matching the query from the DataService, filtering in SQL.
+     * The stream holds the statement open and must be closed.
+     *
+     * @param query The conditions the streamed objects match, ie: Query.where("userId", 1).
+     * @param fetchSize A hint for how many rows the driver reads ahead at a time.
+     * @return A stream of the collection object type read from the live result set.
+     * @throws Exception A pass-through internal server exception.
+     */
+    public Stream<T> stream(Query query, int fetchSize) throws Exception {
+        return stream(StatementBuilder.get(DataService.getConnection(), className, query), fetchSize);
+    }
 
-        // Fetch the collection objects from the database.
-        ResultSet result = psmt.executeQuery();
+    /**
+     * Gets a single page of items from the DataService using keyset pagination, so deep pages cost the same as the first.
+     *
+     * @param sort The column to sort by, it must not contain NULLs. Ties are broken by id.
+     * @param after The sort value of the last item on the previous page, ignored for the first page or when sorting by id.
+     * @param afterId The id of the last item on the previous page, null for the first page.
+     * @param limit The most items to return.
+     * @return The page of items and the cursor for the next page.
+     * @throws Exception A pass-through internal server exception.
+     */
+    public Page<T> page(String sort, String after, Integer afterId, int limit) throws Exception {
+        boolean first = afterId == null;
+        // Read before the page, so a change made while it is read is also in the next changes.
+        long sequence = tracked ? ChangeLog.sequence(DataService.getConnection()) : 0;
+        PreparedStatement psmt = DataService.getConnection().prepareStatement(StatementBuilder.createPageStatement(className, sort, first));
 
-        // Use the result of the database query to create collection object and add it to the returned list.
-        while (result.next()) {
-            // Convert from SQL result to the collection object.
-            T res = fromSQL(result);
+        int i = 1;
+        if (!first && !sort.equals("id")) {
+            psmt.setObject(i++, after);
+            psmt.setObject(i++, after);
+        }
+        if (!first) psmt.setObject(i++, afterId);
+        // Read one extra row to know if there's another page.
+        psmt.setObject(i, limit + 1);
+
+        List<T> items;
+        try (Stream<T> rows = stream(psmt, limit + 1)) {
+            items = rows.collect(Collectors.toCollection(ArrayList::new));
+        }
+
+        boolean more = items.size() > limit;
+        if (more) items = items.subList(0, limit);
+        Page<T> page;
+        if (items.isEmpty()) {
+            page = new Page<>(items, sort, after, first ? 0 : afterId, false);
+        } else {
+            // The cursor is the sort value and id of the last item.
+            T last = items.get(items.size() - 1);
+            Object value = className.getDeclaredField(sort).get(last);
+            int id = className.getDeclaredField("id").getInt(last);
+
+            page = new Page<>(items, sort, String.valueOf(value), id, more);
+        }
 
-            // TODO: Change this to SQL based predicate checks
-            // Ensure the result matches the predicate before adding to the list.
-            if (predicate.test(res)) {
-                arr.add(res);
+        page.sequence = sequence;
+        return page;
+    }
+
+    /**
+     * Gets the changes made to a tracked class since a change log sequence number, ie: the sequence of a page.
+     * Only the current version of each changed item is returned, however many times it changed.
+     *
+     * @param since The sequence number the client is up to date with.
+     * @return The changed items, the deleted ids and the new sequence, or a reset if the changes are no longer known.
+     * @throws IllegalStateException Thrown when the class isn't marked @Tracked.
+     * @throws Exception A pass-through internal server exception.
+     */
+    public Delta<T> changes(long since) throws Exception {
+        if (!tracked) throw new IllegalStateException(className.getSimpleName() + " is not tracked.");
+
+        Delta<T> delta = transaction(() -> {
+            long sequence = ChangeLog.sequence(DataService.getConnection());
+            long oldest = ChangeLog.oldest(DataService.getConnection());
+
+            // The client is from before the log was pruned, or from a different database.
+            if (since < 0 || since > sequence || (oldest > 0 && since < oldest - 1)) return Delta.<T>reset(sequence);
+
+            PreparedStatement psmt = DataService.getConnection().prepareStatement(ChangeLog.createChangedStatement(className));
+            psmt.setLong(1, since);
+            psmt.setLong(2, sequence);
+
+            List<T> changed;
+            try (Stream<T> rows = stream(psmt, DEFAULT_FETCH_SIZE)) {
+                changed = rows.collect(Collectors.toList());
+            }
+
+            List<Integer> deleted = new ArrayList<>();
+            try (PreparedStatement deletes = DataService.getConnection().prepareStatement(ChangeLog.createDeletedStatement(className))) {
+                deletes.setLong(1, since);
+                deletes.setLong(2, sequence);
+
+                try (ResultSet result = deletes.executeQuery()) {
+                    while (result.next()) deleted.add(result.getInt(1));
+                }
             }
+
+            return new Delta<>(changed, deleted, sequence);
+        });
+
+        // Occasionally trim the log, rather than on every write.
+        if (delta.sequence - ChangeLog.oldest(DataService.getConnection()) >= 2L * ChangeLog.KEEP) {
+            ChangeLog.prune(DataService.getConnection(), ChangeLog.KEEP);
         }
 
-        // Clean up query.
-        psmt.close();
+        return delta;
+    }
+
+    /**
+     * Wraps a prepared SELECT statement in a lazy stream that closes the statement when the stream is closed.
+     *
+     * @param psmt The SELECT statement.
+     * @param fetchSize A hint for how many rows the driver reads ahead at a time.
+     * @return A stream of the collection object type read from the live result set.
+     * @throws Exception A pass-through internal server exception.
+     */
+    private Stream<T> stream(PreparedStatement psmt, int fetchSize) throws Exception {
+        ResultSet result;
+        try {
+            psmt.setFetchSize(fetchSize);
+            result = psmt.executeQuery();
+        } catch (Exception e) {
+            psmt.close();
+            throw e;
+        }
+
+        Spliterator<T> rows = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!result.next()) return false;
+
+                    // Convert from SQL result to the collection object.
+                    action.accept(fromSQL(result));
+                    return true;
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new RuntimeException("Error reading " + className.getSimpleName() + ": " + e.getMessage(), e);
+                }
+            }
+        };
 
-        // Return array list.
-        return arr;
+        // Clean up query when the stream is closed.
+        return StreamSupport.stream(rows, false).onClose(() -> {
+            try {
+                psmt.close();
+            } catch (Exception e) {
+                throw new RuntimeException("Error closing " + className.getSimpleName() + " query: " + e.getMessage(), e);
+            }
+        });
     }
 
     /**
      * Inserts a specified collection object into the DataService.
      *
+     * @param object The collection object you want inserted, its id is set to the generated id.
+     * @return int The generated id.
+     * @throws Exception A pass-through internal server exception.
+     */
+    public int insert(T object) throws Exception {
+        // The generated id is read per connection, so the insert runs on a connection no other thread is using.
+        return transaction(() -> {
+            // Prepares the statement using the StatementBuilder
+            PreparedStatement psmt = StatementBuilder.insert(DataService.getConnection(), object);
+
+            // Insert the new collection object in the database.
+            psmt.executeUpdate();
+            int id = generatedId(psmt, object);
+
+            // Clean up query.
+            psmt.close();
+            invalidate();
+            return id;
+        });
+    }
+
+    /**
+     * Inserts a specified collection object into the DataService with the id it already has, rather than a generated
+     * one, ie: to share the id of a row in another table.
+     *
      * @param object The collection object you want inserted.
+     * @throws Exception A pass-through internal server exception, ie: when the id is taken.
+     */
+    public void insertWithId(T object) throws Exception {
+        try (PreparedStatement psmt = StatementBuilder.insertWithId(DataService.getConnection(), object)) {
+            psmt.executeUpdate();
+        } finally {
+            invalidate();
+        }
+    }
+
+    /**
+     * Inserts a specified collection object into the DataService unless a row with the same unique columns exists.
+     * The check and the insert are a single statement, so two concurrent inserts can't both succeed.
+     *
+     * @param object The collection object you want inserted, its id is set to the generated id if it was inserted.
+     * @param unique The unique columns that identify an existing row, ie: "name".
+     * @return boolean Whether the object was inserted.
      * @throws Exception A pass-through internal server exception.
      */
-    public void insert(T object) throws Exception {
-        // Prepares the statement using the StatementBuilder
-        PreparedStatement psmt = StatementBuilder.insert(DataService.getConnection(), object);
+    public boolean insertIfAbsent(T object, String... unique) throws Exception {
+        // The generated id is read per connection, so the insert runs on a connection no other thread is using.
+        return transaction(() -> {
+            try (PreparedStatement psmt = StatementBuilder.upsert(DataService.getConnection(), object, false, unique)) {
+                if (psmt.executeUpdate() == 0) return false;
 
-        // Insert the new collection object in the database.
-        psmt.executeUpdate();
+                generatedId(psmt, object);
+                invalidate();
+                return true;
+            }
+        });
+    }
 
-        // Clean up query.
-        psmt.close();
+    /**
+     * Inserts a specified collection object into the DataService, or updates every other column of the existing row
+     * with the same unique columns, in a single statement.
+     *
+     * @param object The collection object you want inserted or updated.
+     * @param unique The unique columns that identify an existing row, ie: "name".
+     * @throws Exception A pass-through internal server exception.
+     */
+    public void upsert(T object, String... unique) throws Exception {
+        try (PreparedStatement psmt = StatementBuilder.upsert(DataService.getConnection(), object, true, unique)) {
+            psmt.executeUpdate();
+        } finally {
+            invalidate();
+        }
     }
 
     /**
-     * Updates a specified collection object into the DataService
+     * Reads the id generated by an insert and sets it on the inserted object.
+     * The driver reads it with last_insert_rowid() on the statement's connection rather than from the statement, so
+     * the insert must run on a connection no other thread is inserting with, ie: inside a transaction.
      *
-     * @param object The collection object you want updated.
+     * @param psmt The executed insert statement.
+     * @param object The inserted object.
+     * @return int The generated id, 0 if there isn't one.
      * @throws Exception A pass-through internal server exception.
      */
-    public void update(T object) throws Exception {
+    private int generatedId(PreparedStatement psmt, T object) throws Exception {
+        try (ResultSet keys = psmt.getGeneratedKeys()) {
+            if (!keys.next()) return 0;
+
+            int id = keys.getInt(1);
+            className.getDeclaredField("id").setInt(object, id);
+            return id;
+        }
+    }
+
+    /**
+     * Updates a specified collection object into the DataService.
+     * For a versioned class the row is only updated if nobody has changed it since the object was read.
+     *
+     * @param object The collection object you want updated, its version is incremented if it was updated.
+     * @return boolean Whether the object was updated, false if it was deleted or changed by someone else.
+     * @throws Exception A pass-through internal server exception.
+     */
+    public boolean update(T object) throws Exception {
         // Prepares the statement using the StatementBuilder
         PreparedStatement psmt = StatementBuilder.update(DataService.getConnection(), object);
 
         // Update the existing collection object in the database.
-        psmt.executeUpdate();
+        boolean updated = psmt.executeUpdate() > 0;
 
         // Clean up query.
         psmt.close();
+        invalidate();
+
+        if (updated) nextVersion(object);
+        return updated;
+    }
+
+    /**
+     * Writes only the changed columns of a single row in the DataService.
+     * For a versioned class the row is only updated if nobody has changed it since the patch's version was read.
+     *
+     * @param patch The id, version and changed columns, its version is incremented if it was applied.
+     * @return boolean Whether the patch was applied, false if the row was deleted or changed by someone else.
+     * @throws IllegalArgumentException Thrown when a column doesn't exist or is the id or version.
+     * @throws Exception A pass-through internal server exception.
+     */
+    public boolean patch(Patch patch) throws Exception {
+        boolean versioned = StatementBuilder.isVersioned(className);
+        Query query = Query.where("id", patch.id);
+        if (versioned) query.and(StatementBuilder.VERSION, patch.version);
+
+        // Nothing changed, but the caller should still learn if the row is gone or stale.
+        if (patch.changes.isEmpty()) return exists(query);
+
+        boolean updated = updateWhere(patch.changes, query) > 0;
+        if (updated && versioned) patch.version++;
+        return updated;
+    }
+
+    /**
+     * Increments the version of an updated object to match the row, so it can be updated again.
+     *
+     * @param object The updated object.
+     * @throws Exception A pass-through reflection exception.
+     */
+    private void nextVersion(T object) throws Exception {
+        if (!StatementBuilder.isVersioned(className)) return;
+
+        Field version = className.getDeclaredField(StatementBuilder.VERSION);
+        version.setInt(object, version.getInt(object) + 1);
     }
 
     /**
@@ -117,6 +487,123 @@ public class Collection<T> {
 
         // Clean up query.
         psmt.close();
+        invalidate();
+    }
+
+    /**
+     * Inserts every given collection object into the DataService with one statement and one commit.
+     *
+     * @param objects The collection objects you want inserted.
+     * @throws Exception A pass-through internal server exception, nothing is inserted if one fails.
+     */
+    public void insertAll(List<T> objects) throws Exception {
+        executeBatch(StatementBuilder.createInsertStatement(className), objects, StatementBuilder::bindInsert, false);
+    }
+
+    /**
+     * Updates every given collection object in the DataService with one statement and one commit.
+     *
+     * @param objects The collection objects you want updated, their versions are incremented.
+     * @throws ConcurrentModificationException Thrown when an object was deleted or changed by someone else,
+     * nothing is updated.
+     * @throws Exception A pass-through internal server exception, nothing is updated if one fails.
+     */
+    public void updateAll(List<T> objects) throws Exception {
+        executeBatch(StatementBuilder.createUpdateStatement(className), objects, StatementBuilder::bindUpdate, StatementBuilder.isVersioned(className));
+        for (T object : objects) nextVersion(object);
+    }
+
+    /**
+     * Deletes every given collection object from the DataService with one statement and one commit.
+     *
+     * @param objects The collection objects you want deleted.
+     * @throws Exception A pass-through internal server exception, nothing is deleted if one fails.
+     */
+    public void deleteAll(List<T> objects) throws Exception {
+        executeBatch(StatementBuilder.createDeleteStatement(className), objects, StatementBuilder::bindDelete, false);
+    }
+
+    /**
+     * Deletes every collection object matching the query from the DataService in a single statement.
+     *
+     * @param query The conditions the deleted objects match, ie: Query.where("billboardName", name).
+     * @return int The number of objects deleted.
+     * @throws Exception A pass-through internal server exception.
+     */
+    public int deleteWhere(Query query) throws Exception {
+        try (PreparedStatement psmt = StatementBuilder.deleteWhere(DataService.getConnection(), className, query)) {
+            return psmt.executeUpdate();
+        } finally {
+            invalidate();
+        }
+    }
+
+    /**
+     * Sets the given columns on every collection object matching the query in the DataService in a single statement.
+     *
+     * @param values The column, value pairs to set, ie: Map.of("userId", 1).
+     * @param query The conditions the updated objects match, ie: Query.where("userId", 2).
+     * @return int The number of objects updated.
+     * @throws Exception A pass-through internal server exception.
+     */
+    public int updateWhere(Map<String, Object> values, Query query) throws Exception {
+        try (PreparedStatement psmt = StatementBuilder.updateWhere(DataService.getConnection(), className, values, query)) {
+            return psmt.executeUpdate();
+        } finally {
+            invalidate();
+        }
+    }
+
+    /**
+     * Binds a value setter for a batched statement.
+     */
+    @FunctionalInterface
+    private interface Binder {
+        void bind(PreparedStatement psmt, Object object) throws Exception;
+    }
+
+    /**
+     * Prepares the statement once and executes it for every object as a single JDBC batch inside a transaction.
+     *
+     * @param sql The statement to batch.
+     * @param objects The objects to bind to the statement.
+     * @param binder Sets the values of an object on the statement.
+     * @param everyRow Whether every object must change a row, otherwise the whole batch is rolled back.
+     * @throws Exception A pass-through internal server exception.
+     */
+    private void executeBatch(String sql, List<T> objects, Binder binder, boolean everyRow) throws Exception {
+        if (objects.isEmpty()) return;
+
+        transaction(() -> {
+            try (PreparedStatement psmt = DataService.getConnection().prepareStatement(sql)) {
+                for (T object : objects) {
+                    binder.bind(psmt, object);
+                    psmt.addBatch();
+                }
+
+                int[] counts = psmt.executeBatch();
+                for (int i = 0; everyRow && i < counts.length; i++) {
+                    if (counts[i] == 0) throw new ConcurrentModificationException(
+                        className.getSimpleName() + " " + (i + 1) + " of the batch was deleted or changed by someone else.");
+                }
+            } finally {
+                invalidate();
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Performs several Collection calls as a single unit of work, ie: one commit for a multi-step request.
+     * If the work throws, every change it made is rolled back. Nested calls join the outer transaction.
+     *
+     * @param work The work to perform, every Collection call it makes on this thread is part of the transaction.
+     * @param <R> The type of the result of the work.
+     * @return The result of the work.
+     * @throws Exception A pass-through internal server exception, after the rollback.
+     */
+    public static <R> R transaction(DataService.Work<R> work) throws Exception {
+        return DataService.transaction(work);
     }
 
     /**
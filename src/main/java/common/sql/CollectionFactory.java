@@ -1,17 +1,30 @@
 package common.sql;
 
-import java.util.HashMap;
-import java.util.Map;
+import server.services.DataService;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * A class to generate Collections given a class type.
+ * Collections should be registered once at boot, after which getInstance is a single lock free read.
  *
  * @author Jamie Martin
  * @author Perdana Bailey
  */
 public class CollectionFactory {
     // Class Name, Collection Key Value Pair
-    public static Map<Class, Collection> collections = new HashMap<>();
+    private static final ConcurrentMap<Class<?>, Collection<?>> collections = new ConcurrentHashMap<>();
+
+    /**
+     * Eagerly creates the Collections for the given classes, building their tables if they don't exist.
+     *
+     * @param classNames The Classes you want to manage.
+     * @throws Exception A pass-through internal server exception.
+     */
+    public static void register(Class<?>... classNames) throws Exception {
+        for (Class<?> className : classNames) getInstance(className);
+    }
 
     /**
      * Returns an instance of a Collection<T> given the class.
@@ -22,20 +35,35 @@ public class CollectionFactory {
      * @return Collection<T> The collection instance.
      * @throws Exception A pass-through internal server exception.
      */
+    @SuppressWarnings("unchecked")
     public static <T> Collection<T> getInstance(Class<T> className) throws Exception {
-
         // Try get the collection from the collection map using class name as the key.
-        Object instance = collections.get(className);
-
-        // If the collection is null create a new collection from the class and insert it into the map.
-        if (instance == null){
-            synchronized (className) {
-                instance = new Collection(className);
-                collections.put(className, (Collection) instance);
-            }
-        }
-
-        // Return the collection instance.
-        return (Collection<T>) instance;
+        Collection<T> instance = (Collection<T>) collections.get(className);
+        if (instance != null) return instance;
+
+        return create(className);
+    }
+
+    /**
+     * Creates and stores a Collection, only one thread builds it even if several miss at once.
+     *
+     * @param className The Class you want to manage.
+     * @param <T> T the type of the Class you want to manage.
+     * @return Collection<T> The collection instance.
+     * @throws Exception A pass-through internal server exception.
+     */
+    @SuppressWarnings("unchecked")
+    private static synchronized <T> Collection<T> create(Class<T> className) throws Exception {
+        // Another thread may have created it while this one waited for the lock.
+        Collection<T> instance = (Collection<T>) collections.get(className);
+        if (instance != null) return instance;
+
+        Collection<T> created = new Collection<>(className);
+        collections.put(className, created);
+
+        // A table created inside a transaction is dropped by its rollback, so the collection must be built again.
+        DataService.onRollback(() -> collections.remove(className, created));
+
+        return created;
     }
 }
@@ -0,0 +1,69 @@
+package common.sql;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The changes made to a tracked listing since a change log sequence number.
+ */
+public class Delta<T> implements Serializable {
+    /**
+     * The request parameter name used to ask for the changes since a sequence number.
+     */
+    public static final String SINCE = "since";
+
+    /**
+     * The current version of every item that was inserted or updated.
+     */
+    public ArrayList<T> changed;
+
+    /**
+     * The ids of the items that were deleted.
+     */
+    public ArrayList<Integer> deleted;
+
+    /**
+     * The sequence number to ask for the next changes since.
+     */
+    public long sequence;
+
+    /**
+     * Whether the changes are no longer known, ie: they were pruned from the log, so the listing must be reloaded.
+     */
+    public boolean reset;
+
+    /**
+     * An empty constructor just for creating the object.
+     */
+    public Delta() {
+        this.changed = new ArrayList<>();
+        this.deleted = new ArrayList<>();
+    }
+
+    /**
+     * Constructor for the Delta object.
+     *
+     * @param changed The current version of every changed item.
+     * @param deleted The ids of the deleted items.
+     * @param sequence The sequence number to ask for the next changes since.
+     */
+    public Delta(List<T> changed, List<Integer> deleted, long sequence) {
+        this.changed = new ArrayList<>(changed);
+        this.deleted = new ArrayList<>(deleted);
+        this.sequence = sequence;
+    }
+
+    /**
+     * Creates a delta telling the client to reload the listing.
+     *
+     * @param sequence The current sequence number.
+     * @return The reset delta.
+     */
+    public static <T> Delta<T> reset(long sequence) {
+        Delta<T> delta = new Delta<>();
+        delta.sequence = sequence;
+        delta.reset = true;
+        return delta;
+    }
+}
@@ -0,0 +1,175 @@
+package common.sql;
+
+import server.services.DataService;
+import server.services.MetricsService;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An in memory copy of every row of a small table, indexed by id and by its unique columns.
+ * Callers are handed copies so the cached objects are never modified.
+ */
+public class EntityCache<T> {
+    private final Class<T> className;
+    private final int maxSize;
+
+    // Column name, Field Key Value Pair of the indexed columns.
+    private final Map<String, Field> indexed = new HashMap<>();
+    private final List<Field> fields = new ArrayList<>();
+
+    // Bumped on every invalidation so a load that raced with a write is never stored.
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Snapshot<T> snapshot;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * Loads every row of the table, or at least one more than the cache will hold.
+     */
+    @FunctionalInterface
+    public interface Loader<T> {
+        List<T> load(int limit) throws Exception;
+    }
+
+    /**
+     * Constructor for the EntityCache, the statistics are reported to the MetricsService under the table name.
+     *
+     * @param className The class of the cached rows.
+     * @param maxSize The most rows the cache will hold.
+     * @param unique The unique columns to index, the id is always indexed.
+     * @throws Exception Thrown when a column doesn't exist.
+     */
+    public EntityCache(Class<T> className, int maxSize, String... unique) throws Exception {
+        this.className = className;
+        this.maxSize = maxSize;
+
+        List<String> columns = new ArrayList<>(Arrays.asList(unique));
+        columns.add("id");
+        Query.validate(className, columns);
+        for (String column : columns) indexed.put(column, className.getDeclaredField(column));
+
+        for (Field field : className.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers())) continue;
+            field.setAccessible(true);
+            fields.add(field);
+        }
+
+        MetricsService.getInstance().registerCache(className.getSimpleName(), this::statistics);
+    }
+
+    /**
+     * Gets the cached rows, loading them if the cache is empty.
+     * Inside a transaction the cache is bypassed so the transaction sees its own changes.
+     *
+     * @param loader Reads the rows from the database.
+     * @return The cached rows, or null if they can't be served from the cache.
+     * @throws Exception A pass-through internal server exception.
+     */
+    Snapshot<T> get(Loader<T> loader) throws Exception {
+        if (DataService.inTransaction()) return null;
+
+        Snapshot<T> current = snapshot;
+        if (current != null && current.rows != null) {
+            hits.increment();
+            return current;
+        }
+
+        misses.increment();
+        // The table was too large last time, there's no point reading it again until something changes.
+        if (current != null) return null;
+
+        long seen = generation.get();
+        List<T> rows = loader.load(maxSize + 1);
+        Snapshot<T> loaded = new Snapshot<>(rows.size() > maxSize ? null : rows, indexed);
+
+        synchronized (this) {
+            if (generation.get() == seen) snapshot = loaded;
+        }
+
+        return loaded.rows != null ? loaded : null;
+    }
+
+    /**
+     * Forgets the cached rows after a write. Inside a transaction they are forgotten again once it finishes,
+     * as another thread may have cached the old rows in the meantime.
+     */
+    public void invalidate() {
+        synchronized (this) {
+            generation.incrementAndGet();
+            snapshot = null;
+        }
+        invalidations.increment();
+
+        if (DataService.inTransaction()) DataService.onCompletion(this::invalidate);
+    }
+
+    /**
+     * Creates a shallow copy of a cached row.
+     *
+     * @param row The cached row.
+     * @return T A new object with the same field values.
+     * @throws Exception A pass-through reflection exception.
+     */
+    T copy(T row) throws Exception {
+        T copy = className.getConstructor().newInstance();
+        for (Field field : fields) field.set(copy, field.get(row));
+        return copy;
+    }
+
+    /**
+     * @return The hit, miss and size statistics of the cache.
+     */
+    public MetricsService.CacheStatistics statistics() {
+        Snapshot<T> current = snapshot;
+        return new MetricsService.CacheStatistics(className.getSimpleName(), hits.sum(), misses.sum(),
+            invalidations.sum(), current == null || current.rows == null ? 0 : current.rows.size(), maxSize);
+    }
+
+    /**
+     * An immutable set of loaded rows and their indexes.
+     */
+    static class Snapshot<T> {
+        final List<T> rows;
+
+        // Column name, (Value, Row) Key Value Pair.
+        private final Map<String, Map<Object, T>> indexes = new HashMap<>();
+
+        private Snapshot(List<T> rows, Map<String, Field> indexed) throws Exception {
+            this.rows = rows == null ? null : Collections.unmodifiableList(rows);
+            if (rows == null) return;
+
+            for (Map.Entry<String, Field> column : indexed.entrySet()) {
+                Map<Object, T> index = new HashMap<>();
+                for (T row : rows) index.put(column.getValue().get(row), row);
+                indexes.put(column.getKey(), index);
+            }
+        }
+
+        /**
+         * Looks up a row by an indexed column.
+         *
+         * @param column The column name.
+         * @param value The value of the column.
+         * @return The row, or null if none matches or the column isn't indexed.
+         */
+        T find(String column, Object value) {
+            Map<Object, T> index = indexes.get(column);
+            return index == null ? null : index.get(value);
+        }
+
+        boolean indexes(String column) {
+            return indexes.containsKey(column);
+        }
+    }
+}
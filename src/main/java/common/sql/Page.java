@@ -0,0 +1,93 @@
+package common.sql;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * A single page of a keyset paginated listing, with the cursor to request the page after it.
+ */
+public class Page<T> implements Serializable {
+    /**
+     * The request parameter names used to ask for a page.
+     */
+    public static final String LIMIT = "limit", SORT = "sort", AFTER = "after", AFTER_ID = "afterId";
+
+    /**
+     * The items on the page, in sort order.
+     */
+    public ArrayList<T> items;
+
+    /**
+     * The column the page is sorted by, ties are broken by id.
+     */
+    public String sort;
+
+    /**
+     * The sort value and id of the last item, the next page starts after these.
+     */
+    public String after;
+    public int afterId;
+
+    /**
+     * Whether there are more items after this page.
+     */
+    public boolean more;
+
+    /**
+     * The change log sequence number read before the page, 0 if the listing isn't tracked. See Collection.changes.
+     */
+    public long sequence;
+
+    /**
+     * An empty constructor just for creating the object.
+     */
+    public Page() {
+        this.items = new ArrayList<>();
+    }
+
+    /**
+     * Constructor for the Page object.
+     *
+     * @param items The items on the page.
+     * @param sort The column the page is sorted by.
+     * @param after The sort value of the last item.
+     * @param afterId The id of the last item.
+     * @param more Whether there are more items after this page.
+     */
+    public Page(List<T> items, String sort, String after, int afterId, boolean more) {
+        this.items = new ArrayList<>(items);
+        this.sort = sort;
+        this.after = after;
+        this.afterId = afterId;
+        this.more = more;
+    }
+
+    /**
+     * Creates the request parameters for the first page of a listing.
+     *
+     * @param sort The column to sort by.
+     * @param limit The most items to return on the page.
+     * @return The request parameters.
+     */
+    public static HashMap<String, String> first(String sort, int limit) {
+        HashMap<String, String> params = new HashMap<>();
+        params.put(SORT, sort);
+        params.put(LIMIT, String.valueOf(limit));
+        return params;
+    }
+
+    /**
+     * Creates the request parameters for the page after this one.
+     *
+     * @param limit The most items to return on the page.
+     * @return The request parameters.
+     */
+    public HashMap<String, String> next(int limit) {
+        HashMap<String, String> params = first(sort, limit);
+        if (after != null) params.put(AFTER, after);
+        params.put(AFTER_ID, String.valueOf(afterId));
+        return params;
+    }
+}
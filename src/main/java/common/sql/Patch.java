@@ -0,0 +1,52 @@
+package common.sql;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+
+/**
+ * A partial update of a single row, only the changed columns are sent and written.
+ */
+public class Patch implements Serializable {
+    /**
+     * The id of the row being updated.
+     */
+    public int id;
+
+    /**
+     * The version the row was read at, only checked for a versioned class.
+     */
+    public int version;
+
+    /**
+     * The changed columns and their new values, in the order they are written.
+     */
+    public LinkedHashMap<String, Object> changes = new LinkedHashMap<>();
+
+    /**
+     * An empty constructor just for creating the object.
+     */
+    public Patch() { }
+
+    /**
+     * Constructor for the Patch object.
+     *
+     * @param id The id of the row being updated.
+     * @param version The version the row was read at.
+     */
+    public Patch(int id, int version) {
+        this.id = id;
+        this.version = version;
+    }
+
+    /**
+     * Sets the new value of a column.
+     *
+     * @param column The column name.
+     * @param value The new value, it must be serializable.
+     * @return The patch, for chaining.
+     */
+    public Patch set(String column, Object value) {
+        changes.put(column, value);
+        return this;
+    }
+}
@@ -0,0 +1,101 @@
+package common.sql;
+
+import java.lang.reflect.Field;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A set of equality conditions on the columns of a table, joined with AND, used to filter in SQL rather than in Java.
+ * Column names are checked against the SQLITE annotated fields of the class, so they're never user supplied SQL.
+ */
+public class Query {
+    // Column, Value Key Value Pair in the order they were added.
+    private final Map<String, Object> conditions = new LinkedHashMap<>();
+
+    private Query() { }
+
+    /**
+     * Creates a query with a single condition.
+     *
+     * @param column The column name, ie: the field name.
+     * @param value The value the column must equal.
+     * @return Query The new query.
+     */
+    public static Query where(String column, Object value) {
+        return new Query().and(column, value);
+    }
+
+    /**
+     * Adds another condition to the query.
+     *
+     * @param column The column name, ie: the field name.
+     * @param value The value the column must equal.
+     * @return Query Returns self/this which allows chaining of where().and().
+     */
+    public Query and(String column, Object value) {
+        conditions.put(column, value);
+        return this;
+    }
+
+    /**
+     * @return The column, value conditions in the order they were added.
+     */
+    public Map<String, Object> getConditions() {
+        return Collections.unmodifiableMap(conditions);
+    }
+
+    /**
+     * Creates the WHERE clause of the query.
+     *
+     * @param className The class the query is on, its fields are the valid columns.
+     * @return String The WHERE clause with a placeholder for each condition, ie: " WHERE name = ? AND userId = ?".
+     */
+    public String toSQL(Class<?> className) {
+        validate(className, conditions.keySet());
+
+        List<String> clauses = new ArrayList<>();
+        for (String column : conditions.keySet()) clauses.add(column + " = ?");
+
+        return " WHERE " + String.join(" AND ", clauses);
+    }
+
+    /**
+     * Sets the value of each condition on the statement.
+     *
+     * @param pstmt The statement created with the toSQL clause.
+     * @param start The index of the first condition placeholder in the statement.
+     * @return int The index after the last condition placeholder.
+     * @throws Exception A pass-through internal server exception.
+     */
+    public int bind(PreparedStatement pstmt, int start) throws Exception {
+        int i = start;
+        for (Object value : conditions.values()) pstmt.setObject(i++, value);
+        return i;
+    }
+
+    /**
+     * Ensures every column is a SQLITE annotated field of the class.
+     *
+     * @param className The class the columns belong to.
+     * @param columns The column names.
+     */
+    static void validate(Class<?> className, Iterable<String> columns) {
+        boolean empty = true;
+
+        for (String column : columns) {
+            empty = false;
+            try {
+                Field field = className.getDeclaredField(column);
+                if (!StatementBuilder.hasSQLAnnotation(field)) throw new NoSuchFieldException(column);
+            } catch (NoSuchFieldException e) {
+                throw new IllegalArgumentException("Unknown column " + column + " on " + className.getSimpleName() + ".");
+            }
+        }
+
+        if (empty) throw new IllegalArgumentException("At least one column is required.");
+    }
+}
@@ -3,7 +3,9 @@ package common.sql;
 import java.lang.reflect.Field;
 import java.sql.*;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * This class initialises the database and it's schema.
@@ -33,6 +35,38 @@ public class SchemaBuilder {
 
         // Push the schema.
         sqlStatement.executeUpdate(sql);
+        sqlStatement.close();
+
+        // An existing table may be from before a field was added.
+        addMissingColumns(connection, className);
+    }
+
+    /**
+     * Adds a column for every SQLite field that the existing table doesn't have yet, ie: a newly added version field.
+     * SQLite can only add plain columns, so a new field must not be UNIQUE or a PRIMARY KEY, and a NOT NULL field
+     * needs a DEFAULT.
+     *
+     * @param connection JDBC connection to alter the schema.
+     * @param className The class to compare the table to.
+     * @throws Exception Pass through exception that gets handled up stream.
+     */
+    public static void addMissingColumns(Connection connection, Class<?> className) throws Exception {
+        String table = className.getSimpleName().toUpperCase();
+        Set<String> existing = new HashSet<>();
+
+        try (Statement statement = connection.createStatement();
+             ResultSet columns = statement.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (columns.next()) existing.add(columns.getString("name").toLowerCase());
+        }
+
+        for (Field field : className.getFields()) {
+            SQLITE annotation = field.getAnnotation(SQLITE.class);
+            if (annotation == null || existing.contains(field.getName().toLowerCase())) continue;
+
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("ALTER TABLE " + table + " ADD COLUMN " + field.getName() + " " + annotation.type());
+            }
+        }
     }
 
     /**
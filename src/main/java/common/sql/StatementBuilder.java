@@ -3,7 +3,11 @@ package common.sql;
 import java.lang.reflect.Field;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 
 /**
  * A class to generate SQL statements given a class type.
@@ -12,6 +16,10 @@ import java.util.Arrays;
  * @author Perdana Bailey
  */
 public class StatementBuilder {
+    /**
+     * The column that makes updates compare and set, a class with a SQLite field of this name is versioned.
+     */
+    public static final String VERSION = "version";
 
     /**
      * Creates a SELECT SQL statement based on given class type.
@@ -35,33 +43,217 @@ public class StatementBuilder {
         return "SELECT * FROM " + className.getSimpleName().toUpperCase();
     }
 
+    /**
+     * Creates a SELECT SQL statement for every row matching the query.
+     *
+     * @param conn The JDBC connection information.
+     * @param className The provided class type.
+     * @param query The conditions the selected rows match.
+     * @return PreparedStatement The SELECT SQL statement.
+     * @throws Exception A pass-through internal server exception.
+     */
+    public static PreparedStatement get(Connection conn, Class<?> className, Query query) throws Exception {
+        PreparedStatement pstmt = conn.prepareStatement(createGetStatement(className, query));
+        query.bind(pstmt, 1);
+
+        return pstmt;
+    }
+
+    /**
+     * Creates a SELECT SQL statement string for every row matching the query.
+     *
+     * @param className The provided class type.
+     * @param query The conditions the selected rows match.
+     * @return String The SELECT SQL statement string.
+     */
+    public static String createGetStatement(Class<?> className, Query query) {
+        return createGetStatement(className) + query.toSQL(className);
+    }
+
+    /**
+     * Creates a SELECT COUNT(*) SQL statement for the rows matching the query.
+     *
+     * @param conn The JDBC connection information.
+     * @param className The provided class type.
+     * @param query The conditions the counted rows match.
+     * @return PreparedStatement The SELECT COUNT(*) SQL statement.
+     * @throws Exception A pass-through internal server exception.
+     */
+    public static PreparedStatement count(Connection conn, Class<?> className, Query query) throws Exception {
+        PreparedStatement pstmt = conn.prepareStatement(createCountStatement(className, query));
+        query.bind(pstmt, 1);
+
+        return pstmt;
+    }
+
+    /**
+     * Creates a SELECT COUNT(*) SQL statement string for the rows matching the query.
+     *
+     * @param className The provided class type.
+     * @param query The conditions the counted rows match.
+     * @return String The SELECT COUNT(*) SQL statement string.
+     */
+    public static String createCountStatement(Class<?> className, Query query) {
+        return "SELECT COUNT(*) FROM " + className.getSimpleName().toUpperCase() + query.toSQL(className);
+    }
+
+    /**
+     * Creates a SELECT SQL statement that returns a single row if any row matches the query.
+     *
+     * @param conn The JDBC connection information.
+     * @param className The provided class type.
+     * @param query The conditions the row matches.
+     * @return PreparedStatement The existence SQL statement.
+     * @throws Exception A pass-through internal server exception.
+     */
+    public static PreparedStatement exists(Connection conn, Class<?> className, Query query) throws Exception {
+        PreparedStatement pstmt = conn.prepareStatement(createExistsStatement(className, query));
+        query.bind(pstmt, 1);
+
+        return pstmt;
+    }
+
+    /**
+     * Creates a SELECT SQL statement string that returns a single row if any row matches the query.
+     *
+     * @param className The provided class type.
+     * @param query The conditions the row matches.
+     * @return String The existence SQL statement string.
+     */
+    public static String createExistsStatement(Class<?> className, Query query) {
+        return "SELECT 1 FROM " + className.getSimpleName().toUpperCase() + query.toSQL(className) + " LIMIT 1";
+    }
+
+    /**
+     * Creates a keyset paginated SELECT SQL statement string based on given class type.
+     * Rows are ordered by the sort column then id, a page starts after the sort value and id of the previous page.
+     *
+     * @param className The provided class type.
+     * @param sort The column to sort by, it must not contain NULLs.
+     * @param first Whether this is the first page, ie: there's no previous page to start after.
+     * @return String The SELECT SQL statement string, with placeholders for the cursor then the limit.
+     */
+    public static String createPageStatement(Class<?> className, String sort, boolean first) {
+        Query.validate(className, List.of(sort));
+        boolean byId = sort.equals("id");
+
+        StringBuilder sql = new StringBuilder(createGetStatement(className));
+        if (!first) sql.append(byId ? " WHERE id > ?" : " WHERE (" + sort + " > ? OR (" + sort + " = ? AND id > ?))");
+        sql.append(byId ? " ORDER BY id" : " ORDER BY " + sort + ", id");
+
+        return sql.append(" LIMIT ?").toString();
+    }
 
     /**
      * Creates the INSERT SQL Statement based on a given object type.
      *
      * @param conn The JDBC connection information.
      * @param object The object being inserted.
-     * @return PreparedStatement The INSERT SQL statement.
+     * @return PreparedStatement The INSERT SQL statement, which returns the generated id.
      * @throws Exception A pass-through internal server exception.
      */
     public static PreparedStatement insert(Connection conn, Object object) throws Exception {
-        // Get the objects class and its fields then create the statement base.
-        Class className = object.getClass();
-        var fields = getFields(className);
-        PreparedStatement pstmt = conn.prepareStatement(createInsertStatement(className));
+        // Get the objects class then create the statement base.
+        PreparedStatement pstmt = conn.prepareStatement(createInsertStatement(object.getClass()), Statement.RETURN_GENERATED_KEYS);
+
+        bindInsert(pstmt, object);
+        return pstmt;
+    }
+
+    /**
+     * Creates the INSERT SQL Statement based on a given object type, keeping the object's id rather than generating
+     * one, ie: to share the id of a row in another table.
+     *
+     * @param conn The JDBC connection information.
+     * @param object The object being inserted.
+     * @return PreparedStatement The INSERT SQL statement.
+     * @throws Exception A pass-through internal server exception.
+     */
+    public static PreparedStatement insertWithId(Connection conn, Object object) throws Exception {
+        PreparedStatement pstmt = conn.prepareStatement(createInsertStatement(object.getClass(), true));
+
+        bindInsert(pstmt, object, true);
+        return pstmt;
+    }
+
+    /**
+     * Creates an INSERT SQL statement that either skips or updates the existing row when a unique column conflicts.
+     *
+     * @param conn The JDBC connection information.
+     * @param object The object being inserted.
+     * @param update Whether to update the existing row, otherwise the insert is skipped.
+     * @param unique The unique columns that identify an existing row, ie: "name".
+     * @return PreparedStatement The upsert SQL statement, which returns the generated id.
+     * @throws Exception A pass-through internal server exception.
+     */
+    public static PreparedStatement upsert(Connection conn, Object object, boolean update, String... unique) throws Exception {
+        PreparedStatement pstmt = conn.prepareStatement(createUpsertStatement(object.getClass(), update, unique), Statement.RETURN_GENERATED_KEYS);
+
+        bindInsert(pstmt, object);
+        return pstmt;
+    }
+
+    /**
+     * Creates an INSERT ... ON CONFLICT SQL statement string based on given class type.
+     * The values are bound the same way as createInsertStatement.
+     *
+     * @param className The provided class type.
+     * @param update Whether to update every other column of the existing row, otherwise the insert is skipped.
+     * @param unique The unique columns that identify an existing row, they must have a UNIQUE constraint.
+     * @return String The upsert SQL statement string.
+     */
+    public static String createUpsertStatement(Class<?> className, boolean update, String... unique) {
+        List<String> conflict = Arrays.asList(unique);
+        Query.validate(className, conflict);
+
+        StringBuilder sql = new StringBuilder(createInsertStatement(className))
+            .append(" ON CONFLICT(").append(String.join(", ", conflict)).append(")");
+        if (!update) return sql.append(" DO NOTHING").toString();
+
+        // Every other column takes the value that would have been inserted.
+        List<String> sets = new ArrayList<>();
+        for (Object obj : getFields(className)) {
+            String name = ((Field) obj).getName();
+            if (name.equals(VERSION)) sets.add(VERSION + " = " + VERSION + " + 1");
+            else if (!name.equals("id") && !conflict.contains(name)) sets.add(name + " = excluded." + name);
+        }
+
+        return sql.append(" DO UPDATE SET ").append(String.join(", ", sets)).toString();
+    }
+
+    /**
+     * Sets the values of an object on an INSERT statement, ie: for each object of a batch.
+     *
+     * @param pstmt The statement created from createInsertStatement.
+     * @param object The object being inserted.
+     * @throws Exception A pass-through internal server exception.
+     */
+    public static void bindInsert(PreparedStatement pstmt, Object object) throws Exception {
+        bindInsert(pstmt, object, false);
+    }
+
+    /**
+     * Sets the values of an object on an INSERT statement.
+     *
+     * @param pstmt The statement created from createInsertStatement.
+     * @param object The object being inserted.
+     * @param withId Whether the statement has the id column.
+     * @throws Exception A pass-through internal server exception.
+     */
+    public static void bindInsert(PreparedStatement pstmt, Object object, boolean withId) throws Exception {
+        var fields = getFields(object.getClass());
 
         // Match the objects fields with the statements base.
         int i = 1;
         for (Object obj : fields) {
             var field = (Field) obj;
-            if (!field.getName().equals("id")) {
+            if (withId || !field.getName().equals("id")) {
                 Object value = field.get(object);
                 pstmt.setObject(i, value);
 
                 i++;
             }
         }
-        return pstmt;
     }
 
     /**
@@ -71,9 +263,20 @@ public class StatementBuilder {
      * @return String The SELECT SQL statement string.
      */
     public static String createInsertStatement(Class<?> className) {
+        return createInsertStatement(className, false);
+    }
+
+    /**
+     * Creates an INSERT SQL statement string based on given class type.
+     *
+     * @param className The provided class type.
+     * @param withId Whether the id column is inserted, otherwise it is generated.
+     * @return String The INSERT SQL statement string.
+     */
+    public static String createInsertStatement(Class<?> className, boolean withId) {
         // Get the class fields and its length.
         var fields = getFields(className);
-        int lastField = fields.length - 1;
+        int lastField = withId ? fields.length : fields.length - 1;
 
         // Create the statement base.
         var names = new StringBuilder("INSERT INTO " + className.getSimpleName().toUpperCase() + " (");
@@ -83,7 +286,7 @@ public class StatementBuilder {
         int i = 1;
         for (Object obj : fields) {
             var field = (Field) obj;
-            if (!field.getName().equals("id")) {
+            if (withId || !field.getName().equals("id")) {
                 field.setAccessible(true);
                 if (i == lastField) {
                     names.append(field.getName()).append(")");
@@ -108,12 +311,23 @@ public class StatementBuilder {
      * @throws Exception A pass-through internal server exception.
      */
     public static PreparedStatement update(Connection conn, Object object) throws Exception {
-        // Get the objects class and its fields then create the statement base.
+        // Get the objects class then create the statement base.
+        PreparedStatement pstmt = conn.prepareStatement(createUpdateStatement(object.getClass()));
+
+        bindUpdate(pstmt, object);
+        return pstmt;
+    }
+
+    /**
+     * Sets the values of an object on an UPDATE statement, ie: for each object of a batch.
+     *
+     * @param pstmt The statement created from createUpdateStatement.
+     * @param object The object being updated.
+     * @throws Exception A pass-through internal server exception.
+     */
+    public static void bindUpdate(PreparedStatement pstmt, Object object) throws Exception {
         Class className = object.getClass();
         var fields = getFields(className);
-        String statement = createUpdateStatement(className);
-
-        PreparedStatement pstmt = conn.prepareStatement(statement);
 
         // Save ID for later.
         int id = className.getDeclaredField("id").getInt(object);
@@ -122,7 +336,7 @@ public class StatementBuilder {
         int i = 1;
         for (Object obj : fields) {
             var field = (Field) obj;
-            if (!field.getName().equals("id")) {
+            if (!field.getName().equals("id") && !field.getName().equals(VERSION)) {
                 Object value = field.get(object);
                 pstmt.setObject(i, value);
 
@@ -130,44 +344,35 @@ public class StatementBuilder {
             }
         }
 
-        // Set ID.
-        pstmt.setObject(i, id);
-
-        return pstmt;
+        // Set ID, then the version the object was read at.
+        pstmt.setObject(i++, id);
+        if (isVersioned(className)) pstmt.setObject(i, className.getDeclaredField(VERSION).getInt(object));
     }
 
     /**
      * Creates an UPDATE SQL statement string based on given class type.
+     * A versioned class only updates the row if its version is unchanged, and increments it.
      *
      * @param className The provided class type.
      * @return String The SELECT SQL statement string.
      */
     public static String createUpdateStatement(Class<?> className) {
-        // Get the class fields and its length.
-        var fields = getFields(className);
-        int lastField = fields.length - 1;
-
-        // Create the statement base.
-        StringBuilder names = new StringBuilder("UPDATE " + className.getSimpleName().toUpperCase() + " SET ");
-
         // Loop through the fields and create the statement.
-        int i = 1;
-        for (Object obj : fields) {
+        List<String> columns = new ArrayList<>();
+        for (Object obj : getFields(className)) {
             var field = (Field) obj;
 
-            if (!field.getName().equals("id")) {
+            if (!field.getName().equals("id") && !field.getName().equals(VERSION)) {
                 field.setAccessible(true);
-
-                if (i == lastField)
-                    names.append(field.getName()).append(" = ?");
-                else
-                    names.append(field.getName()).append(" = ?, ");
-
-                i++;
+                columns.add(field.getName() + " = ?");
             }
         }
 
-        return names.append(" WHERE ID = ?").toString();
+        boolean versioned = isVersioned(className);
+        if (versioned) columns.add(VERSION + " = " + VERSION + " + 1");
+
+        return "UPDATE " + className.getSimpleName().toUpperCase() + " SET " + String.join(", ", columns)
+            + " WHERE ID = ?" + (versioned ? " AND " + VERSION + " = ?" : "");
     }
 
     /**
@@ -179,15 +384,24 @@ public class StatementBuilder {
      * @throws Exception A pass-through internal server exception.
      */
     public static PreparedStatement delete(Connection conn, Object object) throws Exception {
-        // Check class, get ID field, get base statement, match ID to base statement ID.
-        Class className = object.getClass();
-        int id = className.getDeclaredField("id").getInt(object);
-        PreparedStatement pstmt = conn.prepareStatement(createDeleteStatement(className));
-        pstmt.setObject(1, id);
+        // Check class, get base statement, match ID to base statement ID.
+        PreparedStatement pstmt = conn.prepareStatement(createDeleteStatement(object.getClass()));
+        bindDelete(pstmt, object);
 
         return pstmt;
     }
 
+    /**
+     * Sets the ID of an object on a DELETE statement, ie: for each object of a batch.
+     *
+     * @param pstmt The statement created from createDeleteStatement.
+     * @param object The object being deleted.
+     * @throws Exception A pass-through internal server exception.
+     */
+    public static void bindDelete(PreparedStatement pstmt, Object object) throws Exception {
+        pstmt.setObject(1, object.getClass().getDeclaredField("id").getInt(object));
+    }
+
     /**
      * Creates a DELETE SQL statement string based on given class type.
      *
@@ -198,8 +412,129 @@ public class StatementBuilder {
         return "DELETE FROM " + className.getSimpleName().toUpperCase() + " WHERE ID = ?";
     }
 
+    /**
+     * Creates a DELETE SQL statement for every row matching the query.
+     *
+     * @param conn The JDBC connection information.
+     * @param className The provided class type.
+     * @param query The conditions the deleted rows match.
+     * @return PreparedStatement The DELETE SQL statement.
+     * @throws Exception A pass-through internal server exception.
+     */
+    public static PreparedStatement deleteWhere(Connection conn, Class<?> className, Query query) throws Exception {
+        PreparedStatement pstmt = conn.prepareStatement(createDeleteWhereStatement(className, query));
+        query.bind(pstmt, 1);
+
+        return pstmt;
+    }
+
+    /**
+     * Creates a DELETE SQL statement string for every row matching the query.
+     *
+     * @param className The provided class type.
+     * @param query The conditions the deleted rows match.
+     * @return String The DELETE SQL statement string.
+     */
+    public static String createDeleteWhereStatement(Class<?> className, Query query) {
+        return "DELETE FROM " + className.getSimpleName().toUpperCase() + query.toSQL(className);
+    }
+
+    /**
+     * Creates an UPDATE SQL statement that sets the given columns on every row matching the query.
+     *
+     * @param conn The JDBC connection information.
+     * @param className The provided class type.
+     * @param values The column, value pairs to set.
+     * @param query The conditions the updated rows match.
+     * @return PreparedStatement The UPDATE SQL statement.
+     * @throws Exception A pass-through internal server exception.
+     */
+    public static PreparedStatement updateWhere(Connection conn, Class<?> className, Map<String, Object> values, Query query) throws Exception {
+        PreparedStatement pstmt = conn.prepareStatement(createUpdateWhereStatement(className, values, query));
+
+        int i = 1;
+        for (Object value : values.values()) pstmt.setObject(i++, value);
+        query.bind(pstmt, i);
+
+        return pstmt;
+    }
+
+    /**
+     * Creates an UPDATE SQL statement string that sets the given columns on every row matching the query.
+     *
+     * @param className The provided class type.
+     * @param values The column, value pairs to set, in the order they will be bound.
+     * @param query The conditions the updated rows match.
+     * @return String The UPDATE SQL statement string.
+     */
+    public static String createUpdateWhereStatement(Class<?> className, Map<String, Object> values, Query query) {
+        Query.validate(className, values.keySet());
+        if (values.containsKey("id")) throw new IllegalArgumentException("The id column cannot be updated.");
+        if (values.containsKey(VERSION)) throw new IllegalArgumentException("The version column cannot be updated.");
+        validateTypes(className, values);
+
+        List<String> columns = new ArrayList<>();
+        for (String column : values.keySet()) columns.add(column + " = ?");
+        if (isVersioned(className)) columns.add(VERSION + " = " + VERSION + " + 1");
+
+        return "UPDATE " + className.getSimpleName().toUpperCase() + " SET " + String.join(", ", columns) + query.toSQL(className);
+    }
+
     /* HELPER FUNCTIONS */
 
+    /**
+     * Checks whether updates to the class are compare and set on a version column.
+     *
+     * @param className The provided class type.
+     * @return boolean Whether the class has a SQLite version field.
+     */
+    public static boolean isVersioned(Class<?> className) {
+        try {
+            return hasSQLAnnotation(className.getDeclaredField(VERSION));
+        } catch (NoSuchFieldException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Ensures every value is null or has the type of its column's field, so a row is never written with a value it
+     * can't be read back as.
+     *
+     * @param className The provided class type.
+     * @param values The column, value pairs, the columns must exist.
+     * @throws IllegalArgumentException Thrown when a value has the wrong type.
+     */
+    static void validateTypes(Class<?> className, Map<String, Object> values) {
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            if (entry.getValue() == null) continue;
+
+            Class<?> type;
+            try {
+                type = boxed(className.getDeclaredField(entry.getKey()).getType());
+            } catch (NoSuchFieldException e) {
+                throw new IllegalArgumentException("Unknown column " + entry.getKey() + " on " + className.getSimpleName() + ".");
+            }
+            if (!type.isInstance(entry.getValue()))
+                throw new IllegalArgumentException("Column " + entry.getKey() + " must be a " + type.getSimpleName() + ".");
+        }
+    }
+
+    /**
+     * @param type A field type.
+     * @return The boxed type of a primitive, or the type itself.
+     */
+    private static Class<?> boxed(Class<?> type) {
+        if (!type.isPrimitive()) return type;
+        if (type == int.class) return Integer.class;
+        if (type == boolean.class) return Boolean.class;
+        if (type == long.class) return Long.class;
+        if (type == double.class) return Double.class;
+        if (type == float.class) return Float.class;
+        if (type == short.class) return Short.class;
+        if (type == byte.class) return Byte.class;
+        return Character.class;
+    }
+
     /**
      *  Gets the fields of the class and returns and array of fields.
      *
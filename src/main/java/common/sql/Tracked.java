@@ -0,0 +1,15 @@
+package common.sql;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a model whose changes are recorded in the change log, so clients can ask for only what changed since
+ * they last loaded it. See Collection.changes.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Tracked {
+}
@@ -0,0 +1,37 @@
+package common.utils;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+
+/**
+ * This class is the outcome of importing a billboard archive, the number of billboards imported and why any file
+ * wasn't.
+ */
+public class ArchiveReport implements Serializable {
+    /**
+     * The number of billboards imported.
+     */
+    public int imported;
+
+    /**
+     * The files that weren't imported and why.
+     */
+    public LinkedHashMap<String, String> errors = new LinkedHashMap<>();
+
+    /**
+     * An empty constructor just for creating the object.
+     */
+    public ArchiveReport() { }
+
+    /**
+     * Formats the report for the console.
+     *
+     * @return The number imported, then one line per file that failed.
+     */
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder("Imported " + imported + " billboards, " + errors.size() + " failed.\n");
+        errors.forEach((file, error) -> out.append("  ").append(file).append(": ").append(error).append('\n'));
+        return out.toString();
+    }
+}
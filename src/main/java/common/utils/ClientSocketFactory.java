@@ -2,19 +2,17 @@ package common.utils;
 
 import common.models.Billboard;
 import common.router.Response;
+import common.router.Compressed;
 import common.router.Request;
 import common.router.response.Status;
 import common.swing.Notification;
 
 import javax.swing.*;
 import java.io.*;
-import java.net.Socket;
-import java.time.Instant;
 import java.util.HashMap;
-import java.util.Properties;
 
 /**
- * This class deals with client side socket stateless requests and receiving of the response.
+ * This class deals with sending client side requests over the pooled connections and receiving of the response.
  *
  * @author Perdana Bailey
  * @author Jamie Martin
@@ -92,49 +90,24 @@ public class ClientSocketFactory {
      */
     public Response Connect() {
         try {
-            // Initialise socket.
-            Properties props = Props.getProps("./network.props");
-
-            if (props.containsKey("server.address") && props.containsKey("server.port")) {
-                String host = props.getProperty("server.address");
-                int port = Integer.parseInt(props.getProperty("server.port"));
-
-                Socket s = new Socket(host, port);
-
-                // Open up an object output stream and write the request to it.
-                OutputStream outputStream = s.getOutputStream();
-                ObjectOutputStream oos = new ObjectOutputStream(outputStream);
-                Request req = new Request(path, token, params, body);
-                oos.writeObject(req);
-                oos.flush();
-
-                // Open up the input stream and wait for a response.
-                InputStream inputStream = s.getInputStream();
-                ObjectInputStream ois = new ObjectInputStream(inputStream);
-                Object o = ois.readObject();
-
-                // Ensure its the right response type.
-                Response res = null;
-                if (o instanceof Response) {
-                    res = (Response) o;
-
-                    // Handle errors.
-                    if (res.error) {
-                        Response finalRes = res;
-                        if (messageOnError) SwingUtilities.invokeLater(() -> Notification.display(finalRes.message));
-                    }
+            // Send the request on a pooled connection and wait for the response, which may be compressed.
+            Request req = new Request(path, token, params, body);
+            req.acceptCompressed = true;
+            Object o = Compressed.unwrap(ConnectionPool.getInstance().send(req));
+
+            // Ensure its the right response type.
+            Response res = null;
+            if (o instanceof Response) {
+                res = (Response) o;
+
+                // Handle errors.
+                if (res.error) {
+                    Response finalRes = res;
+                    if (messageOnError) SwingUtilities.invokeLater(() -> Notification.display(finalRes.message));
                 }
-
-                // Clean up.
-                ois.close();
-                oos.close();
-                s.close();
-
-                return res;
-            } else {
-                Notification.display("Please configure network.props file");
-                return null;
             }
+
+            return res;
         } catch (IOException ex) { // Handle errors.
             if (messageOnError) {
                 Notification.display(ex.getMessage());
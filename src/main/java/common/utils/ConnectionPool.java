@@ -0,0 +1,273 @@
+package common.utils;
+
+import common.router.Request;
+import common.router.Response;
+
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Deque;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * A singleton Class that keeps a small pool of open connections to the server, shared by the viewer and the control
+ * panel, so a request doesn't pay for a new socket and object streams every time.
+ * The configuration is read from network.props once, on first use.
+ */
+public class ConnectionPool {
+    /**
+     * The default settings, used when network.props doesn't set them.
+     * The idle timeout is below the server's, so the client retires a connection before the server closes it.
+     */
+    public static final int DEFAULT_CONNECT_TIMEOUT = 5000, DEFAULT_READ_TIMEOUT = 30000, DEFAULT_IDLE_TIMEOUT = 20000,
+        DEFAULT_POOL_SIZE = 4;
+
+    private final String host;
+    private final int port;
+    private final int connectTimeout;
+    private final int readTimeout;
+    private final int idleTimeout;
+    private final int poolSize;
+
+    // Idle connections, most recently used first.
+    private final Deque<Connection> idle = new ConcurrentLinkedDeque<>();
+
+    /**
+     * Creates a pool for a server.
+     *
+     * @param host The server address.
+     * @param port The server port.
+     * @param connectTimeout How long to wait for a connection in milliseconds.
+     * @param readTimeout How long to wait for a response in milliseconds.
+     * @param idleTimeout How long an unused connection is kept in milliseconds.
+     * @param poolSize The most idle connections kept.
+     */
+    public ConnectionPool(String host, int port, int connectTimeout, int readTimeout, int idleTimeout, int poolSize) {
+        this.host = host;
+        this.port = port;
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.idleTimeout = idleTimeout;
+        this.poolSize = poolSize;
+    }
+
+    /**
+     * Lazily creates the pool from network.props, a failed read is retried on the next call.
+     */
+    private static class ConnectionPoolHolder {
+        private static volatile ConnectionPool INSTANCE;
+    }
+
+    /**
+     * Gets the shared pool, configured from network.props.
+     *
+     * @return The pool.
+     * @throws IOException Thrown when network.props can't be read or doesn't set the server address and port.
+     */
+    public static ConnectionPool getInstance() throws IOException {
+        ConnectionPool pool = ConnectionPoolHolder.INSTANCE;
+        if (pool != null) return pool;
+
+        synchronized (ConnectionPoolHolder.class) {
+            if (ConnectionPoolHolder.INSTANCE == null) ConnectionPoolHolder.INSTANCE = fromProps(Props.getProps("./network.props"));
+            return ConnectionPoolHolder.INSTANCE;
+        }
+    }
+
+    /**
+     * Creates a pool from the network properties.
+     *
+     * @param props The properties with server.address and server.port, and optionally the client.* settings.
+     * @return The pool.
+     * @throws IOException Thrown when the server address or port is missing.
+     */
+    public static ConnectionPool fromProps(Properties props) throws IOException {
+        if (!props.containsKey("server.address") || !props.containsKey("server.port")) {
+            throw new IOException("Please configure network.props file");
+        }
+
+        return new ConnectionPool(
+            props.getProperty("server.address"),
+            Integer.parseInt(props.getProperty("server.port").trim()),
+            intProperty(props, "client.connectTimeout", DEFAULT_CONNECT_TIMEOUT),
+            intProperty(props, "client.readTimeout", DEFAULT_READ_TIMEOUT),
+            intProperty(props, "client.idleTimeout", DEFAULT_IDLE_TIMEOUT),
+            intProperty(props, "client.poolSize", DEFAULT_POOL_SIZE));
+    }
+
+    private static int intProperty(Properties props, String key, int defaultValue) {
+        String value = props.getProperty(key);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    /**
+     * Sends a request and waits for the response, on an idle connection if there is one.
+     * If a reused connection turns out to have been closed before the server read the request, the request is sent
+     * once more on a new connection. A request that may have reached the server is never sent again.
+     *
+     * @param request The request.
+     * @return The object the server replied with.
+     * @throws IOException Thrown when the server can't be reached or doesn't reply in time.
+     * @throws ClassNotFoundException Thrown when the reply can't be read.
+     */
+    public Object send(Request request) throws IOException, ClassNotFoundException {
+        Connection connection = acquire();
+
+        try {
+            return release(connection, connection.send(request));
+        } catch (IOException e) {
+            connection.close();
+            // Only a request the server can't have run is sent again, otherwise an insert could run twice.
+            if (!connection.reused || !connection.unsent) throw e;
+        } catch (ClassNotFoundException | RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+
+        // The server closed the idle connection, reconnect.
+        Connection fresh = connect();
+        try {
+            return release(fresh, fresh.send(request));
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
+            fresh.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return The number of idle connections in the pool.
+     */
+    public int idleCount() {
+        return idle.size();
+    }
+
+    /**
+     * Closes every idle connection, ie: when the application exits.
+     */
+    public void close() {
+        Connection connection;
+        while ((connection = idle.pollFirst()) != null) connection.close();
+    }
+
+    /**
+     * Takes the most recently used idle connection, closing any that have been idle too long.
+     *
+     * @return A connection.
+     * @throws IOException Thrown when a new connection can't be opened.
+     */
+    private Connection acquire() throws IOException {
+        long now = System.currentTimeMillis();
+        Connection connection;
+
+        while ((connection = idle.pollFirst()) != null) {
+            if (now - connection.lastUsed < idleTimeout) {
+                connection.reused = true;
+                return connection;
+            }
+            connection.close();
+        }
+
+        return connect();
+    }
+
+    /**
+     * Returns a connection to the pool, closing it if the pool is full.
+     *
+     * @param connection The connection that completed a request.
+     * @param response The response to pass through.
+     * @return The response.
+     */
+    private Object release(Connection connection, Object response) {
+        connection.lastUsed = System.currentTimeMillis();
+
+        if (idle.size() < poolSize) idle.offerFirst(connection);
+        else connection.close();
+
+        return response;
+    }
+
+    private Connection connect() throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(host, port), connectTimeout);
+            // With no server listening on a local port, the socket can be given that port and connect to itself.
+            if (socket.getLocalSocketAddress().equals(socket.getRemoteSocketAddress()))
+                throw new ConnectException("Connection refused: " + host + ":" + port);
+            socket.setSoTimeout(readTimeout);
+            socket.setTcpNoDelay(true);
+            return new Connection(socket);
+        } catch (IOException | RuntimeException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    /**
+     * A single open connection and its object streams, used by one request at a time.
+     */
+    private static class Connection {
+        private final Socket socket;
+        private final ObjectOutputStream out;
+        private final ObjectInputStream in;
+        private long lastUsed;
+        private boolean reused;
+        // The bytes read from the server so far.
+        private long received;
+        // Whether the last failed request certainly wasn't run, as it was never written or the server closed the
+        // connection without a byte of reply, ie: because it had been idle too long.
+        private boolean unsent;
+
+        private Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.out = new ObjectOutputStream(socket.getOutputStream());
+            // Send the stream header straight away, the server sends its own when the connection is accepted.
+            this.out.flush();
+            this.in = new ObjectInputStream(new FilterInputStream(socket.getInputStream()) {
+                @Override
+                public int read() throws IOException {
+                    int b = super.read();
+                    if (b != -1) received++;
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    int read = super.read(b, off, len);
+                    if (read > 0) received += read;
+                    return read;
+                }
+            });
+        }
+
+        private Object send(Request request) throws IOException, ClassNotFoundException {
+            unsent = true;
+            out.writeObject(request);
+            // Forget the sent objects, otherwise an object sent again after a change would be sent as a reference.
+            out.reset();
+            out.flush();
+            unsent = false;
+
+            long before = received;
+            try {
+                return in.readObject();
+            } catch (EOFException e) {
+                unsent = received == before;
+                throw e;
+            }
+        }
+
+        private void close() {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // Closing a broken connection.
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package common.utils;
+
+import java.io.Serializable;
+
+/**
+ * This class is a single piece of a billboard picture, sent to or from the picture routes so a large picture never
+ * has to be held in one request.
+ */
+public class PictureChunk implements Serializable {
+    /**
+     * The most base64 characters in a chunk, a multiple of 4 so every chunk but the last decodes on its own.
+     */
+    public static final int SIZE = 64 * 1024;
+
+    /**
+     * The request parameter names used to download a chunk.
+     */
+    public static final String NAME = "name", OFFSET = "offset";
+
+    /**
+     * The billboard the picture belongs to.
+     */
+    public String billboardName;
+
+    /**
+     * The upload the chunk is part of, null for the first chunk of an upload.
+     */
+    public String uploadId;
+
+    /**
+     * The position of the chunk in the base64 picture.
+     */
+    public long offset;
+
+    /**
+     * The base64 characters of the chunk.
+     */
+    public String data;
+
+    /**
+     * Whether this is the last chunk of the picture.
+     */
+    public boolean last;
+
+    /**
+     * The version of the billboard, an upload is rejected if the billboard changed since.
+     */
+    public int version;
+
+    /**
+     * The length of the whole base64 picture, only set on downloaded chunks.
+     */
+    public long total;
+
+    /**
+     * An empty constructor just for creating the object.
+     */
+    public PictureChunk() {
+
+    }
+
+    /**
+     * Constructor for the PictureChunk object.
+     *
+     * @param billboardName The billboard the picture belongs to.
+     * @param uploadId The upload the chunk is part of, null for the first chunk.
+     * @param offset The position of the chunk in the base64 picture.
+     * @param data The base64 characters of the chunk.
+     * @param last Whether this is the last chunk of the picture.
+     */
+    public PictureChunk(String billboardName, String uploadId, long offset, String data, boolean last) {
+        this.billboardName = billboardName;
+        this.uploadId = uploadId;
+        this.offset = offset;
+        this.data = data;
+        this.last = last;
+    }
+}
@@ -0,0 +1,290 @@
+package common.utils;
+
+import javax.imageio.ImageIO;
+import javax.imageio.stream.ImageInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A Class that downloads pictures from URLs with time and size limits, several at a time, keeping a disk cache so an
+ * unchanged picture is only downloaded once. Cached pictures are revalidated with the server using their ETag.
+ * The shared instance is configured from network.props once, on first use.
+ */
+public class PictureFetcher {
+    /**
+     * The default settings, used when network.props doesn't set them.
+     */
+    public static final int DEFAULT_CONNECT_TIMEOUT = 5000, DEFAULT_READ_TIMEOUT = 10000, DEFAULT_THREADS = 4;
+
+    /**
+     * The default largest picture downloaded, and the default most bytes kept in the cache.
+     */
+    public static final long DEFAULT_MAX_SIZE = 12L * 1024 * 1024, DEFAULT_CACHE_SIZE = 64L * 1024 * 1024;
+
+    private static final String DATA = ".data", ETAG = ".etag";
+
+    private final Path cacheDirectory;
+    private final int connectTimeout;
+    private final int readTimeout;
+    private final long maxSize;
+    private final long cacheSize;
+    private final ExecutorService executor;
+
+    // URL, Download in progress Key Value Pair, so a URL in several billboards is only fetched once at a time.
+    private final Map<String, CompletableFuture<String>> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a fetcher.
+     *
+     * @param cacheDirectory The directory cached pictures are kept in, null disables the cache.
+     * @param connectTimeout How long to wait for a connection in milliseconds.
+     * @param readTimeout How long to wait for data in milliseconds.
+     * @param maxSize The largest picture downloaded in bytes.
+     * @param cacheSize The most bytes kept in the cache, the least recently used pictures are removed first.
+     * @param threads The most pictures downloaded at once.
+     */
+    public PictureFetcher(Path cacheDirectory, int connectTimeout, int readTimeout, long maxSize, long cacheSize, int threads) {
+        this.cacheDirectory = cacheDirectory;
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.maxSize = maxSize;
+        this.cacheSize = cacheSize;
+
+        AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "picture-fetcher-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Lazily creates the fetcher from network.props, falling back to the defaults if it can't be read.
+     */
+    private static class PictureFetcherHolder {
+        private final static PictureFetcher INSTANCE = fromProps(readProps());
+
+        private static Properties readProps() {
+            try {
+                return Props.getProps("./network.props");
+            } catch (IOException e) {
+                return new Properties();
+            }
+        }
+    }
+
+    public static PictureFetcher getInstance() {
+        return PictureFetcherHolder.INSTANCE;
+    }
+
+    /**
+     * Creates a fetcher from the network properties.
+     *
+     * @param props The properties, with optional client.picture.* settings.
+     * @return The fetcher.
+     */
+    public static PictureFetcher fromProps(Properties props) {
+        String cache = props.getProperty("client.picture.cacheDir",
+            Paths.get(System.getProperty("java.io.tmpdir"), "billboard-pictures").toString());
+
+        return new PictureFetcher(
+            cache.trim().isEmpty() ? null : Paths.get(cache.trim()),
+            (int) longProperty(props, "client.picture.connectTimeout", DEFAULT_CONNECT_TIMEOUT),
+            (int) longProperty(props, "client.picture.readTimeout", DEFAULT_READ_TIMEOUT),
+            longProperty(props, "client.picture.maxSize", DEFAULT_MAX_SIZE),
+            longProperty(props, "client.picture.cacheSize", DEFAULT_CACHE_SIZE),
+            (int) longProperty(props, "client.picture.threads", DEFAULT_THREADS));
+    }
+
+    private static long longProperty(Properties props, String key, long defaultValue) {
+        String value = props.getProperty(key);
+        return value == null ? defaultValue : Long.parseLong(value.trim());
+    }
+
+    /**
+     * Downloads a picture in the background.
+     *
+     * @param url The URL of the picture.
+     * @return A future completed with the base64 picture, null if the URL isn't an image, or exceptionally if it
+     * couldn't be downloaded in time or is too large.
+     */
+    public CompletableFuture<String> fetchAsync(String url) {
+        CompletableFuture<String> created = new CompletableFuture<>();
+        CompletableFuture<String> future = pending.putIfAbsent(url, created);
+        if (future != null) return future;
+
+        CompletableFuture.runAsync(() -> {
+            String picture = null;
+            Exception error = null;
+            try {
+                picture = download(url);
+            } catch (Exception e) {
+                error = e;
+            }
+
+            // Finished downloads are no longer shared, a later fetch revalidates the picture.
+            pending.remove(url, created);
+            if (error == null) created.complete(picture);
+            else created.completeExceptionally(error);
+        }, executor);
+        return created;
+    }
+
+    /**
+     * Downloads a picture and waits for it.
+     *
+     * @param url The URL of the picture.
+     * @return String The base64 picture, or null if the URL isn't an image.
+     * @throws IOException Thrown when the picture couldn't be downloaded in time or is too large.
+     */
+    public String fetch(String url) throws IOException {
+        try {
+            return fetchAsync(url).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while downloading " + url, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw new IOException("Failed to download " + url, e.getCause());
+        }
+    }
+
+    /**
+     * Downloads a picture, or reuses the cached copy if the server says it hasn't changed.
+     */
+    private String download(String url) throws IOException {
+        Path data = cacheFile(url, DATA), etag = cacheFile(url, ETAG);
+        String cachedEtag = data != null && Files.exists(data) && Files.exists(etag)
+            ? new String(Files.readAllBytes(etag), StandardCharsets.UTF_8) : null;
+
+        URLConnection connection = new URL(url).openConnection();
+        connection.setConnectTimeout(connectTimeout);
+        connection.setReadTimeout(readTimeout);
+        if (cachedEtag != null) connection.setRequestProperty("If-None-Match", cachedEtag);
+
+        try {
+            byte[] bytes;
+            if (connection instanceof HttpURLConnection && ((HttpURLConnection) connection).getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                bytes = Files.readAllBytes(data);
+                // Mark it as recently used.
+                data.toFile().setLastModified(System.currentTimeMillis());
+            } else {
+                if (connection.getContentLengthLong() > maxSize) throw new IOException("Picture at " + url + " is larger than " + maxSize + " bytes.");
+                try (InputStream in = connection.getInputStream()) {
+                    bytes = readLimited(in, url);
+                }
+                store(url, connection.getHeaderField("ETag"), bytes);
+            }
+
+            return isImage(bytes) ? Base64.getEncoder().encodeToString(bytes) : null;
+        } finally {
+            if (connection instanceof HttpURLConnection) ((HttpURLConnection) connection).disconnect();
+        }
+    }
+
+    /**
+     * Reads a response, failing as soon as it goes over the size limit rather than after reading it all.
+     */
+    private byte[] readLimited(InputStream in, String url) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[16 * 1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            if (out.size() + read > maxSize) throw new IOException("Picture at " + url + " is larger than " + maxSize + " bytes.");
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Checks the data starts like an image ImageIO can read, without decoding it.
+     */
+    private static boolean isImage(byte[] bytes) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(bytes))) {
+            return input != null && ImageIO.getImageReaders(input).hasNext();
+        }
+    }
+
+    /**
+     * Caches a downloaded picture, only if the server gave it an ETag to revalidate it with.
+     * The picture is written before its ETag, so a cached ETag always has its picture.
+     */
+    private void store(String url, String etag, byte[] bytes) throws IOException {
+        Path data = cacheFile(url, DATA);
+        if (data == null || etag == null || bytes.length > cacheSize) return;
+
+        Files.createDirectories(cacheDirectory);
+        Path etagFile = cacheFile(url, ETAG);
+        Files.deleteIfExists(etagFile);
+        write(data, bytes);
+        write(etagFile, etag.getBytes(StandardCharsets.UTF_8));
+        evict();
+    }
+
+    private static void write(Path file, byte[] bytes) throws IOException {
+        Path temp = Files.createTempFile(file.getParent(), "picture", ".tmp");
+        Files.write(temp, bytes);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Removes the least recently used pictures until the cache fits its size.
+     */
+    private synchronized void evict() {
+        File[] files = cacheDirectory.toFile().listFiles((dir, name) -> name.endsWith(DATA));
+        if (files == null) return;
+
+        long total = 0;
+        for (File file : files) total += file.length();
+        if (total <= cacheSize) return;
+
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (File file : files) {
+            if (total <= cacheSize) break;
+            String name = file.getName();
+            new File(file.getParentFile(), name.substring(0, name.length() - DATA.length()) + ETAG).delete();
+            total -= file.length();
+            file.delete();
+        }
+    }
+
+    /**
+     * @return The cache file of a URL, or null if the cache is disabled.
+     */
+    private Path cacheFile(String url, String extension) {
+        if (cacheDirectory == null) return null;
+
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder();
+            for (byte b : hash) name.append(String.format("%02x", b));
+            return cacheDirectory.resolve(name + extension);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
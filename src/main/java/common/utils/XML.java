@@ -1,38 +1,71 @@
 package common.utils;
 
-import client.services.BillboardService;
 import common.models.Billboard;
 import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 import org.xml.sax.InputSource;
 
-import javax.imageio.ImageIO;
-import javax.print.Doc;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
 import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.Reader;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 /**
  * This class is responsible for the client side XML billboard files.
+ * Billboards are read and written as a stream of StAX events, so a large picture is never held in a DOM tree.
  *
  * @author Perdana Bailey
  * @author Jamie Martin
  * @author Kevin Huynh
  */
 public class XML {
+    private static final String DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>";
+
+    // The factories are expensive to create and their readers and writers aren't shared between threads, so each
+    // thread keeps its own.
+    private static final ThreadLocal<XMLInputFactory> INPUT = ThreadLocal.withInitial(() -> {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        // Billboard files never need a DTD, and reading one could fetch external files.
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    });
+    private static final ThreadLocal<XMLOutputFactory> OUTPUT = ThreadLocal.withInitial(XMLOutputFactory::newInstance);
+    private static final ThreadLocal<DocumentBuilder> DOCUMENT_BUILDER = ThreadLocal.withInitial(() -> {
+        try {
+            return DocumentBuilderFactory.newInstance().newDocumentBuilder();
+        } catch (ParserConfigurationException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+    private static final ThreadLocal<Transformer> TRANSFORMER = ThreadLocal.withInitial(() -> {
+        try {
+            return TransformerFactory.newInstance().newTransformer();
+        } catch (TransformerConfigurationException e) {
+            throw new IllegalStateException(e);
+        }
+    });
 
     /**
      * A function that reads the XML file from the path.
@@ -53,7 +86,8 @@ public class XML {
      * @throws Exception A pass through error from converting the XML file.
      */
     public static Document toDocument(String xml) throws Exception {
-        DocumentBuilder db = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+        DocumentBuilder db = DOCUMENT_BUILDER.get();
+        db.reset();
         InputSource is = new InputSource();
         is.setCharacterStream(new StringReader(xml));
 
@@ -68,12 +102,8 @@ public class XML {
      * @throws Exception A pass through error from converting the document file.
      */
     public static String fromDocument(Document document) throws Exception {
-        DOMSource domSource = new DOMSource(document);
         StringWriter writer = new StringWriter();
-        StreamResult result = new StreamResult(writer);
-        TransformerFactory tf = TransformerFactory.newInstance();
-        Transformer transformer = tf.newTransformer();
-        transformer.transform(domSource, result);
+        transform(document, new StreamResult(writer));
 
         return writer.toString();
     }
@@ -86,12 +116,13 @@ public class XML {
      * @throws Exception A pass through error from saving the file.
      */
     public static void saveDocument(Document document, File file) throws Exception {
-        TransformerFactory transformerFactory = TransformerFactory.newInstance();
-        Transformer transformer = transformerFactory.newTransformer();
-        DOMSource domSource = new DOMSource(document);
-        StreamResult streamResult = new StreamResult(file);
+        transform(document, new StreamResult(file));
+    }
 
-        transformer.transform(domSource, streamResult);
+    private static void transform(Document document, StreamResult result) throws Exception {
+        Transformer transformer = TRANSFORMER.get();
+        transformer.reset();
+        transformer.transform(new DOMSource(document), result);
     }
 
     /**
@@ -100,21 +131,113 @@ public class XML {
      * @param xml The XML of the billboard.
      * @param selectedBillboard The billboard object.
      * @return The billboard after conversion.
-     * @throws Exception A pass through error from converting from XML to billboard.
+     * @throws Exception A pass through error from converting from XML to billboard or downloading its picture.
      */
     public static Billboard fromXML(String xml, Billboard selectedBillboard) throws Exception {
-        Document document = toDocument(xml);
+        try {
+            return fromXMLAsync(xml, selectedBillboard).get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+    /**
+     * A function to convert XML to billboards, downloading a picture URL in the background.
+     *
+     * @param xml The XML of the billboard.
+     * @param selectedBillboard The billboard object.
+     * @return A future completed with the billboard after conversion, or exceptionally if its picture couldn't be
+     * downloaded.
+     * @throws Exception A pass through error from converting from XML to billboard.
+     */
+    public static CompletableFuture<Billboard> fromXMLAsync(String xml, Billboard selectedBillboard) throws Exception {
+        return fromXMLAsync(new StringReader(xml), selectedBillboard);
+    }
+
+    /**
+     * A function to read an XML file into a billboard, streaming it rather than reading the whole file first.
+     *
+     * @param path The path of the XML file.
+     * @param selectedBillboard The billboard object.
+     * @return A future completed with the billboard after conversion, or exceptionally if its picture couldn't be
+     * downloaded.
+     * @throws Exception A pass through error from reading the file or converting from XML to billboard.
+     */
+    public static CompletableFuture<Billboard> readFileAsync(Path path, Billboard selectedBillboard) throws Exception {
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return fromXMLAsync(reader, selectedBillboard);
+        }
+    }
+
+    /**
+     * A function to convert streamed XML to billboards, downloading a picture URL in the background.
+     * Only the first of each element is used, wherever it is in the document.
+     *
+     * @param xml The XML of the billboard, it isn't closed.
+     * @param selectedBillboard The billboard object.
+     * @return A future completed with the billboard after conversion, or exceptionally if its picture couldn't be
+     * downloaded.
+     * @throws Exception A pass through error from converting from XML to billboard.
+     */
+    public static CompletableFuture<Billboard> fromXMLAsync(Reader xml, Billboard selectedBillboard) throws Exception {
+        return fromXMLAsync(xml, selectedBillboard, true);
+    }
+
+    /**
+     * A function to convert streamed XML to billboards.
+     * Only the first of each element is used, wherever it is in the document.
+     *
+     * @param xml The XML of the billboard, it isn't closed.
+     * @param selectedBillboard The billboard object.
+     * @param fetchPictures Whether a picture URL is downloaded in the background, otherwise it is an error, ie: on the
+     * server, which mustn't open URLs from uploaded files.
+     * @return A future completed with the billboard after conversion, or exceptionally if its picture couldn't be
+     * downloaded.
+     * @throws Exception A pass through error from converting from XML to billboard.
+     */
+    public static CompletableFuture<Billboard> fromXMLAsync(Reader xml, Billboard selectedBillboard, boolean fetchPictures) throws Exception {
+        String billboardColour = null, message = null, messageColor = null, pictureUrl = null, pictureData = null,
+            information = null, informationColour = null;
+        boolean seenBillboard = false, seenMessage = false, seenPicture = false, seenInformation = false;
 
         // parse variables
-        String billboardColour = getAttributeValue("billboard", "background", document);
-        String message = getTagValue("message", document);
-        String messageColor = getAttributeValue("message", "colour", document);
+        XMLStreamReader reader = INPUT.get().createXMLStreamReader(xml);
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() != XMLStreamConstants.START_ELEMENT) continue;
 
-        String pictureUrl = getAttributeValue("picture", "url", document);
-        String pictureData = getAttributeValue("picture", "data", document);
+                switch (reader.getLocalName()) {
+                    case "billboard":
+                        if (seenBillboard) break;
+                        seenBillboard = true;
+                        billboardColour = reader.getAttributeValue(null, "background");
+                        break;
+                    case "message":
+                        if (seenMessage) break;
+                        seenMessage = true;
+                        messageColor = reader.getAttributeValue(null, "colour");
+                        message = readText(reader);
+                        break;
+                    case "picture":
+                        if (seenPicture) break;
+                        seenPicture = true;
+                        pictureUrl = reader.getAttributeValue(null, "url");
+                        pictureData = reader.getAttributeValue(null, "data");
+                        break;
+                    case "information":
+                        if (seenInformation) break;
+                        seenInformation = true;
+                        informationColour = reader.getAttributeValue(null, "colour");
+                        information = readText(reader);
+                        break;
+                }
+            }
+        } finally {
+            reader.close();
+        }
 
-        String information = getTagValue("information", document);
-        String informationColour = getAttributeValue("information", "colour", document);
+        if (pictureUrl != null && pictureData != null) throw new Exception("Picture cannot have both url and data");
+        if (pictureUrl != null && !fetchPictures) throw new Exception("Picture urls are not supported here, embed the picture with data instead");
 
         Billboard billboard = selectedBillboard;
 
@@ -125,18 +248,37 @@ public class XML {
         billboard.information = information;
         billboard.informationColor = informationColour == null ? "#000000" : informationColour;
 
-        if (pictureUrl != null && pictureData != null) throw new Exception("Picture cannot have both url and data");
-        else if (pictureUrl != null) {
-            String encoded =  Picture.getByteArrayFromImageURL(pictureUrl);
-            byte[] base64 = Base64.getDecoder().decode(encoded);
-            BufferedImage pictureOutput = ImageIO.read(new ByteArrayInputStream(base64));
+        if (pictureUrl == null) {
+            billboard.picture = pictureData;
+            return CompletableFuture.completedFuture(billboard);
+        }
+
+        // The fetcher only returns data ImageIO recognises as an image, otherwise the picture is left as it was.
+        return PictureFetcher.getInstance().fetchAsync(pictureUrl).thenApply(picture -> {
+            if (picture != null) billboard.picture = picture;
+            return billboard;
+        });
+    }
 
-            if (pictureOutput != null) billboard.picture = encoded;
+    /**
+     * Reads the text directly inside the current element, stopping at its first child element.
+     *
+     * @return The text, or null if the element has none.
+     */
+    private static String readText(XMLStreamReader reader) throws XMLStreamException {
+        StringBuilder text = null;
+
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+                if (text == null) text = new StringBuilder();
+                text.append(reader.getText());
+            } else if (event == XMLStreamConstants.START_ELEMENT || event == XMLStreamConstants.END_ELEMENT) {
+                break;
+            }
         }
-        else if (pictureData != null) billboard.picture = pictureData;
-        else billboard.picture = null;
 
-        return billboard;
+        return text == null ? null : text.toString();
     }
 
     /**
@@ -147,69 +289,77 @@ public class XML {
      * @throws Exception A pass through error from converting from billboard to XML.
      */
     public static String toXML(Billboard billboard) throws Exception {
-        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
-
-        // root element
-        Element root = document.createElement("billboard");
-        root.setAttribute("background", billboard.backgroundColor);
-        document.appendChild(root);
-
-        if (billboard.message != null && !billboard.message.isEmpty()) {
-            Element element = document.createElement("message");
-            element.setTextContent(billboard.message);
-            element.setAttribute("colour", billboard.messageColor);
-
-            root.appendChild(element);
-        }
-
-        if (billboard.picture != null && !billboard.picture.isEmpty()) {
-            Element element = document.createElement("picture");
-            element.setAttribute("data", billboard.picture);
-
-            root.appendChild(element);
-        }
-
-        if (billboard.information != null && !billboard.information.isBlank()) {
-            Element element = document.createElement("information");
-            element.setTextContent(billboard.information);
-            element.setAttribute("colour", billboard.informationColor);
-
-            root.appendChild(element);
-        }
+        StringWriter writer = new StringWriter();
+        write(billboard, writer);
 
-        return fromDocument(document);
+        return writer.toString();
     }
 
     /**
-     * A helper function that retrieves XML tag value.
+     * A function to save a billboard to an XML file, streaming it rather than building the whole file first.
      *
-     * @param tag The tag name as a string.
-     * @param document The XML document.
-     * @return The tag value as a string.
+     * @param billboard The billboard object.
+     * @param file The file the XML is being saved to.
+     * @throws Exception A pass through error from writing the file.
      */
-    private static String getTagValue(String tag, Document document) {
-        try {
-            NodeList nodeList = document.getElementsByTagName(tag).item(0).getChildNodes();
-            Node node = nodeList.item(0);
-            return node.getNodeValue();
-        } catch (Exception e) {
-            return null;
+    public static void saveFile(Billboard billboard, File file) throws Exception {
+        try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            write(billboard, writer);
         }
     }
 
     /**
-     * A helper function that retrieves XML attribute value.
+     * A function to write a billboard as XML.
      *
-     * @param tag The tag name as a string.
-     * @param attribute The attribute as a string.
-     * @param document The XML document.
-     * @return The attribute value as a string.
+     * @param billboard The billboard object.
+     * @param out The writer the XML is written to, it isn't closed.
+     * @throws Exception A pass through error from writing the XML.
      */
-    private static String getAttributeValue(String tag, String attribute, Document document) {
+    public static void write(Billboard billboard, Writer out) throws Exception {
+        boolean hasMessage = billboard.message != null && !billboard.message.isEmpty();
+        boolean hasPicture = billboard.picture != null && !billboard.picture.isEmpty();
+        boolean hasInformation = billboard.information != null && !billboard.information.isBlank();
+
+        // Written directly, as the stream writer has no way to declare the document standalone="no".
+        out.write(DECLARATION);
+
+        XMLStreamWriter writer = OUTPUT.get().createXMLStreamWriter(out);
         try {
-            return document.getElementsByTagName(tag).item(0).getAttributes().getNamedItem(attribute).getNodeValue();
-        } catch (Exception e) {
-            return null;
+            // root element
+            if (hasMessage || hasPicture || hasInformation) writer.writeStartElement("billboard");
+            else writer.writeEmptyElement("billboard");
+            attribute(writer, "background", billboard.backgroundColor);
+
+            if (hasMessage) {
+                writer.writeStartElement("message");
+                attribute(writer, "colour", billboard.messageColor);
+                writer.writeCharacters(billboard.message);
+                writer.writeEndElement();
+            }
+
+            if (hasPicture) {
+                writer.writeEmptyElement("picture");
+                attribute(writer, "data", billboard.picture);
+            }
+
+            if (hasInformation) {
+                writer.writeStartElement("information");
+                attribute(writer, "colour", billboard.informationColor);
+                writer.writeCharacters(billboard.information);
+                writer.writeEndElement();
+            }
+
+            writer.writeEndDocument();
+            writer.flush();
+        } finally {
+            writer.close();
         }
     }
+
+    /**
+     * Writes an attribute, leaving it out when there is no value as the DOM did.
+     */
+    private static void attribute(XMLStreamWriter writer, String name, String value) throws XMLStreamException {
+        if (value != null) writer.writeAttribute(name, value);
+    }
 }
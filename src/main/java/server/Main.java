@@ -6,11 +6,16 @@ import common.utils.session.HashingFactory;
 import common.utils.Props;
 import server.controllers.*;
 import server.middleware.*;
+import server.services.ImageService;
+import server.services.LogService;
+import server.services.MetricsService;
 import server.services.RouterService;
 import common.sql.CollectionFactory;
+import common.sql.Query;
 
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.net.SocketException;
 import java.util.Properties;
 
 /**
@@ -43,17 +48,48 @@ public class Main {
             throw new Exception("Server Port was not specified in the network.props file!");
         }
 
+        // Log requests at the configured level, sampling successful requests
+        LogService.getInstance().configure(
+            LogService.Level.valueOf(props.getProperty("server.log.level", "INFO").trim().toUpperCase()),
+            Double.parseDouble(props.getProperty("server.log.requestSampleRate", "1").trim()));
+
+        // Periodically dump the route metrics to the console, 0 disables it
+        String metricsInterval = props.getProperty("server.metrics.interval", "0");
+        MetricsService.getInstance().startReporter(Long.parseLong(metricsInterval.trim()));
+
+        // Pictures are stored scaled down to the largest display resolution
+        ImageService.getInstance().configure(
+            Integer.parseInt(props.getProperty("server.picture.maxWidth", String.valueOf(ImageService.MAX_WIDTH)).trim()),
+            Integer.parseInt(props.getProperty("server.picture.maxHeight", String.valueOf(ImageService.MAX_HEIGHT)).trim()));
+
         // Open the socket
         System.out.println("Opening Server on port " + port + "...");
         int portNum = Integer.parseInt(port);
         ServerSocket ss = new ServerSocket(portNum);
         System.out.println("Sever available at " + ss.getLocalSocketAddress());
 
+        listen(ss);
+    }
+
+    /**
+     * This function accepts connections on the server socket until it is closed, handling each on its own thread.
+     *
+     * @param ss The bound server socket.
+     * @throws Exception Pass through the socket error.
+     */
+    public static void listen(ServerSocket ss) throws Exception {
         // Loop through constantly looking for connections
-        while (true) {
+        while (!ss.isClosed()) {
             // When a connection is found accept it and create a thread for it
-            Socket s = ss.accept();
-            System.out.println("A request attempt has been made from " + s.getInetAddress());
+            Socket s;
+            try {
+                s = ss.accept();
+            } catch (SocketException e) {
+                // The socket was closed while waiting, stop listening
+                if (ss.isClosed()) return;
+                throw e;
+            }
+            LogService.getInstance().debug("connection.accepted", "client", s.getInetAddress());
             new Thread(new SocketHandler(s)).start();
         }
     }
@@ -64,15 +100,12 @@ public class Main {
      */
     public static void initDatabase() throws Exception {
         // Connect and populate the database
-        CollectionFactory.getInstance(Billboard.class);
-        CollectionFactory.getInstance(User.class);
-        CollectionFactory.getInstance(Schedule.class);
-        CollectionFactory.getInstance(Permissions.class);
+        CollectionFactory.register(Billboard.class, User.class, Schedule.class, Permissions.class);
 
         // Insert admin user( u:admin-p:admin)
-        int adminExists = CollectionFactory.getInstance(User.class).get(user -> user.username.equals("admin")).size();
+        boolean adminExists = CollectionFactory.getInstance(User.class).exists(Query.where("username", "admin"));
 
-        if (adminExists == 0) {
+        if (!adminExists) {
             User u = new User("admin", HashingFactory.hashPassword("admin"), null);
             Permissions p = new Permissions(u.username, true, true, true, true);
             UserPermissions up = new UserPermissions(u, p);
@@ -83,32 +116,45 @@ public class Main {
 
     /**
      * This function initialises the router for the application.
+     * Actions are stateless, so each one is constructed once here and shared by every request on the route.
      */
     public static void initRouter() {
         // ADD THE ROUTER
-        RouterService.getInstance().SET_AUTH(Authentication.Authenticate.class)
-            .ADD("/login", UserController.Login.class)
-            .ADD("/logout", UserController.Logout.class)
+        RouterService.getInstance().SET_AUTH(new Authentication.Authenticate())
+            .ADD("/login", new UserController.Login())
+            .ADD("/logout", new UserController.Logout())
             // Add Billboard actions to router
-            .ADD_AUTH("/billboard/get", BillboardController.Get.class)
-            //.ADD_AUTH("/billboard/get/lock", BillboardController.GetByLock.class)
-            .ADD_AUTH("/billboard/get/name", BillboardController.GetByName.class)
-            .ADD_AUTH("/billboard/insert", Permission.canCreateBillboard.class, BillboardController.Insert.class)
-            .ADD_AUTH("/billboard/update", Permission.canEditBillboard.class, BillboardController.Update.class)
-            .ADD_AUTH("/billboard/delete", Permission.canDeleteBillboard.class, BillboardController.Delete.class)
+            .ADD_AUTH("/billboard/get", new BillboardController.Get())
+            //.ADD_AUTH("/billboard/get/lock", new BillboardController.GetByLock())
+            .ADD_AUTH("/billboard/get/name", new BillboardController.GetByName())
+            .ADD_AUTH("/billboard/changes", new BillboardController.GetChanges())
+            .ADD_AUTH("/billboard/insert", new Permission.canCreateBillboard(), new BillboardController.Insert())
+            .ADD_AUTH("/billboard/update", new Permission.canEditBillboard(), new BillboardController.Update())
+            .ADD_AUTH("/billboard/patch", new Permission.canPatchBillboard(), new BillboardController.PartialUpdate())
+            .ADD_AUTH("/billboard/picture/upload", new Permission.canUploadPicture(), new BillboardController.UploadPicture())
+            .ADD_AUTH("/billboard/picture/download", new BillboardController.DownloadPicture())
+            .ADD_AUTH("/billboard/delete", new Permission.canDeleteBillboard(), new BillboardController.Delete())
+            .ADD_AUTH("/billboard/export", new BillboardController.Export())
+            .ADD_AUTH("/billboard/import", new Permission.canCreateBillboard(), new BillboardController.Import())
             // Add UserPermissions actions to router
-            .ADD_AUTH("/userpermissions/insert", Permission.canEditUser.class, UserPermissionsController.Insert.class)
+            .ADD_AUTH("/userpermissions/insert", new Permission.canEditUser(), new UserPermissionsController.Insert())
             // Add User actions to router
-            .ADD_AUTH("/user/update/password", Permission.canChangePassword.class, UserController.UpdatePassword.class)
-            .ADD_AUTH("/user/delete", Permission.canDeleteUser.class, UserController.Delete.class)
+            .ADD_AUTH("/user/update/password", new Permission.canChangePassword(), new UserController.UpdatePassword())
+            .ADD_AUTH("/user/delete", new Permission.canDeleteUser(), new UserController.Delete())
             // Add Schedule actions to router
-            .ADD_AUTH("/schedule/get", Permission.canScheduleBillboard.class, ScheduleController.Get.class)
-            .ADD("/schedule/get/current", ScheduleController.GetCurrent.class)
-            .ADD_AUTH("/schedule/insert", Permission.canScheduleBillboard.class, ScheduleController.Insert.class)
-            .ADD_AUTH("/schedule/delete", Permission.canScheduleBillboard.class, ScheduleController.Delete.class)
+            .ADD_AUTH("/schedule/get", new Permission.canScheduleBillboard(), new ScheduleController.Get())
+            .ADD("/schedule/get/current", new ScheduleController.GetCurrent())
+            .ADD_AUTH("/schedule/changes", new Permission.canScheduleBillboard(), new ScheduleController.GetChanges())
+            .ADD_AUTH("/schedule/insert", new Permission.canScheduleBillboard(), new ScheduleController.Insert())
+            .ADD_AUTH("/schedule/delete", new Permission.canScheduleBillboard(), new ScheduleController.Delete())
             //Add Permission actions to router
-            .ADD_AUTH("/permission/get", Permission.canEditUser.class, PermissionController.Get.class)
-            .ADD_AUTH("/permission/get/username", Permission.canViewPermission.class, PermissionController.GetByUsername.class)
-            .ADD_AUTH("/permission/update", Permission.canEditUser.class, PermissionController.Update.class);
+            .ADD_AUTH("/permission/get", new Permission.canEditUser(), new PermissionController.Get())
+            .ADD_AUTH("/permission/get/username", new Permission.canViewPermission(), new PermissionController.GetByUsername())
+            .ADD_AUTH("/permission/update", new Permission.canEditUser(), new PermissionController.Update())
+            // Add batch actions to router
+            .ADD_AUTH(BatchController.PATH, new BatchController.Execute())
+            // Add admin actions to router
+            .ADD_AUTH("/admin/metrics", new Permission.canEditUser(), new MetricsController.Get())
+            .ADD_AUTH("/admin/metrics/cache", new Permission.canEditUser(), new MetricsController.GetCaches());
     }
 }
@@ -6,6 +6,8 @@ import common.router.response.*;
 import common.router.Action;
 import common.utils.session.Session;
 import common.router.response.InternalError;
+import server.services.LogService;
+import server.services.MetricsService;
 import server.services.TokenService;
 import common.sql.CollectionFactory;
 
@@ -14,14 +16,48 @@ import java.util.Optional;
 
 public class RouteHandler {
 
+    // Display names of the actions for the metrics, ie: BillboardController.Get, computed once per class.
+    private static final ClassValue<String> ACTION_NAMES = new ClassValue<>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            String name = type.getName();
+            return name.substring(name.lastIndexOf('.') + 1).replace('$', '.');
+        }
+    };
+
     /**
      * Routes a given request and returns the result.
      * All exceptions inside the actions are handled here and returned to the client.
+     * The request count, status and latency of the path, and of each action in its chain, are recorded.
      *
      * @param r The Request class.
+     * @param actions The pre-built Actions for the requested path, in the order they should be performed.
      * @return IActionResult The result from performing the given actions.
      */
-    public static Response execute(Request r, List<Class<? extends Action>> actions) throws Exception {
+    public static Response execute(Request r, List<Action> actions) throws Exception {
+        // Unknown paths share a single entry so clients can't grow the metrics without bound.
+        String path = actions == null ? MetricsService.UNROUTED : r.path;
+        long start = System.nanoTime();
+        Response result = null;
+
+        try {
+            result = dispatch(r, path, actions);
+            return result;
+        } finally {
+            Status status = result == null ? Status.INTERNAL_SERVER_ERROR : result.status;
+            MetricsService.getInstance().record(path, status, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Authenticates the request and performs each action in the chain.
+     *
+     * @param r The Request class.
+     * @param path The path the metrics are recorded against.
+     * @param actions The pre-built Actions for the requested path.
+     * @return IActionResult The result from performing the given actions.
+     */
+    private static Response dispatch(Request r, String path, List<Action> actions) throws Exception {
         // If there's no actions return NotFound.
         if (actions == null) return new NotFound("No path requests were specified.");
 
@@ -33,13 +69,47 @@ public class RouteHandler {
             Optional<Session> session = TokenService.getInstance().getSessionByToken(r.token);
             if (session.isEmpty()) return new BadRequest("Invalid token, session not found.");
 
-            Optional<Permissions> perms = CollectionFactory.getInstance(Permissions.class).get(p -> p.username.equals(session.get().username)).stream().findFirst();
+            Optional<Permissions> perms = CollectionFactory.getInstance(Permissions.class).find("username", session.get().username);
             if (perms.isEmpty()) return new BadRequest("No permissions found for your user. Contact an administrator.");
 
             r.session = session.get();
             r.permissions = perms.get();
         }
 
+        return perform(r, path, actions);
+    }
+
+    /**
+     * Performs the actions of a request that has already been authenticated, ie: a request inside a batch.
+     * The session and permissions of the request are trusted as given.
+     *
+     * @param r The Request class.
+     * @param actions The Actions for the requested path, without the authentication action.
+     * @return IActionResult The result from performing the given actions.
+     */
+    public static Response executeAuthenticated(Request r, List<Action> actions) {
+        String path = actions == null ? MetricsService.UNROUTED : r.path;
+        long start = System.nanoTime();
+        Response result = null;
+
+        try {
+            result = actions == null ? new NotFound("No path requests were specified.") : perform(r, path, actions);
+            return result;
+        } finally {
+            Status status = result == null ? Status.INTERNAL_SERVER_ERROR : result.status;
+            MetricsService.getInstance().record(path, status, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Performs each action in the chain.
+     *
+     * @param r The Request class.
+     * @param path The path the metrics are recorded against.
+     * @param actions The Actions for the requested path.
+     * @return IActionResult The result from performing the given actions.
+     */
+    private static Response perform(Request r, String path, List<Action> actions) {
         // Initialise the return object
         Response result = null;
 
@@ -49,27 +119,24 @@ public class RouteHandler {
             if (action == null) return new NotFound("A path request was null.");
 
             // Try and execute the action
+            long start = System.nanoTime();
             try {
                 // Execute the action
-                result = action.getDeclaredConstructor().newInstance().execute(r);
+                result = action.execute(r);
 
                 // When Actions are chained, if they don't return a success the loop stops and returns the given result.
                 if (result.status != Status.SUCCESS) {
                     break;
                 }
             } catch (Exception e) {
-                // If an internal error occurs display it on the server console with contextual information and a stacktrace.
-                System.out.println("User from " + r.ip + " has requested " + r.path + " which failed internally.");
-                System.out.println("User requested with the parameters: " + r.params + ".");
-                System.out.println("User requested with the token: " + r.token + ".");
-                System.out.println("User requested with the body: " + r.body + ".");
-                //System.out.println("User requested with server injected permissions: " + r.permissions + ".");
-                //System.out.println("User requested with server injected session data: " + r.session + ".");
-                System.out.println("The request error stacktrace will now print: ");
-                e.printStackTrace();
+                // If an internal error occurs log it with contextual information and a stacktrace, without the token or param values.
+                LogService.getInstance().error("action.failed", e, "path", r.path, "action", ACTION_NAMES.get(action.getClass()),
+                    "client", r.ip, "params", r.params == null ? null : r.params.keySet().toString(), "body", r.body == null ? null : r.body.getClass().getSimpleName());
 
                 // Return Internal Error with generic message for the client.
                 return new InternalError("Internal System Error Occurred. Contact system administrator, if issue persists.");
+            } finally {
+                MetricsService.getInstance().recordAction(path, ACTION_NAMES.get(action.getClass()), System.nanoTime() - start);
             }
         }
 
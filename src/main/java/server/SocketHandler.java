@@ -2,94 +2,155 @@ package server;
 
 import java.io.*;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
 import java.util.List;
 
+import common.router.Compressed;
 import common.router.Request;
 import common.router.response.BadRequest;
+import common.router.response.Status;
 import common.router.Response;
 import common.router.Action;
+import server.services.LogService;
 import server.services.RouterService;
 
 /**
  * This class handles the how the server responds to the clients request.
+ * A connection is kept open for more requests until the client closes it or it is idle for too long.
  *
  * @author Perdana Bailey
  * @author Jamie Martin
  */
 public class SocketHandler implements Runnable {
 
+    /**
+     * How long in milliseconds an open connection may wait for its next request before it is closed.
+     */
+    public static final int IDLE_TIMEOUT = 30000;
+
     // Used for getting the relevant streams and closing the socket when finished.
     private Socket client;
+    private final int idleTimeout;
+
+    // The streams of the connection, kept for every request on it.
+    private ObjectOutputStream socketOut;
+
     /**
      * The SocketHandler Constructor.
      *
      * @param client This is the socket connection from the client.
      */
     public SocketHandler(Socket client) {
+        this(client, IDLE_TIMEOUT);
+    }
+
+    /**
+     * The SocketHandler Constructor with a custom idle timeout.
+     *
+     * @param client This is the socket connection from the client.
+     * @param idleTimeout How long in milliseconds to wait for the next request before closing the connection.
+     */
+    public SocketHandler(Socket client, int idleTimeout) {
         this.client = client;
+        this.idleTimeout = idleTimeout;
     }
 
     /**
      * This is the function that runs on the server as the clients thread.
      */
     public void run() {
-        // Initialise the Object Input stream
-        ObjectInputStream ois = null;
-
-        // Attempt to populate the Object Input Stream with the InputStream from the client
         try {
-            ois = new ObjectInputStream(this.client.getInputStream());
+            this.client.setSoTimeout(idleTimeout);
+
+            // Send the stream header first, so the client can open its input stream before its first request.
+            socketOut = new ObjectOutputStream(this.client.getOutputStream());
+            socketOut.flush();
+
+            ObjectInputStream ois = new ObjectInputStream(this.client.getInputStream());
+
+            // Answer requests until the client closes the connection or leaves it idle.
+            while (handle(ois)) { }
+        } catch (EOFException | SocketTimeoutException e) {
+            // The client closed the connection or left it idle.
         } catch (Exception e) {
-            e.printStackTrace();
+            LogService.getInstance().error("connection.failed", e, "client", client.getInetAddress());
+        }
+
+        // Close the connection as it is no longer needed
+        try {
+            this.client.close();
+        } catch (IOException e) {
+            LogService.getInstance().error("connection.close", e, "client", client.getInetAddress());
         }
+    }
 
+    /**
+     * Reads a single request from the connection and replies to it.
+     *
+     * @param ois The input stream of the connection.
+     * @return Whether the connection can be used for another request.
+     * @throws IOException Thrown when the connection is closed, idle or broken.
+     */
+    private boolean handle(ObjectInputStream ois) throws IOException {
         // Attempt to read the object input and reply with the correct information
+        Object o;
+        try {
+            o = ois.readObject();
+        } catch (ClassNotFoundException | ObjectStreamException e) {
+            // The rest of the stream can't be trusted after a bad object
+            LogService.getInstance().error("request.unreadable", e, "client", client.getInetAddress());
+            replyClient(new BadRequest("Invalid request."), false);
+            return false;
+        }
+
+        long start = System.nanoTime();
+        String path = null;
+        Response res;
+        boolean compress = false;
         try {
-            Object o = ois.readObject();
             // cast the object to a request
             Request req = (Request) o;
-            System.out.println("On path: " + req.path);
+            path = req.path;
+            compress = req.acceptCompressed;
             // assign the IP of the client to the request
             req.ip = client.getLocalAddress().toString();
 
             // use the router to try and find a response
-            List<Class<? extends Action>> actions = RouterService.getInstance().route(req.path);
+            List<Action> actions = RouterService.getInstance().route(req.path);
             // execute the request for the result
-            Response res = RouteHandler.execute(req, actions);
-
-            // send the response
-            replyClient(res);
-
+            res = RouteHandler.execute(req, actions);
         } catch (Exception e) {
-            // Print an error if reading the objects fail
-            e.printStackTrace();
-            replyClient(new BadRequest("Invalid request."));
+            // Log an error if handling the request fails
+            LogService.getInstance().error("request.failed", e, "path", path, "client", client.getInetAddress());
+            res = new BadRequest("Invalid request.");
+            compress = false;
         }
 
-        // Close the connection as it is no longer needed
-        try {
-            this.client.close();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        // send the response, compressed if it is large and the client can read it
+        boolean sent = replyClient(res, compress);
+        LogService.getInstance().request(path, sent && res != null ? res.status : Status.INTERNAL_SERVER_ERROR, System.nanoTime() - start, client.getInetAddress());
+        return sent;
     }
 
     /**
      * This is a helper function to make replying to client easier.
      *
      * @param resp This is the response that will be sent to the client.
+     * @param compress Whether the response may be sent compressed.
+     * @return Whether the response was sent.
      */
-    private void replyClient(Response resp) {
+    private boolean replyClient(Response resp, boolean compress) {
 
         // Attempt to send the response
         try {
-            // Open an object output stream based on the output stream of the client socket and write the response then flush it
-            ObjectOutputStream socketOut = new ObjectOutputStream(this.client.getOutputStream());
-            socketOut.writeObject(resp);
+            socketOut.writeObject(compress ? Compressed.wrap(resp) : resp);
+            // Forget the sent objects, so the next response is written in full rather than as references.
+            socketOut.reset();
             socketOut.flush();
-            System.out.println("Responded to " + this.client.getInetAddress());
+            return true;
         } catch (Exception e) {
-            System.out.println("Failed to respond to " + this.client.getInetAddress());
+            LogService.getInstance().warn("response.failed", "client", client.getInetAddress(), "error", e);
+            return false;
         }
     }
 }
@@ -0,0 +1,109 @@
+package server.controllers;
+
+import common.router.*;
+import common.router.Response;
+import common.router.response.BadRequest;
+import common.router.response.Ok;
+import common.router.response.Status;
+import common.router.response.UnsupportedType;
+import common.sql.Collection;
+import server.RouteHandler;
+import server.services.RouterService;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class acts as the controller with all the Actions related to the batch request path.
+ */
+public class BatchController {
+
+    /**
+     * The path batches are routed on, batches can't contain this path.
+     */
+    public static final String PATH = "/batch";
+
+    /**
+     * The most requests a single batch may contain.
+     */
+    public static final int MAX_REQUESTS = 1000;
+
+    /**
+     * This Action performs a list of requests in order within a single database transaction.
+     * The batch is authenticated once, each request still runs its own permission checks.
+     * The first request that doesn't succeed rolls back the whole batch.
+     */
+    public static class Execute extends Action {
+        // Generic Execute action constructor.
+        public Execute() { }
+
+        // Override the execute to perform each request in the body.
+        @Override
+        public Response execute(Request req) throws Exception {
+            // Return an error on incorrect body type.
+            if (!(req.body instanceof List)) return new UnsupportedType(List.class);
+
+            List<?> requests = (List<?>) req.body;
+            if (requests.size() > MAX_REQUESTS) return new BadRequest("A batch must not contain more than " + MAX_REQUESTS + " requests.");
+            for (Object o : requests) {
+                if (!(o instanceof Request)) return new UnsupportedType(Request.class);
+                if (PATH.equals(((Request) o).path)) return new BadRequest("Batches cannot be nested.");
+            }
+
+            ArrayList<Response> responses = new ArrayList<>();
+
+            try {
+                Collection.transaction(() -> {
+                    for (Object o : requests) {
+                        Response res = perform(req, (Request) o);
+                        responses.add(res);
+
+                        // Throwing rolls back the transaction.
+                        if (res.status != Status.SUCCESS) throw new Aborted();
+                    }
+                    return null;
+                });
+            } catch (Aborted e) {
+                Response failed = responses.get(responses.size() - 1);
+                return new Response(failed.status, "Batch request " + responses.size() + " failed, no changes were made: " + failed.message, responses);
+            }
+
+            // Return a success IActionResult with the response of every request.
+            return new Ok(responses);
+        }
+
+        /**
+         * Performs a single request of the batch with the batch's authentication.
+         *
+         * @param batch The batch request.
+         * @param req The request inside the batch.
+         * @return The result of the request.
+         */
+        private static Response perform(Request batch, Request req) {
+            // The client can't inject session information, it always comes from the batch.
+            req.token = batch.token;
+            req.ip = batch.ip;
+            req.session = batch.session;
+            req.permissions = batch.permissions;
+
+            List<Action> actions = RouterService.getInstance().route(req.path);
+            if (actions == null) return RouteHandler.executeAuthenticated(req, null);
+
+            // The batch was already authenticated, so skip authenticating each request.
+            Action authenticate = RouterService.getInstance().getAuthenticatedAction();
+            List<Action> chain = new ArrayList<>(actions);
+            if (!chain.isEmpty() && chain.get(0) == authenticate) chain.remove(0);
+
+            return RouteHandler.executeAuthenticated(req, chain);
+        }
+    }
+
+    /**
+     * Thrown inside the transaction to roll back a batch when one of its requests fails.
+     */
+    private static class Aborted extends Exception {
+        private Aborted() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -4,12 +4,24 @@ import common.models.Billboard;
 import common.models.Schedule;
 import common.router.*;
 import common.router.response.BadRequest;
+import common.router.response.Conflict;
 import common.router.Response;
 import common.router.response.Ok;
 import common.router.response.UnsupportedType;
+import common.sql.Collection;
 import common.sql.CollectionFactory;
-
+import common.sql.Patch;
+import common.sql.Query;
+import common.utils.PictureChunk;
+import server.services.ArchiveService;
+import server.services.ImageService;
+import server.services.PictureService;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * This class acts as the controller with all the Actions related to the billboard request path.
@@ -30,6 +42,9 @@ public class BillboardController {
         // Override the execute to run the get function of the billboard collection.
         @Override
         public Response execute(Request req) throws Exception {
+            // Return a single page when one is asked for, sorted by name by default.
+            if (Paging.requested(req)) return Paging.page(req, Billboard.class, "name", "id");
+
             // Get list of all billboards.
             List<Billboard> billboardList = CollectionFactory.getInstance(Billboard.class).get(billboard -> true);
 
@@ -38,6 +53,20 @@ public class BillboardController {
         }
     }
 
+    /**
+     * This Action is the GetChanges Action for the billboards, for a client to update the billboards it has loaded.
+     */
+    public static class GetChanges extends Action {
+        public GetChanges() {
+        }
+
+        // Override the execute to run the changes function of the billboard collection.
+        @Override
+        public Response execute(Request req) throws Exception {
+            return Paging.changes(req, Billboard.class);
+        }
+    }
+
     /**
      * This Action is the GetById Action for the billboards.
      */
@@ -81,11 +110,6 @@ public class BillboardController {
             Billboard b = (Billboard) req.body;
             if (b.name == null) return new BadRequest("Billboard name not nullable");
             if (b.name.length() <1) return new BadRequest("Billboard name must not be empty.");
-            List<Billboard> billboardList = CollectionFactory.getInstance(Billboard.class).get(
-                billboard -> b.name.equals(String.valueOf(billboard.name)));
-
-            if (!billboardList.isEmpty()) return new BadRequest("Billboard name already exists.");
-
             // Set default values
             b.messageColor = b.messageColor == null ? "#000000" : b.messageColor;
             b.informationColor = b.informationColor == null ? "#000000" : b.informationColor;
@@ -93,12 +117,59 @@ public class BillboardController {
 
             b.userId = req.session.userId;
 
-            // Attempt to insert the billboard into the database then return a success IActionResult.
-            CollectionFactory.getInstance(Billboard.class).insert((Billboard) req.body);
+            // Store the picture at display resolution, so it is only decoded and scaled once.
+            try {
+                b.picture = ImageService.getInstance().normalise(b.picture);
+            } catch (IllegalArgumentException e) {
+                return new BadRequest(e.getMessage());
+            }
+
+            // Attempt to insert the billboard into the database unless the name is taken, then return a success IActionResult.
+            if (!CollectionFactory.getInstance(Billboard.class).insertIfAbsent(b, "name"))
+                return new BadRequest("Billboard name already exists.");
             return new Ok();
         }
     }
 
+    /**
+     * This Action is the partial Update Action for the billboards, only the changed columns are written.
+     */
+    public static class PartialUpdate extends Action {
+        // Generic PartialUpdate action constructor.
+        public PartialUpdate() { }
+
+        // Override the execute to run the patch function of the billboard collection.
+        @Override
+        public Response execute(Request req) throws Exception {
+            // Return an error on incorrect body type.
+            if (!(req.body instanceof Patch)) return new UnsupportedType(Patch.class);
+            Patch patch = (Patch) req.body;
+
+            // A rename must not take another billboard's name.
+            if (patch.changes.containsKey("name")) {
+                Object name = patch.changes.get("name");
+                if (!(name instanceof String) || ((String) name).length() < 1) return new BadRequest("Billboard name must not be empty.");
+
+                Optional<Billboard> existing = CollectionFactory.getInstance(Billboard.class).find("name", name);
+                if (existing.isPresent() && existing.get().id != patch.id) return new BadRequest("Billboard name already exists.");
+            }
+
+            // Attempt to patch the billboard in the database, unless someone else changed it since the client read it.
+            try {
+                if (patch.changes.get("picture") instanceof String)
+                    patch.changes.put("picture", ImageService.getInstance().normalise((String) patch.changes.get("picture")));
+
+                if (!CollectionFactory.getInstance(Billboard.class).patch(patch))
+                    return new Conflict("Billboard was changed or deleted by someone else, refresh and try again.");
+            } catch (IllegalArgumentException e) {
+                return new BadRequest(e.getMessage());
+            }
+
+            // Return a success IActionResult with the new version, so the client can update it again without a refresh.
+            return new Ok(patch.version);
+        }
+    }
+
     /**
      * This Action is the Update Action for the billboards.
      */
@@ -122,9 +193,129 @@ public class BillboardController {
                 }
             }
 
-            // Attempt to update the billboard in the database then return a success IActionResult.
-            CollectionFactory.getInstance(Billboard.class).update((Billboard) req.body);
-            return new Ok();
+            // Attempt to update the billboard in the database, unless someone else changed it since the client read it.
+            Billboard b = (Billboard) req.body;
+            try {
+                b.picture = ImageService.getInstance().normalise(b.picture);
+            } catch (IllegalArgumentException e) {
+                return new BadRequest(e.getMessage());
+            }
+            if (!CollectionFactory.getInstance(Billboard.class).update(b))
+                return new Conflict("Billboard was changed or deleted by someone else, refresh and try again.");
+
+            // Return a success IActionResult with the new version, so the client can update it again without a refresh.
+            return new Ok(b.version);
+        }
+    }
+
+    /**
+     * This Action is the UploadPicture Action for the billboards, it stages one chunk of a new picture and replaces
+     * the billboard's picture when the last chunk arrives.
+     */
+    public static class UploadPicture extends Action {
+        public UploadPicture() {
+        }
+
+        // Override the execute to stage the chunk with the picture service.
+        @Override
+        public Response execute(Request req) throws Exception {
+            if (!(req.body instanceof PictureChunk)) return new UnsupportedType(PictureChunk.class);
+            PictureChunk chunk = (PictureChunk) req.body;
+
+            String uploadId;
+            try {
+                uploadId = PictureService.getInstance().append(chunk);
+            } catch (IllegalArgumentException e) {
+                return new BadRequest(e.getMessage());
+            }
+
+            // Return the upload id so the client can send the next chunk.
+            if (!chunk.last) return new Ok(uploadId);
+
+            boolean replaced;
+            try {
+                replaced = PictureService.getInstance().finish(uploadId, chunk.billboardName, chunk.version);
+            } catch (IllegalArgumentException e) {
+                return new BadRequest(e.getMessage());
+            }
+
+            if (!replaced)
+                return new Conflict("Billboard was changed or deleted by someone else, refresh and try again.");
+
+            // Return a success IActionResult with the new version.
+            return new Ok(chunk.version + 1);
+        }
+    }
+
+    /**
+     * This Action is the DownloadPicture Action for the billboards, it returns one chunk of a billboard's picture.
+     */
+    public static class DownloadPicture extends Action {
+        public DownloadPicture() {
+        }
+
+        // Override the execute to read the chunk with the picture service.
+        @Override
+        public Response execute(Request req) throws Exception {
+            if (req.params == null || req.params.get(PictureChunk.NAME) == null) return new BadRequest("Must specify a billboard name.");
+
+            long offset;
+            try {
+                offset = Long.parseLong(req.params.getOrDefault(PictureChunk.OFFSET, "0"));
+            } catch (NumberFormatException e) {
+                return new BadRequest("Parameter offset must be an integer.");
+            }
+            if (offset < 0) return new BadRequest("Parameter offset can't be negative.");
+
+            PictureChunk chunk = PictureService.getInstance().read(req.params.get(PictureChunk.NAME), offset);
+            if (chunk == null) return new BadRequest("Billboard does not exist.");
+
+            // Return a success IActionResult with the chunk.
+            return new Ok(chunk);
+        }
+    }
+
+    /**
+     * This Action is the Export Action for the billboards, it returns every billboard as a zip archive of XML files.
+     */
+    public static class Export extends Action {
+        public Export() {
+        }
+
+        // Override the execute to write the archive with the archive service.
+        @Override
+        public Response execute(Request req) throws Exception {
+            ByteArrayOutputStream archive = new ByteArrayOutputStream();
+            try {
+                ArchiveService.getInstance().export(archive);
+            } catch (IOException e) {
+                return new BadRequest("Unable to export: " + e.getMessage());
+            }
+
+            // Return a success IActionResult with the archive.
+            return new Ok(archive.toByteArray());
+        }
+    }
+
+    /**
+     * This Action is the Import Action for the billboards, it creates a billboard for every XML file in a zip archive.
+     */
+    public static class Import extends Action {
+        public Import() {
+        }
+
+        // Override the execute to read the archive with the archive service.
+        @Override
+        public Response execute(Request req) throws Exception {
+            // Return an error on incorrect body type.
+            if (!(req.body instanceof byte[])) return new UnsupportedType(byte[].class);
+
+            try {
+                // Return a success IActionResult with how many were imported and why any files weren't.
+                return new Ok(ArchiveService.getInstance().importArchive(new ByteArrayInputStream((byte[]) req.body), req.session.userId));
+            } catch (IOException e) {
+                return new BadRequest("Invalid archive: " + e.getMessage());
+            }
         }
     }
 
@@ -146,24 +337,23 @@ public class BillboardController {
             if (bName == null) return new UnsupportedType(String.class);
             if (bName.length() < 1) return new BadRequest("Billboard name must not be empty.");
 
-            List<Billboard> bbList = CollectionFactory.getInstance(Billboard.class).get(b -> b.name.equals(bName));
-
-            if (bbList.isEmpty()) return new BadRequest("Billboard doesn't exist");
+            // Delete the schedules and then the billboard as a single unit of work.
+            return Collection.transaction(() -> {
+                List<Billboard> bbList = CollectionFactory.getInstance(Billboard.class).get(b -> b.name.equals(bName));
 
-            Billboard toDelete = bbList.get(0);
+                if (bbList.isEmpty()) return new BadRequest("Billboard doesn't exist");
 
-            if (toDelete.locked)
-            {
-                List<Schedule> scheduleList = CollectionFactory.getInstance(Schedule.class).get(schedule -> toDelete.name.equals(schedule.billboardName));
+                Billboard toDelete = bbList.get(0);
 
-                for (var schedule: scheduleList) {
-                    CollectionFactory.getInstance(Schedule.class).delete(schedule);
+                if (toDelete.locked)
+                {
+                    CollectionFactory.getInstance(Schedule.class).deleteWhere(Query.where("billboardName", toDelete.name));
                 }
-            }
 
-            // Attempt to delete the billboard in the database then return a success IActionResult
-            CollectionFactory.getInstance(Billboard.class).delete(toDelete);
-            return new Ok();
+                // Attempt to delete the billboard in the database then return a success IActionResult
+                CollectionFactory.getInstance(Billboard.class).delete(toDelete);
+                return new Ok();
+            });
         }
     }
 }
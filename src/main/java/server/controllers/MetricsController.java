@@ -0,0 +1,42 @@
+package server.controllers;
+
+import common.router.*;
+import common.router.Response;
+import common.router.response.Ok;
+import server.services.MetricsService;
+
+/**
+ * This class acts as the controller with all the Actions related to the server metrics request path.
+ */
+public class MetricsController {
+
+    /**
+     * This Action is the get all Action for the route metrics.
+     */
+    public static class Get extends Action {
+        // Generic Get action constructor.
+        public Get() { }
+
+        // Override the execute to return a snapshot of the route metrics.
+        @Override
+        public Response execute(Request req) throws Exception {
+            // Return a success IActionResult with the statistics of every route.
+            return new Ok(MetricsService.getInstance().snapshot());
+        }
+    }
+
+    /**
+     * This Action is the get all Action for the entity cache statistics.
+     */
+    public static class GetCaches extends Action {
+        // Generic Get action constructor.
+        public GetCaches() { }
+
+        // Override the execute to return a snapshot of the entity cache statistics.
+        @Override
+        public Response execute(Request req) throws Exception {
+            // Return a success IActionResult with the statistics of every entity cache.
+            return new Ok(MetricsService.getInstance().cacheSnapshot());
+        }
+    }
+}
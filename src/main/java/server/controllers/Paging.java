@@ -0,0 +1,85 @@
+package server.controllers;
+
+import common.router.Request;
+import common.router.Response;
+import common.router.response.BadRequest;
+import common.router.response.Ok;
+import common.sql.CollectionFactory;
+import common.sql.Delta;
+import common.sql.Page;
+
+import java.util.Arrays;
+
+/**
+ * This class handles the keyset pagination and change parameters shared by the listing Actions.
+ */
+class Paging {
+
+    /**
+     * The most items a single page may contain.
+     */
+    static final int MAX_LIMIT = 500;
+
+    /**
+     * Checks if the request asked for a page rather than the whole listing.
+     *
+     * @param req The request.
+     * @return Whether the request has a limit parameter.
+     */
+    static boolean requested(Request req) {
+        return req.params != null && req.params.containsKey(Page.LIMIT);
+    }
+
+    /**
+     * Gets the page of items described by the request parameters.
+     *
+     * @param req The request with the limit, and optionally the sort, after and afterId parameters.
+     * @param className The class of the items.
+     * @param sorts The columns the items may be sorted by, the first is the default. They must not contain NULLs.
+     * @param <T> The type of the items.
+     * @return IActionResult A success with the page, or a bad request if the parameters are invalid.
+     * @throws Exception Pass through the server error.
+     */
+    static <T> Response page(Request req, Class<T> className, String... sorts) throws Exception {
+        String sort = req.params.getOrDefault(Page.SORT, sorts[0]);
+        if (!Arrays.asList(sorts).contains(sort)) return new BadRequest("Can only sort by: " + String.join(", ", sorts) + ".");
+
+        int limit;
+        Integer afterId = null;
+        try {
+            limit = Integer.parseInt(req.params.get(Page.LIMIT));
+            if (req.params.get(Page.AFTER_ID) != null) afterId = Integer.parseInt(req.params.get(Page.AFTER_ID));
+        } catch (NumberFormatException e) {
+            return new BadRequest("Parameters limit and afterId must be integers.");
+        }
+
+        if (limit < 1 || limit > MAX_LIMIT) return new BadRequest("Parameter limit must be between 1 - " + MAX_LIMIT + " inclusive.");
+        if (afterId != null && !sort.equals("id") && req.params.get(Page.AFTER) == null) return new BadRequest("Parameter required: after.");
+
+        // Return a success IActionResult with the page.
+        return new Ok(CollectionFactory.getInstance(className).page(sort, req.params.get(Page.AFTER), afterId, limit));
+    }
+
+    /**
+     * Gets the changes made to a tracked listing since the sequence number in the request.
+     *
+     * @param req The request with the since parameter, ie: the sequence of the first page.
+     * @param className The class of the items.
+     * @param <T> The type of the items.
+     * @return IActionResult A success with the delta, or a bad request if the parameter is invalid.
+     * @throws Exception Pass through the server error.
+     */
+    static <T> Response changes(Request req, Class<T> className) throws Exception {
+        if (req.params == null || req.params.get(Delta.SINCE) == null) return new BadRequest("Parameter required: since.");
+
+        long since;
+        try {
+            since = Long.parseLong(req.params.get(Delta.SINCE));
+        } catch (NumberFormatException e) {
+            return new BadRequest("Parameter since must be an integer.");
+        }
+
+        // Return a success IActionResult with the changes.
+        return new Ok(CollectionFactory.getInstance(className).changes(since));
+    }
+}
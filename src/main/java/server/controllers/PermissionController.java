@@ -8,6 +8,7 @@ import common.router.Response;
 import common.router.response.Ok;
 import common.router.response.UnsupportedType;
 import common.sql.CollectionFactory;
+import common.sql.Query;
 
 import java.util.List;
 
@@ -30,6 +31,9 @@ public class PermissionController {
         // Override the execute to run the get function of the permissions collection.
         @Override
         public Response execute(Request req) throws Exception {
+            // Return a single page when one is asked for, sorted by username by default.
+            if (Paging.requested(req)) return Paging.page(req, Permissions.class, "username", "id");
+
             // Get list of all permissions.
             List<Permissions> permissionsList = CollectionFactory.getInstance(Permissions.class).get(x -> true);
 
@@ -55,9 +59,8 @@ public class PermissionController {
                 return new BadRequest("Must specify a username.");
             }
 
-            List<User> userList = CollectionFactory.getInstance(User.class).get(
-                aUser -> username.equals(String.valueOf(aUser.username)));
-            if (userList.isEmpty()) return new BadRequest("User doesn't exist.");
+            if (!CollectionFactory.getInstance(User.class).exists(Query.where("username", username)))
+                return new BadRequest("User doesn't exist.");
             // Get list of permissions with the ID as specified. This should only return 1 permission.
             List<Permissions> permissionsList = CollectionFactory.getInstance(Permissions.class).get(
                 permissions -> username.equals(String.valueOf(permissions.username))
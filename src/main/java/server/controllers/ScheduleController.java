@@ -8,7 +8,9 @@ import common.router.response.BadRequest;
 import common.router.Response;
 import common.router.response.Ok;
 import common.router.response.UnsupportedType;
+import common.sql.Collection;
 import common.sql.CollectionFactory;
+import common.sql.Query;
 
 import java.time.Instant;
 import java.time.ZoneId;
@@ -16,6 +18,7 @@ import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 
 /**
  * This class acts as the controller with all the Actions related to the schedule request path.
@@ -37,6 +40,9 @@ public class ScheduleController {
         // Override the execute to run the get function of the schedule collection.
         @Override
         public Response execute(Request req) throws Exception {
+            // Return a single page when one is asked for, in insertion order by default.
+            if (Paging.requested(req)) return Paging.page(req, Schedule.class, "id", "billboardName");
+
             // Get list of all schedules.
             List<Schedule> scheduleList = CollectionFactory.getInstance(Schedule.class).get(x -> true);
 
@@ -45,6 +51,21 @@ public class ScheduleController {
         }
     }
 
+    /**
+     * This Action is the GetChanges Action for the schedules, for a client to update the schedules it has loaded.
+     */
+    public static class GetChanges extends Action {
+        // Generic GetChanges action constructor.
+        public GetChanges() {
+        }
+
+        // Override the execute to run the changes function of the schedule collection.
+        @Override
+        public Response execute(Request req) throws Exception {
+            return Paging.changes(req, Schedule.class);
+        }
+    }
+
     /**
      * This Action is the GetByID Action for the schedules.
      */
@@ -96,18 +117,19 @@ public class ScheduleController {
                 if (s.duration > 1440 || s.duration < 1) return new BadRequest("Duration must be between 1 - 1440 inclusive");
                 if (s.interval > 60 || s.interval < 0) return new BadRequest("Interval must be between 0 - 60 inclusive");
 
-                // Make sure the billboard exists.
-                String sName = s.billboardName;
-                List<Billboard> billboardList = CollectionFactory.getInstance(Billboard.class).get(
-                    billboard -> sName.equals(String.valueOf(billboard.name)));
-                if (billboardList.isEmpty()) return new BadRequest("Billboard doesn't exists.");
-
-                // Attempt to insert the schedule into the database then return a success IActionResult.
-                CollectionFactory.getInstance(Schedule.class).insert((Schedule) req.body);
-                Billboard bb = billboardList.get(0);
-                bb.locked = true;
-                CollectionFactory.getInstance(Billboard.class).update(bb);
-                return new Ok();
+                // Insert the schedule and lock its billboard as a single unit of work.
+                return Collection.transaction(() -> {
+                    // Make sure the billboard exists.
+                    String sName = s.billboardName;
+                    if (!CollectionFactory.getInstance(Billboard.class).exists(Query.where("name", sName)))
+                        return new BadRequest("Billboard doesn't exists.");
+
+                    // Attempt to insert the schedule into the database then return a success IActionResult.
+                    CollectionFactory.getInstance(Schedule.class).insert((Schedule) req.body);
+                    // Only the lock is set, so a concurrent edit to the rest of the billboard isn't overwritten.
+                    CollectionFactory.getInstance(Billboard.class).updateWhere(Map.of("locked", true), Query.where("name", sName));
+                    return new Ok();
+                });
             }
 
             // Return an error on incorrect body type.
@@ -140,15 +162,7 @@ public class ScheduleController {
 
                 // if this is the only schedule assigned to that billboard, remove lock
                 if (scheduleList.size() == 1) {
-                    List<Billboard> billboardList = CollectionFactory.getInstance(Billboard.class).get(billboard -> billboard.name.equals(schedule.billboardName));
-
-                    if (!billboardList.isEmpty()) {
-                        Billboard billboard = billboardList.get(0);
-
-                        billboard.locked = false;
-
-                        CollectionFactory.getInstance(Billboard.class).update(billboard);
-                    }
+                    CollectionFactory.getInstance(Billboard.class).updateWhere(Map.of("locked", false), Query.where("name", schedule.billboardName));
                 }
 
                 return new Ok();
@@ -8,9 +8,12 @@ import common.router.*;
 import common.router.response.*;
 import common.utils.RandomFactory;
 import server.services.TokenService;
+import common.sql.Collection;
 import common.sql.CollectionFactory;
+import common.sql.Query;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static common.utils.session.HashingFactory.encodeHex;
@@ -140,32 +143,29 @@ public class UserController {
             if (req.params.get("username") == null) return new UnsupportedType(String.class);
             if (req.params.get("username").length() < 1) return new BadRequest("Username must not be empty.");
 
-            // Get the correct user
-            String Username = req.params.get("username");
-            List<User> deleteUser = CollectionFactory.getInstance(User.class).get(users -> Username.equals(String.valueOf(users.username)));
-            if (deleteUser.isEmpty()) return new BadRequest("User not existed");
-            User temp = deleteUser.get(0);
-
-            // Get the correct permission
-            List<Permissions> deletePerm = CollectionFactory.getInstance(Permissions.class).get(perm -> Username.equals(String.valueOf(perm.username)));
-            if (deletePerm.isEmpty()) return new BadRequest("Permission not existed");
-            Permissions perm = deletePerm.get(0);
-
-            // Get the list of billboards created by the delete user.
-            List<Billboard> bbList = CollectionFactory.getInstance(Billboard.class).get(bbID -> (temp.id == bbID.userId));
-            if (!bbList.isEmpty())
-            {
-                for (Billboard bb:bbList)
-                {
-                    bb.userId = req.session.userId;
-                    CollectionFactory.getInstance(Billboard.class).update(bb);
-                }
-            }
-
-            // Attempt to delete the user and permission in the database then return a success IActionResult.
-            CollectionFactory.getInstance(Permissions.class).delete(perm);
-            CollectionFactory.getInstance(User.class).delete(temp);
-            return new Ok();
+            // Reassign the billboards and delete the permissions and user as a single unit of work.
+            return Collection.transaction(() -> {
+                // Get the correct user
+                String Username = req.params.get("username");
+                List<User> deleteUser = CollectionFactory.getInstance(User.class).get(users -> Username.equals(String.valueOf(users.username)));
+                if (deleteUser.isEmpty()) return new BadRequest("User not existed");
+                User temp = deleteUser.get(0);
+
+                // Get the correct permission
+                List<Permissions> deletePerm = CollectionFactory.getInstance(Permissions.class).get(perm -> Username.equals(String.valueOf(perm.username)));
+                if (deletePerm.isEmpty()) return new BadRequest("Permission not existed");
+                Permissions perm = deletePerm.get(0);
+
+                // Reassign the billboards created by the delete user to the user deleting them.
+                Collection<Billboard> billboards = CollectionFactory.getInstance(Billboard.class);
+                Query created = Query.where("userId", temp.id);
+                if (billboards.exists(created)) billboards.updateWhere(Map.of("userId", req.session.userId), created);
+
+                // Attempt to delete the user and permission in the database then return a success IActionResult.
+                CollectionFactory.getInstance(Permissions.class).delete(perm);
+                CollectionFactory.getInstance(User.class).delete(temp);
+                return new Ok();
+            });
         }
     }
 }
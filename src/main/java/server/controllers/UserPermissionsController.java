@@ -10,10 +10,9 @@ import common.router.response.Ok;
 import common.router.response.UnsupportedType;
 import common.utils.session.HashingFactory;
 import common.router.Action;
+import common.sql.Collection;
 import common.sql.CollectionFactory;
 
-import java.util.List;
-
 import static common.utils.session.HashingFactory.*;
 
 /**
@@ -42,26 +41,30 @@ public class UserPermissionsController {
             UserPermissions userPermissions = (UserPermissions)req.body;
             if (userPermissions.user == null || userPermissions.permissions == null) return new UnsupportedType(UserPermissions.class);
             if(userPermissions.user.username.length() <1) {return new BadRequest("Username can not be empty.");}
-            // Fetch the user and return if exists.
             User user = userPermissions.user;
-            List<User> userList = CollectionFactory.getInstance(User.class).get(
-                userName -> user.username.equals(String.valueOf(userName.username)));
-            if (!userList.isEmpty()) return new BadRequest("User already exists.");
-
-
             Permissions permissions = userPermissions.permissions;
+
             // Hash the password supplied and set the respective user objects for database insertion.
+            // This is deliberately slow, so it's done before the transaction is opened.
             byte[] salt = HashingFactory.getSalt();
             byte[] password = hashAndSaltPassword(user.password, salt);
-            user.salt = encodeHex(salt);
-            user.password = encodeHex(password);
 
-            // Attempt to insert the user into the database then insert the permissions, return a success IActionResult.
-            CollectionFactory.getInstance(User.class).insert(user);
-            permissions.username = user.username;
-            CollectionFactory.getInstance(Permissions.class).insert(permissions);
+            // Insert the user and their permissions as a single unit of work.
+            return Collection.transaction(() -> {
+                user.salt = encodeHex(salt);
+                user.password = encodeHex(password);
+
+                // Attempt to insert the user into the database, return if the user exists.
+                if (!CollectionFactory.getInstance(User.class).insertIfAbsent(user, "username"))
+                    return new BadRequest("User already exists.");
+
+                // The permissions share the id of their user, then return a success IActionResult.
+                permissions.id = user.id;
+                permissions.username = user.username;
+                CollectionFactory.getInstance(Permissions.class).insertWithId(permissions);
 
-            return new Ok();
+                return new Ok();
+            });
         }
     }
 
@@ -4,7 +4,11 @@ import common.models.Billboard;
 import common.models.User;
 import common.router.*;
 import common.router.response.*;
+import common.sql.Collection;
 import common.sql.CollectionFactory;
+import common.sql.Patch;
+import common.sql.Query;
+import common.utils.PictureChunk;
 
 import java.util.Optional;
 
@@ -69,6 +73,74 @@ public class Permission {
         }
     }
 
+    /**
+     * This is an Action class that ensures the user can partially update billboards.
+     * Without the edit permission, a user can only patch the content of their own billboards that aren't scheduled.
+     */
+    public static class canPatchBillboard extends Action {
+        public canPatchBillboard() {
+        }
+
+        /**
+         * Override the default execute function with permission check.
+         *
+         * @param req The user request.
+         * @return IActionResult This object is for the router that returns whether they have the specified permission.
+         * @throws Exception Pass through server error.
+         */
+        @Override
+        public Response execute(Request req) throws Exception {
+            if (!req.permissions.canEditBillboard) {
+                if (!(req.body instanceof Patch)) return new UnsupportedType(Patch.class);
+                Patch patch = (Patch) req.body;
+
+                // The patch only holds the changed columns, so the owner and lock are read from the database.
+                Optional<Billboard> billboard = CollectionFactory.getInstance(Billboard.class).find("id", patch.id);
+                if (billboard.isEmpty()) return new BadRequest("Billboard does not exist.");
+                if (billboard.get().locked) return new BadRequest("Can't change a scheduled billboard.");
+
+                if (billboard.get().userId != req.session.userId || patch.changes.containsKey("userId") || patch.changes.containsKey("locked"))
+                    return new Unauthorised("Not authorised to edit billboards.");
+            }
+
+            return new Ok();
+        }
+    }
+
+    /**
+     * This is an Action class that ensures the user can upload a billboard picture.
+     * Without the edit permission, a user can only change the picture of their own billboards that aren't scheduled.
+     */
+    public static class canUploadPicture extends Action {
+        public canUploadPicture() {
+        }
+
+        /**
+         * Override the default execute function with permission check.
+         *
+         * @param req The user request.
+         * @return IActionResult This object is for the router that returns whether they have the specified permission.
+         * @throws Exception Pass through server error.
+         */
+        @Override
+        public Response execute(Request req) throws Exception {
+            if (!(req.body instanceof PictureChunk)) return new UnsupportedType(PictureChunk.class);
+            String name = ((PictureChunk) req.body).billboardName;
+
+            // Only check the columns, rather than reading the billboard and the picture it already has.
+            Collection<Billboard> billboards = CollectionFactory.getInstance(Billboard.class);
+            if (!billboards.exists(Query.where("name", name))) return new BadRequest("Billboard does not exist.");
+
+            if (!req.permissions.canEditBillboard) {
+                if (billboards.exists(Query.where("name", name).and("locked", true))) return new BadRequest("Can't change a scheduled billboard.");
+                if (!billboards.exists(Query.where("name", name).and("userId", req.session.userId)))
+                    return new Unauthorised("Not authorised to edit billboards.");
+            }
+
+            return new Ok();
+        }
+    }
+
     /**
      * This is an Action class that ensures the user can edit billboards.
      */
@@ -170,7 +242,7 @@ public class Permission {
 
                 if (username == null || username.length() < 1) return new UnsupportedType(String.class);
 
-                Optional<User> user = CollectionFactory.getInstance(User.class).get(u -> (username).equals(u.username)).stream().findFirst();
+                Optional<User> user = CollectionFactory.getInstance(User.class).find("username", username);
                 
                 if (user.isEmpty()) return new BadRequest("User does not exist.");
                 
@@ -200,7 +272,7 @@ public class Permission {
             else {
                 if (req.params == null) {return new UnsupportedType(String.class);}
                 if (req.params.get("username") == null) {return new BadRequest("Username must not be empty.");}
-                Optional<User> user = CollectionFactory.getInstance(User.class).get(u -> req.params.get("username").equals(u.username)).stream().findFirst();
+                Optional<User> user = CollectionFactory.getInstance(User.class).find("username", req.params.get("username"));
                 if (user.isEmpty()) return new BadRequest("User does not exist. ");
 
                 if (user.get().username.equals(req.session.username))
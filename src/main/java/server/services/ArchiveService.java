@@ -0,0 +1,285 @@
+package server.services;
+
+import common.models.Billboard;
+import common.sql.Collection;
+import common.sql.CollectionFactory;
+import common.sql.Query;
+import common.utils.ArchiveReport;
+import common.utils.XML;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * A singleton Class that exports every billboard as a zip archive of XML files, one per billboard named after it,
+ * and imports such an archive. Files are parsed in parallel and every billboard is inserted in one transaction.
+ */
+public class ArchiveService {
+    /**
+     * The extension of the billboard files in an archive.
+     */
+    public static final String EXTENSION = ".xml";
+
+    /**
+     * The most entries read from an archive, counting every file and directory whether it is imported or not.
+     */
+    public static final int MAX_FILES = 100_000;
+
+    /**
+     * The largest billboard file read from an archive, enough for the largest picture.
+     */
+    public static final long MAX_FILE_SIZE = PictureService.MAX_SIZE + 1024 * 1024;
+
+    /**
+     * The largest archive exported, as it is built in memory before it is sent, and the most bytes of billboard files
+     * read from an archive, as every billboard is held until they are inserted together.
+     */
+    public static final long MAX_ARCHIVE_SIZE = 256L * 1024 * 1024;
+
+    private static final int THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private final ExecutorService parsers = Executors.newFixedThreadPool(THREADS, r -> {
+        Thread thread = new Thread(r, "archive-parser-" + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Generates an ArchiveService Instance.
+     */
+    protected ArchiveService() { }
+
+    /**
+     * Ensures the ArchiveService is a singleton when getInstance() is called.
+     */
+    private static class ArchiveServiceHolder {
+        private final static ArchiveService INSTANCE = new ArchiveService();
+    }
+
+    public static ArchiveService getInstance() {
+        return ArchiveServiceHolder.INSTANCE;
+    }
+
+    /**
+     * Writes every billboard to a zip archive of at most MAX_ARCHIVE_SIZE bytes, reading them from the database one
+     * row at a time.
+     *
+     * @param out The stream the archive is written to, it is finished but not closed.
+     * @throws IOException Thrown when the archive is too large, the stream is left unfinished.
+     * @throws Exception Pass through the server error.
+     */
+    public void export(OutputStream out) throws Exception {
+        export(out, MAX_ARCHIVE_SIZE);
+    }
+
+    /**
+     * Writes every billboard to a zip archive, reading them from the database one row at a time.
+     *
+     * @param out The stream the archive is written to, it is finished but not closed.
+     * @param maxSize The largest archive written in bytes, it stops as soon as it goes over.
+     * @throws IOException Thrown when the archive is too large, the stream is left unfinished.
+     * @throws Exception Pass through the server error.
+     */
+    public void export(OutputStream out, long maxSize) throws Exception {
+        ZipOutputStream zip = new ZipOutputStream(new FilterOutputStream(out) {
+            private long written;
+
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] { (byte) b }, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                written += len;
+                if (written > maxSize) throw new IOException("Archive is larger than " + maxSize + " bytes.");
+                out.write(b, off, len);
+            }
+        });
+        Writer writer = new OutputStreamWriter(zip, StandardCharsets.UTF_8);
+
+        try (Stream<Billboard> rows = CollectionFactory.getInstance(Billboard.class).stream()) {
+            Iterator<Billboard> billboards = rows.iterator();
+            while (billboards.hasNext()) {
+                Billboard billboard = billboards.next();
+                zip.putNextEntry(new ZipEntry(fileName(billboard.name)));
+                XML.write(billboard, writer);
+                writer.flush();
+                zip.closeEntry();
+            }
+        }
+
+        zip.finish();
+    }
+
+    /**
+     * Imports every billboard in a zip archive for a user. Billboards are named after their file, and a file is
+     * reported rather than imported if it can't be parsed or its name is taken.
+     *
+     * @param in The archive, it isn't closed.
+     * @param userId The user the billboards are created for.
+     * @return ArchiveReport The number of billboards imported and the files that weren't.
+     * @throws IOException Thrown when the archive can't be read, nothing is imported.
+     * @throws Exception Pass through the server error, nothing is imported.
+     */
+    public ArchiveReport importArchive(InputStream in, int userId) throws Exception {
+        ArchiveReport report = new ArchiveReport();
+        Map<String, CompletableFuture<Billboard>> parsed = new LinkedHashMap<>();
+
+        // Bounds the files read but not yet parsed, so the parsers aren't queued more raw files than they can keep up
+        // with. The parsed billboards are held until the insert, which MAX_ARCHIVE_SIZE bounds.
+        Semaphore inFlight = new Semaphore(THREADS * 4);
+        int entries = 0;
+        long size = 0;
+
+        ZipInputStream zip = new ZipInputStream(in, StandardCharsets.UTF_8);
+        for (ZipEntry entry; (entry = zip.getNextEntry()) != null; ) {
+            if (++entries > MAX_FILES) throw new IOException("Archives can have at most " + MAX_FILES + " files.");
+            if (entry.isDirectory()) continue;
+
+            String file = entry.getName();
+            if (!file.toLowerCase().endsWith(EXTENSION)) {
+                report.errors.put(file, "Not an XML file.");
+                continue;
+            }
+            if (parsed.containsKey(file)) {
+                report.errors.put(file, "File is repeated in the archive.");
+                continue;
+            }
+
+            byte[] xml = readLimited(zip);
+            if (xml == null) {
+                report.errors.put(file, "File is larger than " + MAX_FILE_SIZE + " bytes.");
+                continue;
+            }
+            size += xml.length;
+            if (size > MAX_ARCHIVE_SIZE) throw new IOException("Archives can have at most " + MAX_ARCHIVE_SIZE + " bytes of billboards.");
+
+            inFlight.acquire();
+            CompletableFuture<Billboard> billboard = CompletableFuture
+                .supplyAsync(() -> parse(file, xml, userId), parsers)
+                .thenCompose(f -> f)
+                .thenApplyAsync(this::normalise, parsers);
+            billboard.whenComplete((b, e) -> inFlight.release());
+            parsed.put(file, billboard);
+        }
+
+        List<Billboard> billboards = new ArrayList<>();
+        List<String> files = new ArrayList<>();
+        for (Map.Entry<String, CompletableFuture<Billboard>> entry : parsed.entrySet()) {
+            try {
+                billboards.add(entry.getValue().get());
+                files.add(entry.getKey());
+            } catch (ExecutionException e) {
+                report.errors.put(entry.getKey(), message(e.getCause()));
+            }
+        }
+
+        // Every billboard is checked and inserted as one unit of work, with one commit.
+        return DataService.transaction(() -> {
+            Collection<Billboard> collection = CollectionFactory.getInstance(Billboard.class);
+            List<Billboard> insert = new ArrayList<>();
+            Set<String> names = new HashSet<>();
+
+            for (int i = 0; i < billboards.size(); i++) {
+                Billboard billboard = billboards.get(i);
+                if (!names.add(billboard.name)) report.errors.put(files.get(i), "Billboard name is repeated in the archive.");
+                else if (collection.exists(Query.where("name", billboard.name))) report.errors.put(files.get(i), "Billboard name already exists.");
+                else insert.add(billboard);
+            }
+
+            collection.insertAll(insert);
+            report.imported = insert.size();
+            return report;
+        });
+    }
+
+    /**
+     * Parses a billboard file. Pictures must be embedded, as the server never downloads a URL from an uploaded file.
+     */
+    private CompletableFuture<Billboard> parse(String file, byte[] xml, int userId) {
+        Billboard billboard = new Billboard();
+        billboard.name = billboardName(file);
+        billboard.userId = userId;
+        if (billboard.name.isEmpty()) throw new IllegalArgumentException("Billboard name must not be empty.");
+
+        try (Reader reader = new InputStreamReader(new ByteArrayInputStream(xml), StandardCharsets.UTF_8)) {
+            return XML.fromXMLAsync(reader, billboard, false);
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private Billboard normalise(Billboard billboard) {
+        billboard.picture = ImageService.getInstance().normalise(billboard.picture);
+        return billboard;
+    }
+
+    /**
+     * Reads the current file of an archive, stopping as soon as it goes over the size limit.
+     *
+     * @return The file, or null if it is too large.
+     */
+    private static byte[] readLimited(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[16 * 1024];
+        for (int read; (read = in.read(buffer)) != -1; ) {
+            if (out.size() + read > MAX_FILE_SIZE) return null;
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static String message(Throwable e) {
+        while (e instanceof CompletionException && e.getCause() != null) e = e.getCause();
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    }
+
+    /**
+     * @param billboardName The name of a billboard.
+     * @return The name of its file in an archive, encoded so any name is a valid file name.
+     */
+    public static String fileName(String billboardName) {
+        return URLEncoder.encode(billboardName, StandardCharsets.UTF_8) + EXTENSION;
+    }
+
+    /**
+     * @param file The name of a file in an archive, folders are ignored.
+     * @return The name of the billboard in it.
+     */
+    public static String billboardName(String file) {
+        String name = file.substring(file.lastIndexOf('/') + 1);
+        name = name.substring(0, name.length() - EXTENSION.length());
+        return URLDecoder.decode(name, StandardCharsets.UTF_8);
+    }
+}
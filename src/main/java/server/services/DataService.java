@@ -5,7 +5,12 @@ import common.utils.Props;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentLinkedDeque;
 
 /**
  * A singleton Class that handles all the database interactions for the server.
@@ -15,6 +20,33 @@ import java.util.Properties;
  * @author Perdana Bailey
  */
 public class DataService {
+    /**
+     * The system property that overrides the location of the database props file, ie: for a throwaway database.
+     */
+    public static final String PROPS_PROPERTY = "db.props";
+
+    /**
+     * How long in milliseconds a transaction waits on a locked database before failing.
+     */
+    public static final int BUSY_TIMEOUT = 5000;
+
+    /**
+     * The most idle transaction connections kept open for reuse.
+     */
+    public static final int MAX_IDLE_CONNECTIONS = 4;
+
+    // The connection of the transaction running on the current thread, if any.
+    private static final ThreadLocal<Connection> transaction = new ThreadLocal<>();
+
+    // The callbacks to run if the transaction running on the current thread is rolled back.
+    private static final ThreadLocal<List<Runnable>> rollbackCallbacks = new ThreadLocal<>();
+
+    // The callbacks to run once the transaction running on the current thread has committed or rolled back.
+    private static final ThreadLocal<List<Runnable>> completionCallbacks = new ThreadLocal<>();
+
+    // Idle connections kept open for transactions, most recently used first.
+    private static final Deque<Connection> idle = new ConcurrentLinkedDeque<>();
+
     private Connection connection;
 
     /**
@@ -33,8 +65,143 @@ public class DataService {
         private final static DataService INSTANCE = new DataService();
     }
 
+    /**
+     * Gets the connection for the current thread, the transaction's own connection when inside one.
+     *
+     * @return The database connection.
+     */
     public static Connection getConnection() {
-        return DataServiceHolder.INSTANCE.connection;
+        Connection connection = transaction.get();
+        return connection != null ? connection : DataServiceHolder.INSTANCE.connection;
+    }
+
+    /**
+     * @return Whether a transaction is running on the current thread.
+     */
+    public static boolean inTransaction() {
+        return transaction.get() != null;
+    }
+
+    /**
+     * Registers a callback to run if the transaction on the current thread is rolled back.
+     * Used to forget in memory state that was derived from changes the rollback undoes.
+     *
+     * @param callback The callback to run after the rollback.
+     * @return Whether a transaction is running on the current thread, if not the callback is discarded.
+     */
+    public static boolean onRollback(Runnable callback) {
+        List<Runnable> callbacks = rollbackCallbacks.get();
+        if (callbacks == null) return false;
+
+        callbacks.add(callback);
+        return true;
+    }
+
+    /**
+     * Registers a callback to run once the transaction on the current thread has committed or rolled back.
+     * Used to forget in memory state that other threads may have read while the transaction was still open.
+     *
+     * @param callback The callback to run after the transaction finishes, outside of it.
+     * @return Whether a transaction is running on the current thread, if not the callback is discarded.
+     */
+    public static boolean onCompletion(Runnable callback) {
+        List<Runnable> callbacks = completionCallbacks.get();
+        if (callbacks == null) return false;
+
+        callbacks.add(callback);
+        return true;
+    }
+
+    /**
+     * A unit of work performed inside a transaction.
+     *
+     * @param <R> The type of the result of the work.
+     */
+    @FunctionalInterface
+    public interface Work<R> {
+        R run() throws Exception;
+    }
+
+    /**
+     * Performs the work in a single transaction, committing if it returns and rolling back if it throws.
+     * The transaction runs on its own pooled connection so statements from other threads are never caught up in it.
+     * Nested calls on the same thread join the outer transaction.
+     *
+     * @param work The work to perform, every Collection call it makes on this thread is part of the transaction.
+     * @param <R> The type of the result of the work.
+     * @return The result of the work.
+     * @throws Exception Pass through the error that caused the rollback.
+     */
+    public static <R> R transaction(Work<R> work) throws Exception {
+        if (transaction.get() != null) return work.run();
+
+        Connection connection = acquire();
+        transaction.set(connection);
+        rollbackCallbacks.set(new ArrayList<>());
+        completionCallbacks.set(new ArrayList<>());
+        List<Runnable> completion = completionCallbacks.get();
+        boolean reusable = false;
+
+        try {
+            R result = work.run();
+            connection.commit();
+            reusable = true;
+            return result;
+        } catch (Exception e) {
+            try {
+                connection.rollback();
+                reusable = true;
+            } catch (SQLException rollback) {
+                e.addSuppressed(rollback);
+            }
+            for (Runnable callback : rollbackCallbacks.get()) callback.run();
+            throw e;
+        } finally {
+            transaction.remove();
+            rollbackCallbacks.remove();
+            completionCallbacks.remove();
+            release(connection, reusable);
+            for (Runnable callback : completion) callback.run();
+        }
+    }
+
+    /**
+     * Takes an idle transaction connection from the pool, opening a new one if there are none.
+     *
+     * @return A connection with auto commit disabled.
+     * @throws SQLException Thrown when unable to configure the connection.
+     */
+    private static Connection acquire() throws SQLException {
+        Connection connection = idle.pollFirst();
+        if (connection != null) return connection;
+
+        connection = startConnection();
+        // Foreign keys are enforced per connection, and a writer should wait rather than fail while another commits.
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA foreign_keys = ON");
+            statement.execute("PRAGMA busy_timeout = " + BUSY_TIMEOUT);
+        }
+        connection.setAutoCommit(false);
+        return connection;
+    }
+
+    /**
+     * Returns a transaction connection to the pool, closing it if the pool is full or it may be in a bad state.
+     *
+     * @param connection The connection to return.
+     * @param reusable Whether the transaction finished cleanly with a commit or rollback.
+     */
+    private static void release(Connection connection, boolean reusable) {
+        if (reusable && idle.size() < MAX_IDLE_CONNECTIONS) {
+            idle.offerFirst(connection);
+            return;
+        }
+
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            LogService.getInstance().error("connection.close", e);
+        }
     }
 
     /**
@@ -46,7 +213,7 @@ public class DataService {
     private static Connection startConnection() {
         try {
             // Configure the database from the prop file, throws error if one
-            Properties props = Props.getProps("./db.props");
+            Properties props = Props.getProps(System.getProperty(PROPS_PROPERTY, "./db.props"));
 
             String url = props.getProperty("jdbc.url");
             String schema = props.getProperty("jdbc.schema");
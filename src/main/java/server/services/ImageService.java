@@ -0,0 +1,260 @@
+package server.services;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Base64;
+import java.util.Iterator;
+
+/**
+ * A singleton Class that normalises billboard pictures when they are stored.
+ * Pictures are decoded once, downscaled to fit the largest display resolution and re-encoded, so viewers don't
+ * download and scale the original every time a billboard is shown.
+ */
+public class ImageService {
+    /**
+     * The default largest width and height a picture is stored at.
+     */
+    public static final int MAX_WIDTH = 1920, MAX_HEIGHT = 1080;
+
+    /**
+     * The most pixels a picture may have before it is decoded, so a small file can't expand to fill the heap.
+     */
+    public static final long MAX_PIXELS = 100_000_000L;
+
+    /**
+     * The quality opaque pictures are re-encoded at as a JPEG.
+     */
+    public static final float JPEG_QUALITY = 0.85f;
+
+    private volatile int maxWidth = MAX_WIDTH;
+    private volatile int maxHeight = MAX_HEIGHT;
+
+    /**
+     * Generates an ImageService Instance.
+     */
+    protected ImageService() { }
+
+    /**
+     * Ensures the ImageService is a singleton when getInstance() is called.
+     */
+    private static class ImageServiceHolder {
+        private final static ImageService INSTANCE = new ImageService();
+    }
+
+    public static ImageService getInstance() {
+        return ImageServiceHolder.INSTANCE;
+    }
+
+    /**
+     * Sets the largest resolution pictures are stored at.
+     *
+     * @param maxWidth The largest width in pixels, must be positive.
+     * @param maxHeight The largest height in pixels, must be positive.
+     */
+    public void configure(int maxWidth, int maxHeight) {
+        if (maxWidth < 1 || maxHeight < 1) throw new IllegalArgumentException("Picture resolution must be positive.");
+        this.maxWidth = maxWidth;
+        this.maxHeight = maxHeight;
+    }
+
+    /**
+     * Normalises a base64 picture. Pictures larger than the maximum resolution are downscaled to fit, and every
+     * picture is re-encoded as the smaller of a JPEG and a PNG, or a PNG if it has transparency.
+     * A picture that already fits is only replaced if it isn't a JPEG and re-encoding makes it smaller.
+     *
+     * @param picture The base64 picture, may be null.
+     * @return String The normalised base64 picture, or the original if it is null, not base64 or not an image that
+     * can be decoded.
+     * @throws IllegalArgumentException Thrown when the picture is longer than PictureService.MAX_SIZE or has more than
+     * MAX_PIXELS pixels.
+     */
+    public String normalise(String picture) {
+        if (picture == null || picture.isEmpty()) return picture;
+        checkLength(picture);
+
+        byte[] original;
+        try {
+            original = Base64.getDecoder().decode(picture);
+        } catch (IllegalArgumentException e) {
+            return picture;
+        }
+
+        try {
+            BufferedImage image = read(original);
+            if (image == null) return picture;
+
+            boolean fits = image.getWidth() <= maxWidth && image.getHeight() <= maxHeight;
+            // Encoding a JPEG again would only lose quality.
+            if (fits && isJpeg(original)) return picture;
+            if (!fits) image = scale(image);
+
+            byte[] encoded = encode(image);
+            if (encoded == null || (fits && encoded.length >= original.length)) return picture;
+
+            return Base64.getEncoder().encodeToString(encoded);
+        } catch (IOException e) {
+            // Leave pictures ImageIO can't decode or encode as they were sent.
+            return picture;
+        }
+    }
+
+    /**
+     * Checks a base64 picture isn't too large to normalise, reading only the image's header.
+     *
+     * @param picture The base64 picture, may be null.
+     * @throws IllegalArgumentException Thrown when the picture is longer than PictureService.MAX_SIZE or has more than
+     * MAX_PIXELS pixels.
+     */
+    public void check(String picture) {
+        if (picture == null || picture.isEmpty()) return;
+        checkLength(picture);
+
+        byte[] data;
+        try {
+            data = Base64.getDecoder().decode(picture);
+        } catch (IllegalArgumentException e) {
+            return;
+        }
+
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(data))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) return;
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                checkPixels(reader);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            // Normalising leaves pictures ImageIO can't decode as they were sent.
+        }
+    }
+
+    private static void checkLength(String picture) {
+        if (picture.length() > PictureService.MAX_SIZE)
+            throw new IllegalArgumentException("Pictures must be at most " + PictureService.MAX_SIZE + " base64 characters.");
+    }
+
+    private static void checkPixels(ImageReader reader) throws IOException {
+        if ((long) reader.getWidth(0) * reader.getHeight(0) > MAX_PIXELS)
+            throw new IllegalArgumentException("Pictures must have at most " + MAX_PIXELS + " pixels.");
+    }
+
+    /**
+     * Decodes an image, subsampling while decoding when it is far larger than the maximum resolution.
+     *
+     * @return The decoded image, or null if no reader understands it.
+     */
+    private BufferedImage read(byte[] data) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(data))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) return null;
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                checkPixels(reader);
+                int width = reader.getWidth(0), height = reader.getHeight(0);
+
+                // Skip pixels while decoding, leaving at least twice the final size for a smooth scale afterwards.
+                int factor = (int) (Math.max((double) width / maxWidth, (double) height / maxHeight) / 2);
+                ImageReadParam param = reader.getDefaultReadParam();
+                if (factor > 1) param.setSourceSubsampling(factor, factor, 0, 0);
+
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Scales an image down to fit the maximum resolution, halving it in steps so detail isn't dropped.
+     */
+    private BufferedImage scale(BufferedImage image) {
+        double ratio = Math.min((double) maxWidth / image.getWidth(), (double) maxHeight / image.getHeight());
+        int width = Math.max(1, (int) Math.round(image.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * ratio));
+        int type = image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+        do {
+            int w = Math.max(width, image.getWidth() / 2);
+            int h = Math.max(height, image.getHeight() / 2);
+
+            BufferedImage next = new BufferedImage(w, h, type);
+            Graphics2D g = next.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(image, 0, 0, w, h, null);
+            g.dispose();
+            image = next;
+        } while (image.getWidth() != width || image.getHeight() != height);
+
+        return image;
+    }
+
+    /**
+     * Encodes an image as a PNG if it has transparency, otherwise as whichever of a JPEG and a PNG is smaller.
+     *
+     * @return The encoded image, or null if no writer could encode it.
+     */
+    private byte[] encode(BufferedImage image) throws IOException {
+        byte[] png = png(image);
+        if (image.getColorModel().hasAlpha()) return png;
+
+        byte[] jpeg = jpeg(image);
+        if (png == null) return jpeg;
+        return jpeg != null && jpeg.length < png.length ? jpeg : png;
+    }
+
+    private static boolean isJpeg(byte[] data) {
+        return data.length > 2 && (data[0] & 0xFF) == 0xFF && (data[1] & 0xFF) == 0xD8;
+    }
+
+    private static byte[] png(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        return ImageIO.write(image, "png", out) ? out.toByteArray() : null;
+    }
+
+    private static byte[] jpeg(BufferedImage image) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+        if (!writers.hasNext()) return null;
+
+        // The JPEG writer only accepts plain RGB.
+        if (image.getType() != BufferedImage.TYPE_INT_RGB && image.getType() != BufferedImage.TYPE_3BYTE_BGR) {
+            BufferedImage rgb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = rgb.createGraphics();
+            g.drawImage(image, 0, 0, null);
+            g.dispose();
+            image = rgb;
+        }
+
+        ImageWriter writer = writers.next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,331 @@
+package server.services;
+
+import common.router.response.Status;
+
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * A singleton Class that writes structured log lines from a background thread, so request threads never wait on the
+ * console. Lines are key=value pairs, ie: {@code 2020-05-01T10:00:00Z INFO request path=/billboard/get status=SUCCESS}.
+ * Entries are placed in a fixed size ring buffer, when it is full new entries are dropped and counted rather than
+ * blocking the caller.
+ */
+public class LogService {
+    /**
+     * The severity of a log entry, entries below the configured level are ignored.
+     */
+    public enum Level { DEBUG, INFO, WARN, ERROR }
+
+    /**
+     * The default number of entries the ring buffer holds.
+     */
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    /**
+     * How long the writer sleeps when there is nothing to write.
+     */
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final AtomicReferenceArray<Entry> ring;
+    private final int mask;
+    // The next slot to claim, shared by every logging thread.
+    private final AtomicLong tail = new AtomicLong();
+    // The next slot to write, and the slots before it that have reached the stream, only advanced by the writer.
+    private volatile long head;
+    private volatile long written;
+
+    private final LongAdder dropped = new LongAdder();
+    private final Supplier<PrintStream> out;
+    private final Thread writer;
+
+    private volatile Level level = Level.INFO;
+    private volatile double requestSampleRate = 1;
+
+    /**
+     * Generates a LogService Instance that writes to the current System.out.
+     */
+    protected LogService() {
+        this(DEFAULT_CAPACITY, () -> System.out);
+    }
+
+    /**
+     * Generates a LogService Instance.
+     *
+     * @param capacity The most entries waiting to be written, rounded up to a power of two.
+     * @param out Supplies the stream each batch of lines is written to.
+     */
+    protected LogService(int capacity, Supplier<PrintStream> out) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.ring = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.out = out;
+
+        writer = new Thread(this::write, "log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Ensures the LogService is a singleton when getInstance() is called.
+     */
+    private static class LogServiceHolder {
+        private final static LogService INSTANCE = new LogService();
+
+        static {
+            // Write whatever is still buffered when the server stops.
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> INSTANCE.flush(1000)));
+        }
+    }
+
+    public static LogService getInstance() {
+        return LogServiceHolder.INSTANCE;
+    }
+
+    /**
+     * Sets which entries are written.
+     *
+     * @param level The lowest level written.
+     * @param requestSampleRate The fraction of successful requests written, between 0 and 1. Failed requests are
+     * always written.
+     */
+    public void configure(Level level, double requestSampleRate) {
+        this.level = level;
+        this.requestSampleRate = Math.max(0, Math.min(1, requestSampleRate));
+    }
+
+    /**
+     * @param level The level of an entry.
+     * @return Whether an entry at the level would be written, to skip building expensive fields.
+     */
+    public boolean isEnabled(Level level) {
+        return level.compareTo(this.level) >= 0;
+    }
+
+    /**
+     * Logs an event with fields.
+     *
+     * @param level The severity.
+     * @param event A short name for what happened, ie: request.
+     * @param fields Alternating field names and values, values are formatted on the writer thread so they should be
+     * immutable, ie: "path", "/billboard/get".
+     */
+    public void log(Level level, String event, Object... fields) {
+        if (isEnabled(level)) offer(new Entry(level, event, fields, null, null));
+    }
+
+    public void debug(String event, Object... fields) {
+        log(Level.DEBUG, event, fields);
+    }
+
+    public void info(String event, Object... fields) {
+        log(Level.INFO, event, fields);
+    }
+
+    public void warn(String event, Object... fields) {
+        log(Level.WARN, event, fields);
+    }
+
+    /**
+     * Logs an error with its stack trace.
+     *
+     * @param event A short name for what happened.
+     * @param error The error, its stack trace is written after the line.
+     * @param fields Alternating field names and values.
+     */
+    public void error(String event, Throwable error, Object... fields) {
+        if (isEnabled(Level.ERROR)) offer(new Entry(Level.ERROR, event, fields, error, null));
+    }
+
+    /**
+     * Logs a block of preformatted text, ie: a table, after the event's line.
+     *
+     * @param level The severity.
+     * @param event A short name for what the text is.
+     * @param text The text, written as is.
+     */
+    public void text(Level level, String event, String text) {
+        if (isEnabled(level)) offer(new Entry(level, event, new Object[0], null, text));
+    }
+
+    /**
+     * Logs a completed request. Successful requests are sampled, every failed request is logged.
+     *
+     * @param path The requested path.
+     * @param status The status of the response.
+     * @param nanos How long the request took in nanoseconds.
+     * @param client The address of the client.
+     */
+    public void request(String path, Status status, long nanos, Object client) {
+        boolean failed = status != Status.SUCCESS;
+        if (!isEnabled(failed ? Level.WARN : Level.INFO)) return;
+        if (!failed && requestSampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= requestSampleRate) return;
+
+        offer(new Entry(failed ? Level.WARN : Level.INFO, "request",
+            new Object[] { "path", path, "status", status, "latencyMs", nanos / 1e6, "client", client }, null, null));
+    }
+
+    /**
+     * @return The number of entries dropped because the ring buffer was full.
+     */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Waits until every entry logged so far has been written.
+     *
+     * @param timeoutMillis The longest to wait.
+     * @return Whether everything was written in time.
+     */
+    public boolean flush(long timeoutMillis) {
+        long target = tail.get();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+
+        while (written < target) {
+            if (System.nanoTime() > deadline) return false;
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        return true;
+    }
+
+    /**
+     * Claims a slot in the ring buffer without locking, or drops the entry if the buffer is full.
+     */
+    private void offer(Entry entry) {
+        long slot;
+        do {
+            slot = tail.get();
+            if (slot - head >= ring.length()) {
+                dropped.increment();
+                return;
+            }
+        } while (!tail.compareAndSet(slot, slot + 1));
+
+        ring.set((int) (slot & mask), entry);
+    }
+
+    /**
+     * The writer loop, it runs until the server stops.
+     */
+    private void write() {
+        StringBuilder batch = new StringBuilder();
+        long reportedDropped = 0;
+
+        while (true) {
+            try {
+                reportedDropped = drain(batch, reportedDropped);
+            } catch (Throwable e) {
+                // Never let a bad entry or stream stop the writer.
+                batch.setLength(0);
+            }
+        }
+    }
+
+    /**
+     * Formats every waiting entry and writes them with a single call to the stream, or sleeps if there are none.
+     *
+     * @return The number of dropped entries reported so far.
+     */
+    private long drain(StringBuilder batch, long reportedDropped) {
+        long position = head;
+        Entry entry;
+        // A claimed slot may not be filled yet, it is picked up on the next pass.
+        while ((entry = ring.get((int) (position & mask))) != null) {
+            ring.set((int) (position & mask), null);
+            head = ++position;
+            entry.format(batch);
+        }
+
+        long droppedNow = dropped.sum();
+        if (droppedNow != reportedDropped) {
+            new Entry(Level.WARN, "log.dropped", new Object[] { "count", droppedNow - reportedDropped }, null, null).format(batch);
+        }
+
+        if (batch.length() > 0) {
+            PrintStream stream = out.get();
+            stream.print(batch);
+            stream.flush();
+            batch.setLength(0);
+        } else {
+            LockSupport.parkNanos(IDLE_NANOS);
+        }
+
+        written = position;
+        return droppedNow;
+    }
+
+    /**
+     * A single log entry, formatted by the writer.
+     */
+    private static class Entry {
+        private final long time = System.currentTimeMillis();
+        private final String thread = Thread.currentThread().getName();
+        private final Level level;
+        private final String event;
+        private final Object[] fields;
+        private final Throwable error;
+        private final String text;
+
+        private Entry(Level level, String event, Object[] fields, Throwable error, String text) {
+            this.level = level;
+            this.event = event;
+            this.fields = fields;
+            this.error = error;
+            this.text = text;
+        }
+
+        private void format(StringBuilder out) {
+            out.append(Instant.ofEpochMilli(time)).append(' ').append(level).append(' ').append(event);
+            for (int i = 0; i + 1 < fields.length; i += 2) {
+                out.append(' ').append(fields[i]).append('=');
+                value(out, fields[i + 1]);
+            }
+            out.append(" thread=");
+            value(out, thread);
+            if (error != null) {
+                out.append(" error=");
+                value(out, String.valueOf(error));
+            }
+            out.append(System.lineSeparator());
+
+            if (text != null) out.append(text);
+            if (error != null) {
+                StringWriter trace = new StringWriter();
+                error.printStackTrace(new PrintWriter(trace));
+                out.append(trace);
+            }
+        }
+
+        /**
+         * Writes a value, quoted if it would otherwise be ambiguous.
+         */
+        private static void value(StringBuilder out, Object value) {
+            String s = value instanceof Double ? String.format(Locale.ROOT, "%.3f", value) : String.valueOf(value);
+            if (!s.isEmpty() && s.chars().noneMatch(c -> c == ' ' || c == '"' || c == '=' || c < 0x20)) {
+                out.append(s);
+                return;
+            }
+
+            out.append('"');
+            for (char c : s.toCharArray()) {
+                if (c == '"' || c == '\\') out.append('\\').append(c);
+                else if (c == '\n') out.append("\\n");
+                else if (c < 0x20) out.append(' ');
+                else out.append(c);
+            }
+            out.append('"');
+        }
+    }
+}
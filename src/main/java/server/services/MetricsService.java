@@ -0,0 +1,395 @@
+package server.services;
+
+import common.router.response.Status;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * A singleton Class that records request counts, error counts and latencies for every routed path.
+ */
+public class MetricsService {
+
+    /**
+     * The path that requests are recorded against when no route exists, this stops unknown paths growing the map.
+     */
+    public static final String UNROUTED = "(unrouted)";
+
+    // Path, Route metrics Key Value Pair
+    private final Map<String, RouteMetrics> routes = new ConcurrentHashMap<>();
+
+    // Table name, Cache statistics source Key Value Pair
+    private final Map<String, Supplier<CacheStatistics>> caches = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService reporter;
+
+    /**
+     * Generates a MetricsService Instance.
+     */
+    protected MetricsService() { }
+
+    /**
+     * Ensures the MetricsService is a singleton when getInstance() is called.
+     */
+    private static class MetricsServiceHolder {
+        private final static MetricsService INSTANCE = new MetricsService();
+    }
+
+    public static MetricsService getInstance() {
+        return MetricsServiceHolder.INSTANCE;
+    }
+
+    /**
+     * Records a completed request on a path.
+     *
+     * @param path The routed path.
+     * @param status The status of the response returned to the client.
+     * @param nanos How long the request took in nanoseconds.
+     */
+    public void record(String path, Status status, long nanos) {
+        RouteMetrics route = routes.computeIfAbsent(path, RouteMetrics::new);
+        route.requests.increment();
+        if (status != Status.SUCCESS) route.errors.get(status).increment();
+        route.latency.record(nanos);
+    }
+
+    /**
+     * Records a single action inside the chain of a path.
+     *
+     * @param path The routed path.
+     * @param action The name of the action that was executed.
+     * @param nanos How long the action took in nanoseconds.
+     */
+    public void recordAction(String path, String action, long nanos) {
+        routes.computeIfAbsent(path, RouteMetrics::new)
+            .actions.computeIfAbsent(action, a -> new Histogram())
+            .record(nanos);
+    }
+
+    /**
+     * Takes a point in time copy of every route's statistics, sorted by path.
+     *
+     * @return A serializable list of route statistics.
+     */
+    public List<RouteStatistics> snapshot() {
+        List<RouteStatistics> result = new ArrayList<>();
+
+        for (RouteMetrics route : routes.values()) {
+            RouteStatistics stats = new RouteStatistics(route.path, route.requests.sum(), route.latency);
+
+            for (Map.Entry<Status, LongAdder> error : route.errors.entrySet()) {
+                long count = error.getValue().sum();
+                if (count > 0) stats.errors.put(error.getKey(), count);
+            }
+
+            for (Map.Entry<String, Histogram> action : route.actions.entrySet()) {
+                Histogram histogram = action.getValue();
+                stats.actions.add(new RouteStatistics(action.getKey(), histogram.count(), histogram));
+            }
+            stats.actions.sort(Comparator.comparing(a -> a.path));
+
+            result.add(stats);
+        }
+
+        result.sort(Comparator.comparing(s -> s.path));
+        return result;
+    }
+
+    /**
+     * Registers an entity cache so its statistics are reported, replacing any earlier cache of the same name.
+     *
+     * @param name The name of the cached table.
+     * @param statistics Supplies the current statistics of the cache.
+     */
+    public void registerCache(String name, Supplier<CacheStatistics> statistics) {
+        caches.put(name, statistics);
+    }
+
+    /**
+     * Takes a point in time copy of every entity cache's statistics, sorted by name.
+     *
+     * @return A serializable list of cache statistics.
+     */
+    public List<CacheStatistics> cacheSnapshot() {
+        List<CacheStatistics> result = new ArrayList<>();
+        for (Supplier<CacheStatistics> cache : caches.values()) result.add(cache.get());
+
+        result.sort(Comparator.comparing(c -> c.name));
+        return result;
+    }
+
+    /**
+     * Clears all of the recorded statistics.
+     */
+    public void reset() {
+        routes.clear();
+    }
+
+    /**
+     * Starts a background thread that periodically writes the statistics to the server log.
+     *
+     * @param periodSeconds How often to write the statistics, nothing is started if this is less than 1.
+     */
+    public synchronized void startReporter(long periodSeconds) {
+        if (periodSeconds < 1 || reporter != null) return;
+
+        reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(() -> LogService.getInstance().text(LogService.Level.INFO, "metrics", format(snapshot()) + formatCaches(cacheSnapshot())),
+            periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Formats the statistics as a plain text table.
+     *
+     * @param statistics The statistics to format.
+     * @return The formatted table, one line per route and action.
+     */
+    public static String format(List<RouteStatistics> statistics) {
+        StringBuilder out = new StringBuilder("Route metrics (latency in ms):\n");
+
+        for (RouteStatistics route : statistics) {
+            out.append(String.format("  %-28s count=%-8d p50=%-8.3f p99=%-8.3f p999=%-8.3f max=%-8.3f errors=%s%n",
+                route.path, route.count, route.p50, route.p99, route.p999, route.max, route.errors));
+
+            for (RouteStatistics action : route.actions) {
+                out.append(String.format("    %-26s count=%-8d p50=%-8.3f p99=%-8.3f p999=%-8.3f max=%-8.3f%n",
+                    action.path, action.count, action.p50, action.p99, action.p999, action.max));
+            }
+        }
+
+        return out.toString();
+    }
+
+    /**
+     * Formats the entity cache statistics as a plain text table.
+     *
+     * @param statistics The statistics to format.
+     * @return The formatted table, one line per cache.
+     */
+    public static String formatCaches(List<CacheStatistics> statistics) {
+        StringBuilder out = new StringBuilder("Entity caches:\n");
+
+        for (CacheStatistics cache : statistics) {
+            out.append(String.format("  %-28s hits=%-8d misses=%-8d hitRate=%-6.1f%% invalidations=%-8d size=%d/%d%n",
+                cache.name, cache.hits, cache.misses, cache.hitRate() * 100, cache.invalidations, cache.size, cache.maxSize));
+        }
+
+        return out.toString();
+    }
+
+    /**
+     * The live counters of a single path.
+     */
+    private static class RouteMetrics {
+        private final String path;
+        private final LongAdder requests = new LongAdder();
+        private final Map<Status, LongAdder> errors = new EnumMap<>(Status.class);
+        private final Histogram latency = new Histogram();
+        private final Map<String, Histogram> actions = new ConcurrentHashMap<>();
+
+        private RouteMetrics(String path) {
+            this.path = path;
+            // Pre-populate so the EnumMap is never structurally modified once shared between threads.
+            for (Status status : Status.values()) errors.put(status, new LongAdder());
+        }
+    }
+
+    /**
+     * The serializable statistics of a path, or of an action when nested in a path.
+     */
+    public static class RouteStatistics implements Serializable {
+        /**
+         * The path or action name.
+         */
+        public String path;
+
+        /**
+         * The number of recorded requests.
+         */
+        public long count;
+
+        /**
+         * The count of non-successful responses by status.
+         */
+        public HashMap<Status, Long> errors = new HashMap<>();
+
+        /**
+         * The latency percentiles and maximum in milliseconds.
+         */
+        public double p50, p99, p999, max;
+
+        /**
+         * The timings of each action in the chain of a path.
+         */
+        public List<RouteStatistics> actions = new ArrayList<>();
+
+        /**
+         * Creates the statistics from a histogram.
+         *
+         * @param path The path or action name.
+         * @param count The number of recorded requests.
+         * @param histogram The latency histogram.
+         */
+        public RouteStatistics(String path, long count, Histogram histogram) {
+            this.path = path;
+            this.count = count;
+            this.p50 = histogram.percentile(50) / 1e6;
+            this.p99 = histogram.percentile(99) / 1e6;
+            this.p999 = histogram.percentile(99.9) / 1e6;
+            this.max = histogram.max() / 1e6;
+        }
+    }
+
+    /**
+     * The serializable statistics of an entity cache.
+     */
+    public static class CacheStatistics implements Serializable {
+        /**
+         * The name of the cached table.
+         */
+        public String name;
+
+        /**
+         * The reads served from the cache and the reads that had to go to the database.
+         */
+        public long hits, misses;
+
+        /**
+         * The number of times a write cleared the cache.
+         */
+        public long invalidations;
+
+        /**
+         * The rows currently cached and the most the cache will hold.
+         */
+        public int size, maxSize;
+
+        /**
+         * Constructor for the CacheStatistics object.
+         *
+         * @param name The name of the cached table.
+         * @param hits The reads served from the cache.
+         * @param misses The reads that had to go to the database.
+         * @param invalidations The number of times a write cleared the cache.
+         * @param size The rows currently cached.
+         * @param maxSize The most rows the cache will hold.
+         */
+        public CacheStatistics(String name, long hits, long misses, long invalidations, int size, int maxSize) {
+            this.name = name;
+            this.hits = hits;
+            this.misses = misses;
+            this.invalidations = invalidations;
+            this.size = size;
+            this.maxSize = maxSize;
+        }
+
+        /**
+         * @return The fraction of reads served from the cache, 0 if there were none.
+         */
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+    }
+
+    /**
+     * A lock free, fixed memory latency histogram.
+     * Values are bucketed logarithmically with 32 linear sub-buckets per power of two, giving roughly 3% precision.
+     */
+    public static class Histogram {
+        private static final int SUB_BUCKET_BITS = 5;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int LINEAR = SUB_BUCKETS * 2;
+        private static final int MAX_EXPONENT = 62;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(LINEAR + (MAX_EXPONENT - SUB_BUCKET_BITS) * SUB_BUCKETS);
+        private final LongAdder total = new LongAdder();
+        private volatile long max;
+
+        /**
+         * Records a value.
+         *
+         * @param value The value to record, negative values are treated as 0.
+         */
+        public void record(long value) {
+            if (value < 0) value = 0;
+            buckets.incrementAndGet(index(value));
+            total.increment();
+
+            // Only contend on the max when it actually changes.
+            while (value > max) {
+                synchronized (this) {
+                    if (value > max) max = value;
+                }
+            }
+        }
+
+        /**
+         * @return The number of recorded values.
+         */
+        public long count() {
+            return total.sum();
+        }
+
+        /**
+         * @return The largest recorded value.
+         */
+        public long max() {
+            return max;
+        }
+
+        /**
+         * Estimates the value at a percentile.
+         *
+         * @param percentile The percentile between 0 and 100.
+         * @return The lower bound of the bucket holding the percentile, 0 if nothing was recorded.
+         */
+        public long percentile(double percentile) {
+            long count = 0;
+            for (int i = 0; i < buckets.length(); i++) count += buckets.get(i);
+            if (count == 0) return 0;
+
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+            long seen = 0;
+
+            for (int i = 0; i < buckets.length(); i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) return Math.min(lowerBound(i), max);
+            }
+
+            return max;
+        }
+
+        private static int index(long value) {
+            if (value < LINEAR) return (int) value;
+
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+            return LINEAR + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + sub;
+        }
+
+        private static long lowerBound(int index) {
+            if (index < LINEAR) return index;
+
+            int exponent = (index - LINEAR) / SUB_BUCKETS + SUB_BUCKET_BITS + 1;
+            int sub = (index - LINEAR) % SUB_BUCKETS;
+            return (1L << exponent) + ((long) sub << (exponent - SUB_BUCKET_BITS));
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package server.services;
+
+import common.utils.PictureChunk;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * A singleton Class that stores billboard pictures a chunk at a time.
+ * Uploaded chunks are staged in their own table and joined into the billboard by SQLite when the last chunk
+ * arrives, and downloads read a single chunk of the picture, so the server never holds a whole picture.
+ */
+public class PictureService {
+    /**
+     * The longest base64 picture accepted, roughly 12MB of image.
+     */
+    public static final long MAX_SIZE = 16L * 1024 * 1024;
+
+    /**
+     * How long in milliseconds an unfinished upload is kept.
+     */
+    public static final long EXPIRY = 60 * 60 * 1000;
+
+    private static final String TABLE = "PICTUREUPLOAD";
+
+    private volatile boolean created;
+
+    /**
+     * Generates a PictureService Instance.
+     */
+    protected PictureService() { }
+
+    /**
+     * Ensures the PictureService is a singleton when getInstance() is called.
+     */
+    private static class PictureServiceHolder {
+        private final static PictureService INSTANCE = new PictureService();
+    }
+
+    public static PictureService getInstance() {
+        return PictureServiceHolder.INSTANCE;
+    }
+
+    /**
+     * Creates the staging table the first time it is needed.
+     *
+     * @throws Exception Pass through the server error.
+     */
+    private void createTable() throws Exception {
+        if (created) return;
+
+        synchronized (this) {
+            if (created) return;
+
+            try (Statement statement = DataService.getConnection().createStatement()) {
+                statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + TABLE + " (uploadId VARCHAR(36) NOT NULL, "
+                    + "billboardName VARCHAR(255) NOT NULL, position INTEGER NOT NULL, data TEXT NOT NULL, "
+                    + "createTime INTEGER NOT NULL, PRIMARY KEY(uploadId, position))");
+            }
+            created = true;
+        }
+    }
+
+    /**
+     * Stages a chunk of an upload. Chunks must arrive in order.
+     *
+     * @param chunk The chunk, without an upload id if it is the first.
+     * @return String The id of the upload, to send with the next chunks.
+     * @throws IllegalArgumentException Thrown when the chunk is too large, out of order, not base64 or makes the
+     * picture too large.
+     * @throws Exception Pass through the server error.
+     */
+    public String append(PictureChunk chunk) throws Exception {
+        createTable();
+
+        if (chunk.data == null || chunk.data.length() > PictureChunk.SIZE)
+            throw new IllegalArgumentException("A chunk must have at most " + PictureChunk.SIZE + " characters.");
+        if (!chunk.last && chunk.data.length() % 4 != 0)
+            throw new IllegalArgumentException("Only the last chunk may end part way through a base64 block.");
+        // Throws if the chunk isn't base64.
+        Base64.getDecoder().decode(chunk.data);
+
+        String uploadId = chunk.uploadId;
+        if (uploadId == null) {
+            if (chunk.offset != 0) throw new IllegalArgumentException("An upload must start at offset 0.");
+            uploadId = UUID.randomUUID().toString();
+            expire();
+        } else if (chunk.offset != length(uploadId, chunk.billboardName) || chunk.offset == 0) {
+            throw new IllegalArgumentException("Chunk is out of order, or the upload has expired.");
+        }
+
+        if (chunk.offset + chunk.data.length() > MAX_SIZE)
+            throw new IllegalArgumentException("Pictures must be at most " + MAX_SIZE + " base64 characters.");
+
+        try (PreparedStatement psmt = DataService.getConnection().prepareStatement(
+            "INSERT INTO " + TABLE + " (uploadId, billboardName, position, data, createTime) VALUES (?, ?, ?, ?, ?)")) {
+            psmt.setString(1, uploadId);
+            psmt.setString(2, chunk.billboardName);
+            psmt.setLong(3, chunk.offset);
+            psmt.setString(4, chunk.data);
+            psmt.setLong(5, System.currentTimeMillis());
+            psmt.executeUpdate();
+        }
+
+        return uploadId;
+    }
+
+    /**
+     * Replaces the billboard's picture with a completely staged upload, if the billboard hasn't changed since the
+     * version the upload was started from. The upload is removed either way.
+     *
+     * @param uploadId The id of the upload.
+     * @param billboardName The billboard the picture belongs to.
+     * @param version The version of the billboard the upload was started from.
+     * @return boolean Whether the picture was replaced, false if the billboard was deleted or changed by someone else,
+     * or the upload doesn't belong to it.
+     * @throws IllegalArgumentException Thrown when the picture has too many pixels to be stored.
+     * @throws Exception Pass through the server error.
+     */
+    public boolean finish(String uploadId, String billboardName, int version) throws Exception {
+        createTable();
+
+        // Only the header is read, the picture is scaled once it has replaced the billboard's.
+        try {
+            ImageService.getInstance().check(staged(uploadId, billboardName));
+        } catch (IllegalArgumentException e) {
+            remove(uploadId);
+            throw e;
+        }
+
+        boolean replaced = DataService.transaction(() -> {
+            int updated;
+            // The chunks are joined by SQLite, in order, without passing through the server's memory.
+            try (PreparedStatement psmt = DataService.getConnection().prepareStatement(
+                "UPDATE BILLBOARD SET picture = (SELECT group_concat(data, '') FROM (SELECT data FROM " + TABLE
+                    + " WHERE uploadId = ? ORDER BY position)), version = version + 1 WHERE name = ? AND version = ?"
+                    + " AND EXISTS (SELECT 1 FROM " + TABLE + " WHERE uploadId = ? AND billboardName = name)")) {
+                psmt.setString(1, uploadId);
+                psmt.setString(2, billboardName);
+                psmt.setInt(3, version);
+                psmt.setString(4, uploadId);
+                updated = psmt.executeUpdate();
+            }
+
+            remove(uploadId);
+            return updated > 0;
+        });
+
+        if (replaced) normalise(billboardName, version + 1);
+        return replaced;
+    }
+
+    /**
+     * Replaces a finished upload with the picture at display resolution, unless the billboard changed again since.
+     * This runs after the upload's transaction so the database isn't locked while the picture is scaled.
+     *
+     * @param billboardName The billboard the picture belongs to.
+     * @param version The version of the billboard with the finished upload.
+     * @throws Exception Pass through the server error.
+     */
+    private void normalise(String billboardName, int version) throws Exception {
+        String picture;
+        try (PreparedStatement psmt = DataService.getConnection().prepareStatement(
+            "SELECT picture FROM BILLBOARD WHERE name = ? AND version = ?")) {
+            psmt.setString(1, billboardName);
+            psmt.setInt(2, version);
+
+            try (ResultSet result = psmt.executeQuery()) {
+                if (!result.next()) return;
+                picture = result.getString(1);
+            }
+        }
+
+        // The picture was checked before it was stored, so it isn't too large to normalise.
+        String normalised = ImageService.getInstance().normalise(picture);
+        if (normalised == null || normalised.equals(picture)) return;
+
+        // The version stays the same, the billboard shows the same picture.
+        try (PreparedStatement psmt = DataService.getConnection().prepareStatement(
+            "UPDATE BILLBOARD SET picture = ? WHERE name = ? AND version = ?")) {
+            psmt.setString(1, normalised);
+            psmt.setString(2, billboardName);
+            psmt.setInt(3, version);
+            psmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Reads a single chunk of a billboard's picture.
+     *
+     * @param billboardName The billboard the picture belongs to.
+     * @param offset The position of the chunk in the base64 picture.
+     * @return PictureChunk The chunk, with the total length of the picture, or null if the billboard doesn't exist.
+     * @throws Exception Pass through the server error.
+     */
+    public PictureChunk read(String billboardName, long offset) throws Exception {
+        try (PreparedStatement psmt = DataService.getConnection().prepareStatement(
+            "SELECT length(picture), substr(picture, ?, ?) FROM BILLBOARD WHERE name = ?")) {
+            // SQLite strings start at 1.
+            psmt.setLong(1, offset + 1);
+            psmt.setInt(2, PictureChunk.SIZE);
+            psmt.setString(3, billboardName);
+
+            try (ResultSet result = psmt.executeQuery()) {
+                if (!result.next()) return null;
+
+                String data = result.getString(2);
+                PictureChunk chunk = new PictureChunk(billboardName, null, offset, data == null ? "" : data, false);
+                chunk.total = result.getLong(1);
+                chunk.last = offset + chunk.data.length() >= chunk.total;
+                return chunk;
+            }
+        }
+    }
+
+    /**
+     * @return The staged chunks of an upload joined in order, or null if it has none.
+     */
+    private String staged(String uploadId, String billboardName) throws Exception {
+        try (PreparedStatement psmt = DataService.getConnection().prepareStatement(
+            "SELECT group_concat(data, '') FROM (SELECT data FROM " + TABLE
+                + " WHERE uploadId = ? AND billboardName = ? ORDER BY position)")) {
+            psmt.setString(1, uploadId);
+            psmt.setString(2, billboardName);
+
+            try (ResultSet result = psmt.executeQuery()) {
+                return result.next() ? result.getString(1) : null;
+            }
+        }
+    }
+
+    /**
+     * Removes the staged chunks of an upload.
+     */
+    private void remove(String uploadId) throws Exception {
+        try (PreparedStatement psmt = DataService.getConnection().prepareStatement("DELETE FROM " + TABLE + " WHERE uploadId = ?")) {
+            psmt.setString(1, uploadId);
+            psmt.executeUpdate();
+        }
+    }
+
+    /**
+     * @return The number of base64 characters staged so far for an upload.
+     */
+    private long length(String uploadId, String billboardName) throws Exception {
+        try (PreparedStatement psmt = DataService.getConnection().prepareStatement(
+            "SELECT COALESCE(SUM(length(data)), 0) FROM " + TABLE + " WHERE uploadId = ? AND billboardName = ?")) {
+            psmt.setString(1, uploadId);
+            psmt.setString(2, billboardName);
+
+            try (ResultSet result = psmt.executeQuery()) {
+                return result.next() ? result.getLong(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Removes the chunks of uploads that were never finished.
+     */
+    private void expire() throws Exception {
+        try (PreparedStatement psmt = DataService.getConnection().prepareStatement("DELETE FROM " + TABLE + " WHERE createTime < ?")) {
+            psmt.setLong(1, System.currentTimeMillis() - EXPIRY);
+            psmt.executeUpdate();
+        }
+    }
+}
@@ -14,7 +14,7 @@ public class RouterService {
 
     private static Router router;
 
-    public static class Router extends GenericRouter<String, Class<? extends Action>, Router> {
+    public static class Router extends GenericRouter<String, Action, Router> {
         public Router() { super(); }
 
         @Override protected Router getThis() { return this; }
@@ -81,7 +81,7 @@ public class TokenService {
      * @throws Exception Pass through the server error.
      */
     public Optional<User> checkUserExists(String username) throws Exception {
-        return CollectionFactory.getInstance(User.class).get(u -> u.username.equals(username)).stream().findFirst();
+        return CollectionFactory.getInstance(User.class).find("username", username);
     }
 
     /**
@@ -92,7 +92,7 @@ public class TokenService {
      * @throws Exception Pass through the server error.
      */
     public Optional<Permissions> checkPermissionsExist(String username) throws Exception {
-        return CollectionFactory.getInstance(Permissions.class).get(u -> u.username.equals(username)).stream().findFirst();
+        return CollectionFactory.getInstance(Permissions.class).find("username", username);
     }
 
     /**
@@ -0,0 +1,73 @@
+package common.router;
+
+import common.models.Billboard;
+import common.router.response.Ok;
+import common.router.response.Status;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompressedTests {
+
+    private static int serializedSize(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        return bytes.size();
+    }
+
+    @Test
+    public void TestLargeResponseRoundTrip() throws Exception {
+        List<Billboard> billboards = new ArrayList<>();
+        for (int i = 0; i < 100; i++) billboards.add(Billboard.Random(i));
+        Response response = new Ok(billboards);
+
+        Object wrapped = Compressed.wrap(response);
+        assertTrue(wrapped instanceof Compressed);
+        assertTrue(serializedSize(wrapped) < serializedSize(response));
+
+        Response unwrapped = (Response) Compressed.unwrap(wrapped);
+        assertEquals(Status.SUCCESS, unwrapped.status);
+        List<Billboard> result = (List<Billboard>) unwrapped.body;
+        assertEquals(100, result.size());
+        assertEquals(billboards.get(42).name, result.get(42).name);
+        assertEquals(billboards.get(42).picture, result.get(42).picture);
+    }
+
+    @Test
+    public void TestSmallResponseIsNotCompressed() throws Exception {
+        Response response = new Ok();
+        assertSame(response, Compressed.wrap(response));
+        assertSame(response, Compressed.unwrap(response));
+    }
+
+    @Test
+    public void TestIncompressibleResponseIsNotCompressed() throws Exception {
+        byte[] noise = new byte[10000];
+        new Random(1).nextBytes(noise);
+        Response response = new Ok(noise);
+
+        assertSame(response, Compressed.wrap(response));
+
+        // Bytes that are only part of the body are still tried, and given up on.
+        byte[] large = new byte[1 << 20];
+        new Random(1).nextBytes(large);
+        Response nested = new Ok(new byte[][] { large });
+        assertSame(nested, Compressed.wrap(nested));
+    }
+
+    @Test
+    public void TestCorruptData() {
+        Compressed corrupt = new Compressed(100, new byte[] { 1, 2, 3 });
+        assertThrows(StreamCorruptedException.class, corrupt::decompress);
+    }
+}
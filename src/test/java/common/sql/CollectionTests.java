@@ -1,7 +1,22 @@
 package common.sql;
 
+import common.models.Billboard;
+import common.models.Permissions;
+import common.models.User;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
 public class CollectionTests {
     // Only test fromSQL(), other funcs should work provided the StatementBuilder works correctly
 
@@ -34,4 +49,326 @@ public class CollectionTests {
 //        assert(deletedUser == null);
     }
 
+    @Test
+    public void TestTransactionCommits() throws Exception {
+        User a = User.Random();
+        User b = User.Random();
+
+        Collection.transaction(() -> {
+            CollectionFactory.getInstance(User.class).insert(a);
+            CollectionFactory.getInstance(User.class).insert(b);
+            return null;
+        });
+
+        List<User> users = CollectionFactory.getInstance(User.class).get(u -> u.username.equals(a.username) || u.username.equals(b.username));
+        assertEquals(2, users.size());
+
+        for (User user : users) CollectionFactory.getInstance(User.class).delete(user);
+    }
+
+    @Test
+    public void TestTransactionRollsBack() throws Exception {
+        User user = User.Random();
+
+        assertThrows(IllegalStateException.class, () -> Collection.transaction(() -> {
+            CollectionFactory.getInstance(User.class).insert(user);
+            throw new IllegalStateException();
+        }));
+
+        assertTrue(CollectionFactory.getInstance(User.class).get(u -> u.username.equals(user.username)).isEmpty());
+    }
+
+    @Test
+    public void TestNestedTransactionJoins() throws Exception {
+        User user = User.Random();
+
+        assertThrows(IllegalStateException.class, () -> Collection.transaction(() -> {
+            // The inner transaction returns normally, but its insert is rolled back with the outer one.
+            Collection.transaction(() -> {
+                CollectionFactory.getInstance(User.class).insert(user);
+                return null;
+            });
+            throw new IllegalStateException();
+        }));
+
+        assertTrue(CollectionFactory.getInstance(User.class).get(u -> u.username.equals(user.username)).isEmpty());
+    }
+
+    @Test
+    public void TestBatchLifeCycle() throws Exception {
+        List<User> inserted = List.of(User.Random(), User.Random(), User.Random());
+        List<String> usernames = List.of(inserted.get(0).username, inserted.get(1).username, inserted.get(2).username);
+
+        CollectionFactory.getInstance(User.class).insertAll(inserted);
+        List<User> users = CollectionFactory.getInstance(User.class).get(u -> usernames.contains(u.username));
+        assertEquals(3, users.size());
+
+        for (User user : users) user.salt = "batched";
+        CollectionFactory.getInstance(User.class).updateAll(users);
+        assertEquals(3, CollectionFactory.getInstance(User.class).get(u -> usernames.contains(u.username) && "batched".equals(u.salt)).size());
+
+        CollectionFactory.getInstance(User.class).deleteAll(users);
+        assertTrue(CollectionFactory.getInstance(User.class).get(u -> usernames.contains(u.username)).isEmpty());
+    }
+
+    @Test
+    public void TestSetBasedLifeCycle() throws Exception {
+        User user = User.Random();
+        CollectionFactory.getInstance(User.class).insert(user);
+
+        int updated = CollectionFactory.getInstance(User.class).updateWhere(Map.of("salt", "set"), Query.where("username", user.username));
+        assertEquals(1, updated);
+        assertEquals("set", CollectionFactory.getInstance(User.class).get(u -> u.username.equals(user.username)).get(0).salt);
+
+        int deleted = CollectionFactory.getInstance(User.class).deleteWhere(Query.where("username", user.username));
+        assertEquals(1, deleted);
+        assertTrue(CollectionFactory.getInstance(User.class).get(u -> u.username.equals(user.username)).isEmpty());
+    }
+
+    @Test
+    public void TestStream() throws Exception {
+        User user = User.Random();
+        CollectionFactory.getInstance(User.class).insert(user);
+
+        try (Stream<User> users = CollectionFactory.getInstance(User.class).stream(Query.where("username", user.username), 10)) {
+            List<User> found = users.collect(Collectors.toList());
+            assertEquals(1, found.size());
+            assertEquals(user.username, found.get(0).username);
+        }
+
+        // Short circuiting only reads the rows it needs.
+        try (Stream<User> users = CollectionFactory.getInstance(User.class).stream()) {
+            assertTrue(users.anyMatch(u -> u.username.equals(user.username)));
+        }
+
+        CollectionFactory.getInstance(User.class).deleteWhere(Query.where("username", user.username));
+    }
+
+    @Test
+    public void TestPage() throws Exception {
+        List<User> inserted = List.of(User.Random(), User.Random(), User.Random(), User.Random(), User.Random());
+        List<String> usernames = inserted.stream().map(u -> u.username).collect(Collectors.toList());
+        CollectionFactory.getInstance(User.class).insertAll(inserted);
+
+        // Walk every page, each item should be seen exactly once and in order.
+        List<String> seen = new ArrayList<>();
+        Page<User> page = CollectionFactory.getInstance(User.class).page("username", null, null, 2);
+        while (true) {
+            assertTrue(page.items.size() <= 2);
+            for (User user : page.items) seen.add(user.username);
+            if (!page.more) break;
+            page = CollectionFactory.getInstance(User.class).page("username", page.after, page.afterId, 2);
+        }
+
+        List<String> sorted = new ArrayList<>(seen);
+        Collections.sort(sorted);
+        assertEquals(sorted, seen);
+        assertEquals(new HashSet<>(seen).size(), seen.size());
+        assertTrue(seen.containsAll(usernames));
+
+        for (String username : usernames) CollectionFactory.getInstance(User.class).deleteWhere(Query.where("username", username));
+    }
+
+    @Test
+    public void TestConcurrentGetInstance() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Collection<Permissions>>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 8; i++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                return CollectionFactory.getInstance(Permissions.class);
+            }));
+        }
+        start.countDown();
+
+        // Every thread should see the one registered collection.
+        Collection<Permissions> expected = CollectionFactory.getInstance(Permissions.class);
+        for (Future<Collection<Permissions>> future : futures) assertSame(expected, future.get(10, TimeUnit.SECONDS));
+
+        pool.shutdown();
+    }
+
+    @Test
+    public void TestCountAndExists() throws Exception {
+        User user = User.Random();
+        Query query = Query.where("username", user.username);
+        assertFalse(CollectionFactory.getInstance(User.class).exists(query));
+        assertEquals(0, CollectionFactory.getInstance(User.class).count(query));
+
+        CollectionFactory.getInstance(User.class).insert(user);
+        assertTrue(CollectionFactory.getInstance(User.class).exists(query));
+        assertEquals(1, CollectionFactory.getInstance(User.class).count(query));
+
+        CollectionFactory.getInstance(User.class).deleteWhere(query);
+    }
+
+    @Test
+    public void TestInsertReturnsIdAndUpsert() throws Exception {
+        Collection<User> users = CollectionFactory.getInstance(User.class);
+        User user = User.Random();
+
+        int id = users.insert(user);
+        assertTrue(id > 0);
+        assertEquals(id, user.id);
+        assertEquals(user.username, users.find("id", id).get().username);
+
+        // A second insert with the same username is skipped rather than failing.
+        User duplicate = User.Random();
+        duplicate.username = user.username;
+        assertFalse(users.insertIfAbsent(duplicate, "username"));
+
+        // An upsert updates the existing row instead.
+        duplicate.salt = "upserted";
+        users.upsert(duplicate, "username");
+        assertEquals(1, users.count(Query.where("username", user.username)));
+        assertEquals("upserted", users.find("username", user.username).get().salt);
+
+        users.deleteWhere(Query.where("username", user.username));
+    }
+
+    @Test
+    public void TestConcurrentInsertsGetTheirOwnId() throws Exception {
+        Collection<User> users = CollectionFactory.getInstance(User.class);
+        List<User> inserted = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            futures.add(executor.submit(() -> {
+                User user = User.Random();
+                users.insert(user);
+                inserted.add(user);
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) future.get();
+        executor.shutdown();
+
+        for (User user : inserted) {
+            assertEquals(user.username, users.find("id", user.id).get().username);
+            users.delete(user);
+        }
+    }
+
+    @Test
+    public void TestInsertWithId() throws Exception {
+        Collection<User> users = CollectionFactory.getInstance(User.class);
+        User user = User.Random();
+        users.insert(user);
+
+        // A plain insert always generates the id, even when the object has one.
+        User other = User.Random();
+        other.id = user.id;
+        assertNotEquals(user.id, users.insert(other));
+
+        User kept = User.Random();
+        kept.id = other.id + 1000;
+        users.insertWithId(kept);
+        assertEquals(kept.username, users.find("id", kept.id).get().username);
+
+        for (User u : List.of(user, other, kept)) users.delete(u);
+    }
+
+    @Test
+    public void TestVersionedUpdate() throws Exception {
+        User user = User.Random();
+        CollectionFactory.getInstance(User.class).insert(user);
+
+        Collection<Billboard> billboards = CollectionFactory.getInstance(Billboard.class);
+        Billboard billboard = Billboard.Random(user.id);
+        billboards.insert(billboard);
+
+        // Two clients read the same version.
+        Billboard first = billboards.find("id", billboard.id).get();
+        Billboard second = billboards.find("id", billboard.id).get();
+
+        first.message = "first";
+        assertTrue(billboards.update(first));
+        assertEquals(1, first.version);
+
+        // The second client's update is rejected rather than overwriting the first.
+        second.message = "second";
+        assertFalse(billboards.update(second));
+        assertEquals("first", billboards.find("id", billboard.id).get().message);
+
+        // A stale object in a batch rolls back the whole batch.
+        first.message = "batched";
+        assertThrows(ConcurrentModificationException.class, () -> billboards.updateAll(List.of(first, second)));
+        assertEquals("first", billboards.find("id", billboard.id).get().message);
+
+        billboards.delete(billboard);
+        CollectionFactory.getInstance(User.class).delete(user);
+    }
+
+    @Test
+    public void TestPatch() throws Exception {
+        User user = User.Random();
+        CollectionFactory.getInstance(User.class).insert(user);
+
+        Collection<Billboard> billboards = CollectionFactory.getInstance(Billboard.class);
+        Billboard billboard = Billboard.Random(user.id);
+        billboards.insert(billboard);
+
+        // Only the patched column changes.
+        Patch patch = new Patch(billboard.id, billboard.version).set("messageColor", "#123456");
+        assertTrue(billboards.patch(patch));
+        assertEquals(1, patch.version);
+
+        Billboard patched = billboards.find("id", billboard.id).get();
+        assertEquals("#123456", patched.messageColor);
+        assertEquals(billboard.message, patched.message);
+        assertEquals(billboard.picture, patched.picture);
+
+        // A patch from the old version is rejected.
+        assertFalse(billboards.patch(new Patch(billboard.id, 0).set("message", "stale")));
+        assertThrows(IllegalArgumentException.class, () -> billboards.patch(new Patch(billboard.id, 1).set("version", 5)));
+
+        // A value of the wrong type is rejected rather than stored, as the row couldn't be read back.
+        assertThrows(IllegalArgumentException.class, () -> billboards.patch(new Patch(billboard.id, 1).set("message", 5)));
+        assertThrows(IllegalArgumentException.class, () -> billboards.patch(new Patch(billboard.id, 1).set("locked", "x")));
+        assertTrue(billboards.patch(new Patch(billboard.id, 1).set("locked", true).set("information", null)));
+        assertTrue(billboards.find("id", billboard.id).get().locked);
+
+        billboards.delete(billboard);
+        CollectionFactory.getInstance(User.class).delete(user);
+    }
+
+    @Test
+    public void TestChanges() throws Exception {
+        User user = User.Random();
+        CollectionFactory.getInstance(User.class).insert(user);
+
+        Collection<Billboard> billboards = CollectionFactory.getInstance(Billboard.class);
+        Billboard updated = Billboard.Random(user.id);
+        Billboard deleted = Billboard.Random(user.id);
+        billboards.insert(updated);
+        billboards.insert(deleted);
+
+        long since = billboards.page("id", null, null, 1).sequence;
+        assertEquals(0, billboards.changes(since).changed.size());
+
+        updated.message = "changed";
+        billboards.update(updated);
+        billboards.delete(deleted);
+        Billboard inserted = Billboard.Random(user.id);
+        billboards.insert(inserted);
+
+        // Only the current version of each changed row, and the ids of the deleted rows.
+        Delta<Billboard> delta = billboards.changes(since);
+        assertFalse(delta.reset);
+        assertEquals(since + 3, delta.sequence);
+        assertEquals(List.of(updated.id, inserted.id), delta.changed.stream().map(b -> b.id).sorted().collect(Collectors.toList()));
+        assertEquals("changed", delta.changed.stream().filter(b -> b.id == updated.id).findFirst().get().message);
+        assertEquals(List.of(deleted.id), delta.deleted);
+
+        assertTrue(billboards.changes(delta.sequence).changed.isEmpty());
+        // A sequence from the future is from a different database.
+        assertTrue(billboards.changes(delta.sequence + 1).reset);
+
+        billboards.delete(updated);
+        billboards.delete(inserted);
+        CollectionFactory.getInstance(User.class).delete(user);
+    }
 }
@@ -0,0 +1,79 @@
+package common.sql;
+
+import common.models.User;
+import org.junit.jupiter.api.Test;
+import server.services.MetricsService;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EntityCacheTests {
+
+    private static MetricsService.CacheStatistics statistics() {
+        return MetricsService.getInstance().cacheSnapshot().stream()
+            .filter(c -> c.name.equals(User.class.getSimpleName())).findFirst().orElseThrow();
+    }
+
+    @Test
+    public void TestReadsAreServedFromCache() throws Exception {
+        Collection<User> users = CollectionFactory.getInstance(User.class);
+        users.get(u -> true);
+
+        long hits = statistics().hits;
+        users.get(u -> true);
+        users.get(u -> true);
+
+        assertEquals(hits + 2, statistics().hits);
+    }
+
+    @Test
+    public void TestWritesInvalidate() throws Exception {
+        Collection<User> users = CollectionFactory.getInstance(User.class);
+        User user = User.Random();
+        users.get(u -> true);
+
+        users.insert(user);
+        Optional<User> found = users.find("username", user.username);
+        assertTrue(found.isPresent());
+
+        found.get().salt = "changed";
+        users.update(found.get());
+        assertEquals("changed", users.find("username", user.username).get().salt);
+
+        users.delete(found.get());
+        assertTrue(users.find("username", user.username).isEmpty());
+    }
+
+    @Test
+    public void TestCallersGetCopies() throws Exception {
+        Collection<User> users = CollectionFactory.getInstance(User.class);
+        User user = User.Random();
+        users.insert(user);
+
+        users.find("username", user.username).get().salt = "modified";
+        assertNotEquals("modified", users.find("username", user.username).get().salt);
+
+        users.deleteWhere(Query.where("username", user.username));
+    }
+
+    @Test
+    public void TestTransactionSeesOwnWritesAndCommitInvalidates() throws Exception {
+        Collection<User> users = CollectionFactory.getInstance(User.class);
+        User user = User.Random();
+        users.get(u -> true);
+
+        Collection.transaction(() -> {
+            users.insert(user);
+            // Inside the transaction the cache is bypassed.
+            assertTrue(users.find("username", user.username).isPresent());
+            return null;
+        });
+
+        List<User> found = users.get(u -> u.username.equals(user.username));
+        assertEquals(1, found.size());
+
+        users.delete(found.get(0));
+    }
+}
@@ -6,7 +6,12 @@ import common.models.Schedule;
 import common.models.User;
 import org.junit.jupiter.api.Test;
 
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class SchemaBuilderTests {
     // Once dynamic schema builder is built. Test the schema returns pstmt correctly
@@ -19,6 +24,7 @@ public class SchemaBuilderTests {
                     "message VARCHAR(255), messageColor VARCHAR(7) DEFAULT \"#000000\", picture BLOB, " +
                     "backgroundColor VARCHAR(7) DEFAULT \"#ffffff\", information VARCHAR(255), " +
                     "informationColor VARCHAR(7) DEFAULT \"#000000\", locked BOOLEAN, userId INTEGER NOT NULL, " +
+                    "version INTEGER NOT NULL DEFAULT 0, " +
                     "FOREIGN KEY(userId) REFERENCES User(id))"
                 ,result);
     }
@@ -37,7 +43,7 @@ public class SchemaBuilderTests {
         assertEquals("CREATE TABLE IF NOT EXISTS " +
                 "SCHEDULE (id INTEGER PRIMARY KEY AUTOINCREMENT, billboardName VARCHAR(255) NOT NULL, " +
                 "dayOfWeek INTEGER NOT NULL, start INTEGER NOT NULL, createTime DATETIME NOT NULL, " +
-                "duration INTEGER NOT NULL, interval INTEGER NOT NULL, " +
+                "duration INTEGER NOT NULL, interval INTEGER NOT NULL, version INTEGER NOT NULL DEFAULT 0, " +
                 "FOREIGN KEY(billboardName) REFERENCES Billboard(name))"
             , result);
     }
@@ -52,4 +58,22 @@ public class SchemaBuilderTests {
                 " FOREIGN KEY(username) REFERENCES User(username))"
         ,result);
     }
+
+    @Test
+    public void addsMissingColumns() throws Exception {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite::memory:")) {
+            // A billboard table from before the version field was added.
+            connection.createStatement().executeUpdate("CREATE TABLE BILLBOARD (id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                "name VARCHAR(255) NOT NULL UNIQUE, message VARCHAR(255), messageColor VARCHAR(7), picture BLOB, " +
+                "backgroundColor VARCHAR(7), information VARCHAR(255), informationColor VARCHAR(7), locked BOOLEAN, " +
+                "userId INTEGER NOT NULL)");
+            connection.createStatement().executeUpdate("INSERT INTO BILLBOARD (name, userId) VALUES ('old', 1)");
+
+            SchemaBuilder.build(connection, Billboard.class);
+
+            ResultSet result = connection.createStatement().executeQuery("SELECT version FROM BILLBOARD WHERE name = 'old'");
+            assertTrue(result.next());
+            assertEquals(0, result.getInt(1));
+        }
+    }
 }
@@ -3,7 +3,11 @@ package common.sql;
 import common.models.Billboard;
 import org.junit.jupiter.api.Test;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class StatementBuilderTests {
     // Test the statements are working correctly for different cases. Testing the prepared statement given back
@@ -14,16 +18,45 @@ public class StatementBuilderTests {
         assertEquals("SELECT * FROM BILLBOARD", stmt);
     }
 
+    @Test
+    public void GetWhereStatement() throws Exception {
+        String stmt = StatementBuilder.createGetStatement(Billboard.class, Query.where("name", "a"));
+        assertEquals("SELECT * FROM BILLBOARD WHERE name = ?", stmt);
+    }
+
+    @Test
+    public void CountAndExistsStatements() throws Exception {
+        assertEquals("SELECT COUNT(*) FROM BILLBOARD WHERE userId = ?", StatementBuilder.createCountStatement(Billboard.class, Query.where("userId", 1)));
+        assertEquals("SELECT 1 FROM BILLBOARD WHERE name = ? LIMIT 1", StatementBuilder.createExistsStatement(Billboard.class, Query.where("name", "a")));
+    }
+
+    @Test
+    public void UpsertStatements() throws Exception {
+        String insert = StatementBuilder.createInsertStatement(Billboard.class);
+        assertEquals(insert + " ON CONFLICT(name) DO NOTHING", StatementBuilder.createUpsertStatement(Billboard.class, false, "name"));
+        assertEquals(insert + " ON CONFLICT(name) DO UPDATE SET message = excluded.message, messageColor = excluded.messageColor, picture = excluded.picture, backgroundColor = excluded.backgroundColor, information = excluded.information, informationColor = excluded.informationColor, locked = excluded.locked, userId = excluded.userId, version = version + 1",
+            StatementBuilder.createUpsertStatement(Billboard.class, true, "name"));
+        assertThrows(IllegalArgumentException.class, () -> StatementBuilder.createUpsertStatement(Billboard.class, false, "nope"));
+    }
+
+    @Test
+    public void PageStatement() throws Exception {
+        assertEquals("SELECT * FROM BILLBOARD ORDER BY name, id LIMIT ?", StatementBuilder.createPageStatement(Billboard.class, "name", true));
+        assertEquals("SELECT * FROM BILLBOARD WHERE (name > ? OR (name = ? AND id > ?)) ORDER BY name, id LIMIT ?", StatementBuilder.createPageStatement(Billboard.class, "name", false));
+        assertEquals("SELECT * FROM BILLBOARD WHERE id > ? ORDER BY id LIMIT ?", StatementBuilder.createPageStatement(Billboard.class, "id", false));
+        assertThrows(IllegalArgumentException.class, () -> StatementBuilder.createPageStatement(Billboard.class, "name; DROP TABLE BILLBOARD", true));
+    }
+
     @Test
     public void InsertStatement() throws Exception {
         String stmt = StatementBuilder.createInsertStatement(Billboard.class);
-        assertEquals("INSERT INTO BILLBOARD (name, message, messageColor, picture, backgroundColor, information, informationColor, locked, userId) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", stmt);
+        assertEquals("INSERT INTO BILLBOARD (name, message, messageColor, picture, backgroundColor, information, informationColor, locked, userId, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", stmt);
     }
 
     @Test
     public void UpdateStatement() throws Exception {
         String stmt = StatementBuilder.createUpdateStatement(Billboard.class);
-        assertEquals("UPDATE BILLBOARD SET name = ?, message = ?, messageColor = ?, picture = ?, backgroundColor = ?, information = ?, informationColor = ?, locked = ?, userId = ? WHERE ID = ?", stmt);
+        assertEquals("UPDATE BILLBOARD SET name = ?, message = ?, messageColor = ?, picture = ?, backgroundColor = ?, information = ?, informationColor = ?, locked = ?, userId = ?, version = version + 1 WHERE ID = ? AND version = ?", stmt);
     }
 
     @Test
@@ -32,4 +65,26 @@ public class StatementBuilderTests {
         assertEquals("DELETE FROM BILLBOARD WHERE ID = ?", stmt);
     }
 
+    @Test
+    public void DeleteWhereStatement() throws Exception {
+        String stmt = StatementBuilder.createDeleteWhereStatement(Billboard.class, Query.where("name", "a").and("userId", 1));
+        assertEquals("DELETE FROM BILLBOARD WHERE name = ? AND userId = ?", stmt);
+    }
+
+    @Test
+    public void UpdateWhereStatement() throws Exception {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("userId", 1);
+        values.put("locked", false);
+
+        String stmt = StatementBuilder.createUpdateWhereStatement(Billboard.class, values, Query.where("userId", 2));
+        assertEquals("UPDATE BILLBOARD SET userId = ?, locked = ?, version = version + 1 WHERE userId = ?", stmt);
+    }
+
+    @Test
+    public void UnknownColumnsAreRejected() throws Exception {
+        assertThrows(IllegalArgumentException.class, () -> StatementBuilder.createDeleteWhereStatement(Billboard.class, Query.where("1 = 1 OR name", "a")));
+        assertThrows(IllegalArgumentException.class, () -> StatementBuilder.createUpdateWhereStatement(Billboard.class, Map.of("id", 1), Query.where("name", "a")));
+        assertThrows(IllegalArgumentException.class, () -> StatementBuilder.createUpdateWhereStatement(Billboard.class, Map.of("version", 1), Query.where("name", "a")));
+    }
 }
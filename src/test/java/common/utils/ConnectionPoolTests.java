@@ -0,0 +1,134 @@
+package common.utils;
+
+import common.router.Request;
+import common.router.Response;
+import common.router.response.Status;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import server.SocketHandler;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConnectionPoolTests {
+
+    private ServerSocket server;
+    private final AtomicInteger accepted = new AtomicInteger();
+
+    /**
+     * Starts a server on an ephemeral port whose connections are closed after being idle for the given time.
+     */
+    private ConnectionPool start(int serverIdleTimeout) throws IOException {
+        server = new ServerSocket(0);
+        Thread listener = new Thread(() -> {
+            try {
+                while (true) {
+                    Socket s = server.accept();
+                    accepted.incrementAndGet();
+                    new Thread(new SocketHandler(s, serverIdleTimeout)).start();
+                }
+            } catch (SocketException e) {
+                // The server was closed.
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+        listener.setDaemon(true);
+        listener.start();
+
+        return new ConnectionPool("localhost", server.getLocalPort(), 1000, 5000, 60000, 2);
+    }
+
+    @AfterEach
+    public void Stop() throws IOException {
+        if (server != null) server.close();
+    }
+
+    @Test
+    public void TestReusesConnection() throws Exception {
+        ConnectionPool pool = start(60000);
+
+        for (int i = 0; i < 3; i++) {
+            Object response = pool.send(new Request("/no/such/path", null, null, null));
+            assertEquals(Status.NOT_FOUND, ((Response) response).status);
+        }
+
+        assertEquals(1, accepted.get());
+        assertEquals(1, pool.idleCount());
+        pool.close();
+        assertEquals(0, pool.idleCount());
+    }
+
+    @Test
+    public void TestReconnectsAfterServerClosesIdleConnection() throws Exception {
+        ConnectionPool pool = start(100);
+
+        pool.send(new Request("/no/such/path", null, null, null));
+        // Let the server close the pooled connection.
+        Thread.sleep(500);
+
+        Object response = pool.send(new Request("/no/such/path", null, null, null));
+        assertEquals(Status.NOT_FOUND, ((Response) response).status);
+        assertEquals(2, accepted.get());
+    }
+
+    @Test
+    public void TestUnreachableServer() throws Exception {
+        // A bound socket that isn't listening refuses connections, and holds the port so nothing else can take it.
+        try (Socket reserved = new Socket()) {
+            reserved.bind(new InetSocketAddress("localhost", 0));
+            ConnectionPool pool = new ConnectionPool("localhost", reserved.getLocalPort(), 1000, 5000, 60000, 2);
+
+            assertThrows(IOException.class, () -> pool.send(new Request("/no/such/path", null, null, null)));
+        }
+    }
+
+    @Test
+    public void TestDoesNotResendAfterServerReadRequest() throws Exception {
+        server = new ServerSocket(0);
+        AtomicInteger requests = new AtomicInteger();
+        Thread listener = new Thread(() -> {
+            try {
+                while (true) {
+                    Socket s = server.accept();
+                    accepted.incrementAndGet();
+                    ObjectOutputStream out = new ObjectOutputStream(s.getOutputStream());
+                    out.flush();
+                    ObjectInputStream in = new ObjectInputStream(s.getInputStream());
+
+                    // Answer the first request, then drop the connection part way through replying to the second.
+                    in.readObject();
+                    requests.incrementAndGet();
+                    out.writeObject(new Response(Status.SUCCESS));
+                    out.flush();
+
+                    in.readObject();
+                    requests.incrementAndGet();
+                    out.write(new byte[] { 0x73 });
+                    out.flush();
+                    s.setSoLinger(true, 0);
+                    s.close();
+                }
+            } catch (Exception e) {
+                // The server was closed.
+            }
+        });
+        listener.setDaemon(true);
+        listener.start();
+
+        ConnectionPool pool = new ConnectionPool("localhost", server.getLocalPort(), 1000, 5000, 60000, 2);
+        pool.send(new Request("/insert", null, null, null));
+
+        assertThrows(IOException.class, () -> pool.send(new Request("/insert", null, null, null)));
+        assertEquals(2, requests.get());
+        assertEquals(1, accepted.get());
+    }
+}
@@ -0,0 +1,117 @@
+package common.utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PictureFetcherTests {
+
+    @TempDir
+    Path cache;
+
+    private HttpServer server;
+    private byte[] png;
+    private final AtomicInteger downloads = new AtomicInteger();
+    private final AtomicInteger notModified = new AtomicInteger();
+
+    @BeforeEach
+    public void Start() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(20, 10, BufferedImage.TYPE_INT_RGB), "png", out);
+        png = out.toByteArray();
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/picture.png", exchange -> {
+            if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModified.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                downloads.incrementAndGet();
+                exchange.getResponseHeaders().add("ETag", "\"v1\"");
+                send(exchange.getResponseBody(), exchange, png);
+            }
+            exchange.close();
+        });
+        server.createContext("/text", exchange -> {
+            send(exchange.getResponseBody(), exchange, "hello world".getBytes());
+            exchange.close();
+        });
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(2000);
+            } catch (InterruptedException ignored) { }
+            exchange.close();
+        });
+        server.start();
+    }
+
+    private static void send(OutputStream body, HttpExchange exchange, byte[] bytes) throws IOException {
+        exchange.sendResponseHeaders(200, bytes.length);
+        body.write(bytes);
+    }
+
+    @AfterEach
+    public void Stop() {
+        server.stop(0);
+    }
+
+    private String url(String path) {
+        return "http://localhost:" + server.getAddress().getPort() + path;
+    }
+
+    @Test
+    public void TestFetchIsCachedByEtag() throws Exception {
+        PictureFetcher fetcher = new PictureFetcher(cache, 1000, 1000, 1024 * 1024, 1024 * 1024, 2);
+        String expected = Base64.getEncoder().encodeToString(png);
+
+        assertEquals(expected, fetcher.fetch(url("/picture.png")));
+        assertEquals(expected, fetcher.fetch(url("/picture.png")));
+
+        // The second fetch only revalidated the cached copy.
+        assertEquals(1, downloads.get());
+        assertEquals(1, notModified.get());
+
+        // A new fetcher sharing the cache directory revalidates too.
+        assertEquals(expected, new PictureFetcher(cache, 1000, 1000, 1024 * 1024, 1024 * 1024, 1).fetch(url("/picture.png")));
+        assertEquals(1, downloads.get());
+    }
+
+    @Test
+    public void TestNotAnImage() throws Exception {
+        PictureFetcher fetcher = new PictureFetcher(null, 1000, 1000, 1024, 1024, 1);
+        assertNull(fetcher.fetch(url("/text")));
+    }
+
+    @Test
+    public void TestTooLarge() {
+        PictureFetcher fetcher = new PictureFetcher(null, 1000, 1000, png.length - 1, 1024, 1);
+        assertThrows(IOException.class, () -> fetcher.fetch(url("/picture.png")));
+    }
+
+    @Test
+    public void TestReadTimeout() {
+        PictureFetcher fetcher = new PictureFetcher(null, 1000, 200, 1024, 1024, 1);
+        assertThrows(IOException.class, () -> fetcher.fetch(url("/slow")));
+    }
+
+    @Test
+    public void TestMissing() {
+        PictureFetcher fetcher = new PictureFetcher(null, 1000, 1000, 1024, 1024, 1);
+        assertThrows(IOException.class, () -> fetcher.fetch(url("/missing")));
+    }
+}
@@ -0,0 +1,92 @@
+package common.xml;
+
+import common.models.Billboard;
+import common.utils.XML;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class XMLStreamingTests {
+
+    @TempDir
+    Path directory;
+
+    private static Billboard billboard() {
+        Billboard billboard = Billboard.Random(0);
+        billboard.message = "Fish & <chips> \"today\"";
+        billboard.messageColor = "#323ca8";
+        billboard.information = "Line one\nline two";
+        billboard.informationColor = "#a8a032";
+        billboard.backgroundColor = "#a532ad";
+
+        byte[] picture = new byte[1024 * 1024];
+        new Random(1).nextBytes(picture);
+        billboard.picture = Base64.getEncoder().encodeToString(picture);
+        return billboard;
+    }
+
+    @Test
+    public void TestMatchesDocumentFormat() throws Exception {
+        Billboard billboard = Billboard.Random(0);
+        billboard.message = "Hello!";
+        billboard.messageColor = "#FFFFFF";
+        billboard.picture = "AAAA";
+        billboard.information = null;
+        billboard.backgroundColor = "#000000";
+
+        assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?><billboard background=\"#000000\">"
+            + "<message colour=\"#FFFFFF\">Hello!</message><picture data=\"AAAA\"/></billboard>", XML.toXML(billboard));
+
+        billboard.message = null;
+        billboard.picture = null;
+        assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?><billboard background=\"#000000\"/>", XML.toXML(billboard));
+    }
+
+    @Test
+    public void TestRoundTrip() throws Exception {
+        Billboard expected = billboard();
+        Billboard result = XML.fromXML(XML.toXML(expected), Billboard.Random(0));
+
+        assertEquals(expected.message, result.message);
+        assertEquals(expected.messageColor, result.messageColor);
+        assertEquals(expected.information, result.information);
+        assertEquals(expected.informationColor, result.informationColor);
+        assertEquals(expected.backgroundColor, result.backgroundColor);
+        assertEquals(expected.picture, result.picture);
+    }
+
+    @Test
+    public void TestFileRoundTrip() throws Exception {
+        Billboard expected = billboard();
+        File file = directory.resolve("billboard.xml").toFile();
+        XML.saveFile(expected, file);
+
+        Billboard result = XML.readFileAsync(file.toPath(), Billboard.Random(0)).get();
+        assertEquals(expected.message, result.message);
+        assertEquals(expected.picture, result.picture);
+    }
+
+    @Test
+    public void TestDefaults() throws Exception {
+        Billboard result = XML.fromXML("<billboard><message>Hi</message></billboard>", Billboard.Random(0));
+
+        assertEquals("Hi", result.message);
+        assertEquals("#000000", result.messageColor);
+        assertEquals("#FFFFFF", result.backgroundColor);
+        assertNull(result.information);
+        assertNull(result.picture);
+    }
+
+    @Test
+    public void TestInvalid() {
+        assertThrows(Exception.class, () -> XML.fromXML("<billboard><picture url=\"http://localhost\" data=\"AAAA\"/></billboard>", Billboard.Random(0)));
+        // Documents with a DTD aren't read, so they can't pull in external entities.
+        assertThrows(Exception.class, () -> XML.fromXML("<!DOCTYPE billboard [<!ENTITY x SYSTEM \"file:///etc/passwd\">]><billboard><message>&x;</message></billboard>", Billboard.Random(0)));
+    }
+}
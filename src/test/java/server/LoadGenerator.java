@@ -0,0 +1,341 @@
+package server;
+
+import common.models.Billboard;
+import common.models.Schedule;
+import common.router.Request;
+import common.router.Response;
+import common.router.response.Status;
+import common.utils.RandomFactory;
+import common.utils.session.HashingFactory;
+import common.utils.session.Session;
+import server.services.DataService;
+import server.services.MetricsService;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * A headless load generator that speaks the wire protocol to simulate viewers and control panel users.
+ * <p>
+ * Viewers poll the currently scheduled billboard at a fixed rate, editors loop through a mix of reads and the
+ * billboard and schedule CRUD lifecycle. Unless load.port is given, a server is started in process against a
+ * throwaway SQLite file. Every setting is a system property, e.g.
+ * {@code mvn -P load verify -Dload.viewers=2000 -Dload.editors=20 -Dload.duration=120}.
+ */
+public class LoadGenerator {
+
+    private static final String VIEWER_PATH = "/schedule/get/current";
+
+    private final int viewers = Integer.getInteger("load.viewers", 1000);
+    private final long viewerPollMillis = Long.getLong("load.viewerPollMillis", 15000);
+    private final int editors = Integer.getInteger("load.editors", 10);
+    private final long editorThinkMillis = Long.getLong("load.editorThinkMillis", 500);
+    private final double editorReadRatio = Double.parseDouble(System.getProperty("load.editorReadRatio", "0.5"));
+    private final long durationSeconds = Long.getLong("load.duration", 60);
+    private final int threads = Integer.getInteger("load.threads", 64);
+    private final int timeoutMillis = Integer.getInteger("load.timeoutMillis", 10000);
+
+    private String host = System.getProperty("load.host", "localhost");
+    private int port = Integer.getInteger("load.port", 0);
+
+    // Path, Operation statistics Key Value Pair
+    private final Map<String, Operation> operations = new ConcurrentHashMap<>();
+
+    /**
+     * Runs the load generator and prints the report.
+     *
+     * @param args Unused, settings are read from system properties.
+     * @throws Exception Pass through any setup error.
+     */
+    public static void main(String[] args) throws Exception {
+        new LoadGenerator().run();
+    }
+
+    /**
+     * Starts the server if required, applies the load for the configured duration and prints the report.
+     *
+     * @throws Exception Pass through any setup error.
+     */
+    public void run() throws Exception {
+        PrintStream out = System.out;
+        ServerSocket server = null;
+        Path directory = null;
+
+        if (port == 0) {
+            directory = Files.createTempDirectory("billboard-load");
+            server = startServer(directory);
+            host = "localhost";
+            port = server.getLocalPort();
+            // The server logs every request, which would drown the report and slow the run.
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        }
+
+        out.printf("Load: %d viewers every %dms, %d editors (think %dms, %.0f%% reads) for %ds against %s:%d%n",
+            viewers, viewerPollMillis, editors, editorThinkMillis, editorReadRatio * 100, durationSeconds, host, port);
+
+        try {
+            long start = System.nanoTime();
+            long deadline = start + TimeUnit.SECONDS.toNanos(durationSeconds);
+
+            ScheduledExecutorService viewerPool = Executors.newScheduledThreadPool(threads);
+            for (int i = 0; i < viewers; i++) {
+                // Spread the first polls across one period so the viewers don't arrive in lock step.
+                long delay = (long) (Math.random() * viewerPollMillis);
+                viewerPool.scheduleAtFixedRate(new Viewer(start + TimeUnit.MILLISECONDS.toNanos(delay)),
+                    delay, viewerPollMillis, TimeUnit.MILLISECONDS);
+            }
+
+            List<Thread> editorThreads = new ArrayList<>();
+            for (int i = 0; i < editors; i++) {
+                Thread thread = new Thread(new Editor(deadline), "editor-" + i);
+                thread.start();
+                editorThreads.add(thread);
+            }
+
+            TimeUnit.NANOSECONDS.sleep(deadline - System.nanoTime());
+            viewerPool.shutdownNow();
+            viewerPool.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+            for (Thread thread : editorThreads) thread.join(timeoutMillis);
+
+            out.print(report(System.nanoTime() - start));
+            if (server != null) out.print(MetricsService.format(MetricsService.getInstance().snapshot()));
+        } finally {
+            System.setOut(out);
+            if (server != null) server.close();
+            if (directory != null) {
+                try (Stream<Path> files = Files.walk(directory)) {
+                    files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts an in process server on an ephemeral port against a throwaway database.
+     *
+     * @param directory The directory to hold the database.
+     * @return The bound server socket.
+     * @throws Exception Pass through any setup error.
+     */
+    private static ServerSocket startServer(Path directory) throws Exception {
+        Path props = directory.resolve("db.props");
+        String database = directory.resolve("load.db").toAbsolutePath().toString().replace(File.separatorChar, '/');
+        Files.writeString(props, "jdbc.url=jdbc:sqlite:" + database + "\njdbc.schema=load\njdbc.username=\njdbc.password=\n");
+        System.setProperty(DataService.PROPS_PROPERTY, props.toString());
+
+        Main.initDatabase();
+        Main.initRouter();
+
+        ServerSocket ss = new ServerSocket(0, 1024);
+        Thread listener = new Thread(() -> {
+            try {
+                Main.listen(ss);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }, "load-server");
+        listener.setDaemon(true);
+        listener.start();
+        return ss;
+    }
+
+    /**
+     * Sends a single request over a new socket and records the outcome against the path.
+     *
+     * @param path The request path.
+     * @param token The session token, if any.
+     * @param params The request params.
+     * @param body The request body.
+     * @param intended When the request should have been sent, so queueing behind a slow server is counted.
+     * @return The response, or null if the request failed.
+     */
+    private Response send(String path, String token, HashMap<String, String> params, Object body, long intended) {
+        Operation operation = operations.computeIfAbsent(path, p -> new Operation());
+        Response res = null;
+
+        try (Socket s = new Socket()) {
+            s.connect(new InetSocketAddress(host, port), timeoutMillis);
+            s.setSoTimeout(timeoutMillis);
+
+            ObjectOutputStream oos = new ObjectOutputStream(s.getOutputStream());
+            oos.writeObject(new Request(path, token, params, body));
+            oos.flush();
+
+            Object o = new ObjectInputStream(s.getInputStream()).readObject();
+            if (o instanceof Response) res = (Response) o;
+
+            operation.outcomes.computeIfAbsent(res == null ? "(no response)" : res.status.name(), k -> new LongAdder()).increment();
+        } catch (Exception e) {
+            operation.outcomes.computeIfAbsent(e.getClass().getSimpleName(), k -> new LongAdder()).increment();
+        }
+
+        operation.latency.record(System.nanoTime() - intended);
+        return res;
+    }
+
+    private Response send(String path, String token, HashMap<String, String> params, Object body) {
+        return send(path, token, params, body, System.nanoTime());
+    }
+
+    private static boolean ok(Response res) {
+        return res != null && res.status == Status.SUCCESS;
+    }
+
+    /**
+     * Formats the client side statistics.
+     *
+     * @param elapsed The length of the run in nanoseconds.
+     * @return The formatted table, one line per path.
+     */
+    private String report(long elapsed) {
+        double seconds = elapsed / 1e9;
+        long total = 0, failed = 0;
+        StringBuilder out = new StringBuilder("Client latency in ms, measured from the intended send time:\n");
+
+        List<String> paths = new ArrayList<>(operations.keySet());
+        Collections.sort(paths);
+
+        for (String path : paths) {
+            Operation operation = operations.get(path);
+            MetricsService.Histogram latency = operation.latency;
+
+            long errors = 0;
+            Map<String, Long> outcomes = new TreeMap<>();
+            for (Map.Entry<String, LongAdder> entry : operation.outcomes.entrySet()) {
+                outcomes.put(entry.getKey(), entry.getValue().sum());
+                if (!entry.getKey().equals(Status.SUCCESS.name())) errors += entry.getValue().sum();
+            }
+            total += latency.count();
+            failed += errors;
+
+            out.append(String.format("  %-28s count=%-8d rps=%-8.1f p50=%-8.3f p99=%-8.3f p999=%-8.3f max=%-8.3f errors=%.2f%% %s%n",
+                path, latency.count(), latency.count() / seconds, latency.percentile(50) / 1e6, latency.percentile(99) / 1e6,
+                latency.percentile(99.9) / 1e6, latency.max() / 1e6, latency.count() == 0 ? 0 : 100.0 * errors / latency.count(), outcomes));
+        }
+
+        out.append(String.format("  %-28s count=%-8d rps=%-8.1f errors=%.2f%%%n",
+            "(total)", total, total / seconds, total == 0 ? 0 : 100.0 * failed / total));
+        return out.toString();
+    }
+
+    /**
+     * The client side statistics of a single path.
+     */
+    private static class Operation {
+        private final MetricsService.Histogram latency = new MetricsService.Histogram();
+        private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * A viewer polling the current billboard at a fixed rate.
+     */
+    private class Viewer implements Runnable {
+        private final AtomicLong intended;
+
+        private Viewer(long first) {
+            this.intended = new AtomicLong(first);
+        }
+
+        @Override
+        public void run() {
+            send(VIEWER_PATH, null, null, null, intended.getAndAdd(TimeUnit.MILLISECONDS.toNanos(viewerPollMillis)));
+        }
+    }
+
+    /**
+     * A control panel user that logs in and then loops through reads and the billboard lifecycle until the deadline.
+     */
+    private class Editor implements Runnable {
+        private final long deadline;
+        private String token;
+
+        // The billboard this editor is currently working through the lifecycle with.
+        private Billboard billboard;
+        private int step = 0;
+
+        private Editor(long deadline) {
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void run() {
+            HashMap<String, String> params = new HashMap<>();
+            params.put("username", "admin");
+            params.put("password", HashingFactory.hashPassword("admin"));
+
+            Response login = send("/login", null, params, null);
+            if (!ok(login)) return;
+            token = ((Session) login.body).token;
+
+            while (System.nanoTime() < deadline) {
+                if (Math.random() < editorReadRatio) read();
+                else write();
+
+                try {
+                    Thread.sleep(editorThinkMillis);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+
+            send("/logout", token, null, null);
+        }
+
+        private void read() {
+            send(Math.random() < 0.5 ? "/billboard/get" : "/schedule/get", token, null, null);
+        }
+
+        /**
+         * Performs the next step of insert, update, schedule, unschedule and delete for the editor's billboard.
+         */
+        @SuppressWarnings("unchecked")
+        private void write() {
+            HashMap<String, String> params = new HashMap<>();
+
+            switch (step) {
+                case 0:
+                    billboard = Billboard.Random(0);
+                    billboard.name = "load-" + RandomFactory.String();
+                    if (!ok(send("/billboard/insert", token, null, billboard))) return;
+                    break;
+                case 1:
+                    params.put("name", billboard.name);
+                    Response res = send("/billboard/get/name", token, params, null);
+                    if (!ok(res) || ((List<Billboard>) res.body).isEmpty()) break;
+
+                    billboard = ((List<Billboard>) res.body).get(0);
+                    billboard.message = RandomFactory.String();
+                    send("/billboard/update", token, null, billboard);
+                    break;
+                case 2:
+                    send("/schedule/insert", token, null, new Schedule(billboard.name, 0, RandomFactory.Int(1400), Instant.now(), 30, 60));
+                    break;
+                case 3:
+                    Response schedules = send("/schedule/get", token, null, null);
+                    if (!ok(schedules)) break;
+
+                    for (Schedule schedule : (List<Schedule>) schedules.body) {
+                        if (billboard.name.equals(schedule.billboardName)) send("/schedule/delete", token, null, schedule);
+                    }
+                    break;
+                default:
+                    params.put("bName", billboard.name);
+                    send("/billboard/delete", token, params, null);
+                    step = 0;
+                    return;
+            }
+
+            step++;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package server.controllers;
+
+import common.models.*;
+import common.router.Request;
+import common.router.Response;
+import common.router.response.Status;
+import common.sql.CollectionFactory;
+import common.utils.RandomFactory;
+import common.utils.session.Session;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import server.Main;
+import server.RouteHandler;
+import server.services.RouterService;
+import server.services.TokenService;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchControllerTest {
+    private static String token;
+
+    @BeforeAll
+    public static void Login() throws Exception {
+        Main.initDatabase();
+        Main.initRouter();
+
+        // Log in as the admin user created by the database initialisation.
+        User admin = CollectionFactory.getInstance(User.class).get(u -> u.username.equals("admin")).get(0);
+        Permissions permissions = CollectionFactory.getInstance(Permissions.class).get(p -> p.username.equals("admin")).get(0);
+        Session session = TokenService.getInstance().createSession(admin.id, admin.username, permissions);
+        token = session.token;
+    }
+
+    private static Response batch(List<Request> requests) throws Exception {
+        Request req = new Request(BatchController.PATH, token, null, new ArrayList<>(requests));
+        return RouteHandler.execute(req, RouterService.getInstance().route(req.path));
+    }
+
+    private static boolean exists(String name) throws Exception {
+        return !CollectionFactory.getInstance(Billboard.class).get(b -> name.equals(b.name)).isEmpty();
+    }
+
+    @Test
+    public void CommitsEveryRequest() throws Exception {
+        String first = RandomFactory.String();
+        String second = RandomFactory.String();
+
+        Billboard a = Billboard.Random(0);
+        a.name = first;
+        Billboard b = Billboard.Random(0);
+        b.name = second;
+
+        Response result = batch(List.of(
+            new Request("/billboard/insert", null, null, a),
+            new Request("/billboard/insert", null, null, b)
+        ));
+
+        assertEquals(Status.SUCCESS, result.status);
+        assertEquals(2, ((List<?>) result.body).size());
+        assertTrue(exists(first));
+        assertTrue(exists(second));
+
+        // Clean up in a batch as well.
+        HashMap<String, String> deleteFirst = new HashMap<>();
+        deleteFirst.put("bName", first);
+        HashMap<String, String> deleteSecond = new HashMap<>();
+        deleteSecond.put("bName", second);
+
+        result = batch(List.of(
+            new Request("/billboard/delete", null, deleteFirst, null),
+            new Request("/billboard/delete", null, deleteSecond, null)
+        ));
+        assertEquals(Status.SUCCESS, result.status);
+        assertFalse(exists(first));
+    }
+
+    @Test
+    public void RollsBackOnFailure() throws Exception {
+        String name = RandomFactory.String();
+
+        Billboard valid = Billboard.Random(0);
+        valid.name = name;
+        Billboard invalid = Billboard.Random(0);
+        invalid.name = null;
+
+        Response result = batch(List.of(
+            new Request("/billboard/insert", null, null, valid),
+            new Request("/billboard/insert", null, null, invalid)
+        ));
+
+        // The failing response is returned, and the insert before it is rolled back.
+        assertEquals(Status.BAD_REQUEST, result.status);
+        List<?> responses = (List<?>) result.body;
+        assertEquals(2, responses.size());
+        assertEquals(Status.SUCCESS, ((Response) responses.get(0)).status);
+        assertFalse(exists(name));
+    }
+
+    @Test
+    public void RejectsNestedBatches() throws Exception {
+        Response result = batch(List.of(new Request(BatchController.PATH, null, null, new ArrayList<Request>())));
+        assertEquals(Status.BAD_REQUEST, result.status);
+    }
+
+    @Test
+    public void RequiresAuthentication() throws Exception {
+        Request req = new Request(BatchController.PATH, null, null, new ArrayList<Request>());
+        Response result = RouteHandler.execute(req, RouterService.getInstance().route(req.path));
+        assertEquals(Status.UNAUTHORIZED, result.status);
+    }
+
+    @Test
+    public void UnknownPathFails() throws Exception {
+        Response result = batch(List.of(new Request("/not/a/path", null, null, null)));
+        assertEquals(Status.NOT_FOUND, result.status);
+    }
+}
@@ -0,0 +1,125 @@
+package server.services;
+
+import common.models.Billboard;
+import common.models.User;
+import common.sql.Collection;
+import common.sql.CollectionFactory;
+import common.utils.ArchiveReport;
+import common.utils.XML;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ArchiveServiceTests {
+
+    private User user;
+    private Billboard billboard;
+    private Collection<Billboard> billboards;
+    private final List<String> imported = new ArrayList<>();
+
+    @BeforeEach
+    public void Setup() throws Exception {
+        user = User.Random();
+        CollectionFactory.getInstance(User.class).insert(user);
+
+        billboards = CollectionFactory.getInstance(Billboard.class);
+        billboard = Billboard.Random(user.id);
+        billboard.name = "archive/" + billboard.name + " & more";
+        billboards.insert(billboard);
+    }
+
+    @AfterEach
+    public void Cleanup() throws Exception {
+        for (String name : imported) {
+            Optional<Billboard> b = billboards.find("name", name);
+            if (b.isPresent()) billboards.delete(b.get());
+        }
+        billboards.delete(billboard);
+        CollectionFactory.getInstance(User.class).delete(user);
+    }
+
+    private static void put(ZipOutputStream zip, String file, String content) throws Exception {
+        zip.putNextEntry(new ZipEntry(file));
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    @Test
+    public void TestExport() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ArchiveService.getInstance().export(out);
+
+        String xml = null;
+        ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()));
+        for (ZipEntry entry; (entry = zip.getNextEntry()) != null; ) {
+            if (entry.getName().equals(ArchiveService.fileName(billboard.name))) xml = new String(zip.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        assertNotNull(xml);
+        assertEquals(billboard.name, ArchiveService.billboardName(ArchiveService.fileName(billboard.name)));
+        assertEquals(XML.toXML(billboard), xml);
+    }
+
+    @Test
+    public void TestExportTooLarge() {
+        assertThrows(IOException.class, () -> ArchiveService.getInstance().export(new ByteArrayOutputStream(), 16));
+    }
+
+    @Test
+    public void TestImport() throws Exception {
+        String name = "imported-" + billboard.id;
+        imported.add(name);
+        imported.add("first-" + billboard.id);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            put(zip, "folder/" + ArchiveService.fileName(name), "<billboard background=\"#123456\"><message>Imported</message></billboard>");
+            put(zip, ArchiveService.fileName("first-" + billboard.id), "<billboard><information>One</information></billboard>");
+            put(zip, "again/" + ArchiveService.fileName("first-" + billboard.id), "<billboard><information>Two</information></billboard>");
+            put(zip, "broken.xml", "<billboard><message>");
+            put(zip, "readme.txt", "not a billboard");
+            put(zip, "remote.xml", "<billboard><picture url=\"file:///etc/passwd\"/></billboard>");
+            put(zip, ArchiveService.fileName(billboard.name), "<billboard/>");
+        }
+
+        ArchiveReport report = ArchiveService.getInstance().importArchive(new ByteArrayInputStream(out.toByteArray()), user.id);
+
+        assertEquals(2, report.imported);
+        assertEquals(5, report.errors.size());
+        assertTrue(report.errors.containsKey("broken.xml"));
+        assertTrue(report.errors.containsKey("readme.txt"));
+        assertTrue(report.errors.get("remote.xml").contains("data"));
+        assertEquals("Billboard name is repeated in the archive.", report.errors.get("again/" + ArchiveService.fileName("first-" + billboard.id)));
+        assertEquals("Billboard name already exists.", report.errors.get(ArchiveService.fileName(billboard.name)));
+
+        Billboard result = billboards.find("name", name).get();
+        assertEquals("Imported", result.message);
+        assertEquals("#123456", result.backgroundColor);
+        assertEquals(user.id, result.userId);
+        assertEquals("One", billboards.find("name", "first-" + billboard.id).get().information);
+    }
+
+    @Test
+    public void TestTooManyFiles() throws Exception {
+        // Files that aren't imported still count.
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (int i = 0; i <= ArchiveService.MAX_FILES; i++) zip.putNextEntry(new ZipEntry(i + ".txt"));
+        }
+
+        assertThrows(IOException.class, () -> ArchiveService.getInstance().importArchive(new ByteArrayInputStream(out.toByteArray()), user.id));
+    }
+}
@@ -0,0 +1,87 @@
+package server.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ImageServiceTests {
+
+    @AfterEach
+    public void Reset() {
+        ImageService.getInstance().configure(ImageService.MAX_WIDTH, ImageService.MAX_HEIGHT);
+    }
+
+    private static String encode(BufferedImage image, String format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, format, out);
+        return Base64.getEncoder().encodeToString(out.toByteArray());
+    }
+
+    private static BufferedImage decode(String picture) throws Exception {
+        return ImageIO.read(new ByteArrayInputStream(Base64.getDecoder().decode(picture)));
+    }
+
+    private static BufferedImage photo(int width, int height, int type) {
+        BufferedImage image = new BufferedImage(width, height, type);
+        Graphics2D g = image.createGraphics();
+        g.setPaint(new GradientPaint(0, 0, Color.RED, width, height, new Color(0, 0, 255, type == BufferedImage.TYPE_INT_ARGB ? 128 : 255)));
+        g.fillRect(0, 0, width, height);
+        g.dispose();
+        return image;
+    }
+
+    @Test
+    public void TestDownscalesToFit() throws Exception {
+        ImageService.getInstance().configure(400, 300);
+        String original = encode(photo(2000, 1000, BufferedImage.TYPE_INT_RGB), "png");
+
+        String normalised = ImageService.getInstance().normalise(original);
+        BufferedImage image = decode(normalised);
+
+        // The aspect ratio is kept, limited by the width.
+        assertEquals(400, image.getWidth());
+        assertEquals(200, image.getHeight());
+        assertTrue(normalised.length() < original.length());
+    }
+
+    @Test
+    public void TestKeepsTransparency() throws Exception {
+        ImageService.getInstance().configure(100, 100);
+        String normalised = ImageService.getInstance().normalise(encode(photo(800, 400, BufferedImage.TYPE_INT_ARGB), "png"));
+
+        BufferedImage image = decode(normalised);
+        assertEquals(100, image.getWidth());
+        assertTrue(image.getColorModel().hasAlpha());
+    }
+
+    @Test
+    public void TestSmallJpegIsUnchanged() throws Exception {
+        String original = encode(photo(200, 100, BufferedImage.TYPE_INT_RGB), "jpeg");
+        assertSame(original, ImageService.getInstance().normalise(original));
+    }
+
+    @Test
+    public void TestTooLongIsRejected() {
+        String tooLong = "A".repeat((int) PictureService.MAX_SIZE + 4);
+        assertThrows(IllegalArgumentException.class, () -> ImageService.getInstance().normalise(tooLong));
+    }
+
+    @Test
+    public void TestNotAnImageIsUnchanged() {
+        String notImage = Base64.getEncoder().encodeToString("hello world".getBytes());
+
+        assertNull(ImageService.getInstance().normalise(null));
+        assertSame(notImage, ImageService.getInstance().normalise(notImage));
+        assertSame("not base64!", ImageService.getInstance().normalise("not base64!"));
+    }
+}
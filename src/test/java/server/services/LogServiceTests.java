@@ -0,0 +1,73 @@
+package server.services;
+
+import common.router.response.Status;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LogServiceTests {
+
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    private final PrintStream stream = new PrintStream(output, true);
+
+    @Test
+    public void TestStructuredLine() {
+        LogService log = new LogService(16, () -> stream);
+        log.info("request", "path", "/billboard/get", "message", "two words", "latencyMs", 1.5);
+        assertTrue(log.flush(1000));
+
+        String line = output.toString();
+        assertTrue(line.contains(" INFO request path=/billboard/get message=\"two words\" latencyMs=1.500 thread="), line);
+    }
+
+    @Test
+    public void TestLevelsAndSampling() {
+        LogService log = new LogService(16, () -> stream);
+        log.configure(LogService.Level.INFO, 0);
+
+        log.debug("hidden");
+        log.request("/billboard/get", Status.SUCCESS, 1000, "client");
+        log.request("/billboard/insert", Status.BAD_REQUEST, 1000, "client");
+        log.error("failed", new IllegalStateException("broken"));
+        assertTrue(log.flush(1000));
+
+        String lines = output.toString();
+        assertFalse(lines.contains("hidden"));
+        // Successful requests are sampled away, failed requests are always written.
+        assertFalse(lines.contains("/billboard/get"));
+        assertTrue(lines.contains("WARN request path=/billboard/insert status=BAD_REQUEST"));
+        assertTrue(lines.contains("ERROR failed"));
+        assertTrue(lines.contains("java.lang.IllegalStateException: broken"));
+    }
+
+    @Test
+    public void TestFullBufferDropsWithoutBlocking() throws Exception {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PrintStream slow = new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ignored) { }
+            }
+        });
+
+        LogService log = new LogService(4, () -> slow);
+        log.info("first");
+        blocked.await();
+
+        // The writer is stuck on the stream, so only the capacity of the ring buffer fits.
+        for (int i = 0; i < 10; i++) log.info("line", "i", i);
+        assertEquals(6, log.dropped());
+
+        release.countDown();
+        assertTrue(log.flush(1000));
+    }
+}
@@ -0,0 +1,55 @@
+package server.services;
+
+import common.router.response.Status;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsServiceTests {
+
+    @BeforeEach
+    public void Reset() {
+        MetricsService.getInstance().reset();
+    }
+
+    @Test
+    public void TestHistogramPercentiles() {
+        MetricsService.Histogram histogram = new MetricsService.Histogram();
+        for (long i = 1; i <= 10000; i++) histogram.record(i * 1000);
+
+        assertEquals(10000, histogram.count());
+        assertEquals(10000000, histogram.max());
+
+        // Buckets are accurate to roughly 3%.
+        assertEquals(5000000, histogram.percentile(50), 5000000 * 0.04);
+        assertEquals(9900000, histogram.percentile(99), 9900000 * 0.04);
+        assertEquals(9990000, histogram.percentile(99.9), 9990000 * 0.04);
+    }
+
+    @Test
+    public void TestEmptyHistogram() {
+        assertEquals(0, new MetricsService.Histogram().percentile(99));
+    }
+
+    @Test
+    public void TestRecordCountsAndErrors() {
+        MetricsService.getInstance().record("/foo", Status.SUCCESS, 1000);
+        MetricsService.getInstance().record("/foo", Status.BAD_REQUEST, 1000);
+        MetricsService.getInstance().record("/foo", Status.BAD_REQUEST, 1000);
+        MetricsService.getInstance().recordAction("/foo", "Authenticate", 500);
+
+        List<MetricsService.RouteStatistics> stats = MetricsService.getInstance().snapshot();
+        assertEquals(1, stats.size());
+
+        MetricsService.RouteStatistics foo = stats.get(0);
+        assertEquals("/foo", foo.path);
+        assertEquals(3, foo.count);
+        assertEquals(2L, foo.errors.get(Status.BAD_REQUEST));
+        assertNull(foo.errors.get(Status.SUCCESS));
+        assertEquals(1, foo.actions.size());
+        assertEquals("Authenticate", foo.actions.get(0).path);
+    }
+}
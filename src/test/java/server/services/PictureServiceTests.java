@@ -0,0 +1,130 @@
+package server.services;
+
+import common.models.Billboard;
+import common.models.User;
+import common.sql.Collection;
+import common.sql.CollectionFactory;
+import common.utils.PictureChunk;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PictureServiceTests {
+
+    private User user;
+    private Billboard billboard;
+    private Collection<Billboard> billboards;
+
+    @BeforeEach
+    public void Setup() throws Exception {
+        user = User.Random();
+        CollectionFactory.getInstance(User.class).insert(user);
+
+        billboards = CollectionFactory.getInstance(Billboard.class);
+        billboard = Billboard.Random(user.id);
+        billboards.insert(billboard);
+    }
+
+    @AfterEach
+    public void Cleanup() throws Exception {
+        billboards.delete(billboard);
+        CollectionFactory.getInstance(User.class).delete(user);
+    }
+
+    private static String picture(int bytes) {
+        byte[] data = new byte[bytes];
+        new Random(1).nextBytes(data);
+        return Base64.getEncoder().encodeToString(data);
+    }
+
+    private String upload(String picture, int version) throws Exception {
+        String uploadId = null;
+        for (int offset = 0; ; offset += PictureChunk.SIZE) {
+            int end = Math.min(picture.length(), offset + PictureChunk.SIZE);
+            PictureChunk chunk = new PictureChunk(billboard.name, uploadId, offset, picture.substring(offset, end), end == picture.length());
+            uploadId = PictureService.getInstance().append(chunk);
+            if (chunk.last) return uploadId;
+        }
+    }
+
+    @Test
+    public void TestUploadAndDownload() throws Exception {
+        // Two and a half chunks.
+        String picture = picture(PictureChunk.SIZE / 4 * 3 * 5 / 2);
+        String uploadId = upload(picture, billboard.version);
+
+        assertTrue(PictureService.getInstance().finish(uploadId, billboard.name, billboard.version));
+
+        Billboard stored = billboards.find("id", billboard.id).get();
+        assertEquals(picture, stored.picture);
+        assertEquals(billboard.version + 1, stored.version);
+
+        StringBuilder downloaded = new StringBuilder();
+        PictureChunk chunk;
+        int chunks = 0;
+        do {
+            chunk = PictureService.getInstance().read(billboard.name, downloaded.length());
+            assertTrue(chunk.data.length() <= PictureChunk.SIZE);
+            assertEquals(picture.length(), chunk.total);
+            downloaded.append(chunk.data);
+            chunks++;
+        } while (!chunk.last);
+
+        assertEquals(3, chunks);
+        assertEquals(picture, downloaded.toString());
+        assertNull(PictureService.getInstance().read("no such billboard", 0));
+    }
+
+    @Test
+    public void TestStaleUploadIsRejected() throws Exception {
+        String original = billboards.find("id", billboard.id).get().picture;
+        String uploadId = upload(picture(100), billboard.version);
+
+        billboard.message = "changed";
+        billboards.update(billboard);
+
+        assertFalse(PictureService.getInstance().finish(uploadId, billboard.name, billboard.version - 1));
+        assertEquals(original, billboards.find("id", billboard.id).get().picture);
+    }
+
+    @Test
+    public void TestTooManyPixelsIsRejected() throws Exception {
+        // Just the header of a 20000 x 20000 PNG.
+        ByteBuffer header = ByteBuffer.allocate(17).put("IHDR".getBytes()).putInt(20000).putInt(20000).put(new byte[] { 8, 2, 0, 0, 0 });
+        CRC32 crc = new CRC32();
+        crc.update(header.array());
+        ByteBuffer png = ByteBuffer.allocate(33).put(new byte[] { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' })
+            .putInt(13).put(header.array()).putInt((int) crc.getValue());
+
+        String original = billboards.find("id", billboard.id).get().picture;
+        String uploadId = upload(Base64.getEncoder().encodeToString(png.array()), billboard.version);
+
+        assertThrows(IllegalArgumentException.class, () -> PictureService.getInstance().finish(uploadId, billboard.name, billboard.version));
+        assertEquals(original, billboards.find("id", billboard.id).get().picture);
+        // The upload was removed.
+        assertFalse(PictureService.getInstance().finish(uploadId, billboard.name, billboard.version));
+    }
+
+    @Test
+    public void TestInvalidChunks() throws Exception {
+        PictureService pictures = PictureService.getInstance();
+        String data = picture(300);
+
+        assertThrows(IllegalArgumentException.class, () -> pictures.append(new PictureChunk(billboard.name, null, 0, "not base64!", true)));
+        assertThrows(IllegalArgumentException.class, () -> pictures.append(new PictureChunk(billboard.name, null, 4, data, false)));
+        assertThrows(IllegalArgumentException.class, () -> pictures.append(new PictureChunk(billboard.name, null, 0, picture(PictureChunk.SIZE), false)));
+
+        String uploadId = pictures.append(new PictureChunk(billboard.name, null, 0, data, false));
+        // Chunks must arrive in order, for the billboard the upload was started for.
+        assertThrows(IllegalArgumentException.class, () -> pictures.append(new PictureChunk(billboard.name, uploadId, 0, data, false)));
+        assertThrows(IllegalArgumentException.class, () -> pictures.append(new PictureChunk("other", uploadId, data.length(), data, true)));
+        assertEquals(uploadId, pictures.append(new PictureChunk(billboard.name, uploadId, data.length(), data, true)));
+    }
+}